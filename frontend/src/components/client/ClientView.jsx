@@ -1,6 +1,8 @@
 import { useState, useEffect } from "react";
 import api from "../../api/axiosConfig";
 
+const PAGE_SIZE = 20;
+
 function ClientView() {
 
   const [form, setForm] = useState({
@@ -11,15 +13,20 @@ function ClientView() {
   });
 
   const [clients, setClients] = useState([]);
+  const [page, setPage] = useState(0);
+  const [totalPages, setTotalPages] = useState(0);
 
-  // Cargar clientes al iniciar
+  // Una página cada vez (/clients/search), no la tabla entera
   useEffect(() => {
     loadClients();
-  }, []);
+  }, [page]);
 
   const loadClients = () => {
-    api.get("/clients")
-      .then(res => setClients(res.data))
+    api.get("/clients/search", { params: { page, size: PAGE_SIZE } })
+      .then(res => {
+        setClients(res.data.content);
+        setTotalPages(res.data.totalPages);
+      })
       .catch(err => console.error(err));
   };
 
@@ -93,6 +100,18 @@ function ClientView() {
           </tbody>
         </table>
       )}
+
+      {totalPages > 1 && (
+        <div className="button-group">
+          <button className="secondary" disabled={page === 0} onClick={() => setPage(page - 1)}>
+            Anterior
+          </button>
+          <span>Página {page + 1} de {totalPages}</span>
+          <button className="secondary" disabled={page + 1 >= totalPages} onClick={() => setPage(page + 1)}>
+            Siguiente
+          </button>
+        </div>
+      )}
     </div>
   );
 }
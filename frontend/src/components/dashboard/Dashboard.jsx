@@ -1,26 +1,45 @@
 import { useEffect, useState } from "react";
 import api from "../../api/axiosConfig";
 
+// Efecto de un cambio de estado en un total: +1 si entra, -1 si sale
+const delta = (event, status) =>
+  (event.status === status ? 1 : 0) - (event.previous === status ? 1 : 0);
+
 function Dashboard() {
 
-  const [equipments, setEquipments] = useState([]);
+  const [total, setTotal] = useState(0);
+  const [available, setAvailable] = useState(0);
+  const [maintenance, setMaintenance] = useState(0);
 
+  // Totales al conectar (evento sync, que los trae junto con su id) y después solo
+  // los cambios que llegan por SSE; al reconectar, EventSource manda el último id y
+  // el servidor reenvía lo que faltó o vuelve a mandar sync
   useEffect(() => {
-    api.get("/equipments")
-      .then(res => setEquipments(res.data))
-      .catch(err => console.error(err));
+    const events = new EventSource(`${api.defaults.baseURL}/equipments/events`);
+
+    events.addEventListener("sync", (message) => {
+      const summary = JSON.parse(message.data);
+      setTotal(summary.total);
+      setAvailable(summary.available);
+      setMaintenance(summary.maintenance);
+    });
+    events.addEventListener("status", (message) => {
+      const event = JSON.parse(message.data);
+      setTotal(value => value + (event.status ? 1 : 0) - (event.previous ? 1 : 0));
+      setAvailable(value => value + delta(event, "AVAILABLE"));
+      setMaintenance(value => value + delta(event, "MAINTENANCE"));
+    });
+
+    return () => events.close();
   }, []);
 
-  const available = equipments.filter(e => e.status === "AVAILABLE").length;
-  const maintenance = equipments.filter(e => e.status === "MAINTENANCE").length;
-
   return (
     <div className="card">
       <h2>Dashboard General</h2>
 
       <div className="stats-grid">
         <div className="stat-box primary">
-          <h3>{equipments.length}</h3>
+          <h3>{total}</h3>
           <p>Total Equipos</p>
         </div>
 
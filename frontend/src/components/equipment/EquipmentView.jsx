@@ -1,9 +1,13 @@
 import { useEffect, useState } from "react";
 import api from "../../api/axiosConfig";
 
+const PAGE_SIZE = 24;
+
 function EquipmentView() {
 
   const [equipments, setEquipments] = useState([]);
+  const [page, setPage] = useState(0);
+  const [totalPages, setTotalPages] = useState(0);
   const [editingId, setEditingId] = useState(null);
 
   const [form, setForm] = useState({
@@ -13,11 +17,13 @@ function EquipmentView() {
     pricePerDay: ""
   });
 
-  useEffect(() => { loadEquipments(); }, []);
+  // Una página cada vez (/equipments/search), no el catálogo entero
+  useEffect(() => { loadEquipments(); }, [page]);
 
   const loadEquipments = async () => {
-    const res = await api.get("/equipments");
-    setEquipments(res.data);
+    const res = await api.get("/equipments/search", { params: { page, size: PAGE_SIZE } });
+    setEquipments(res.data.content);
+    setTotalPages(res.data.totalPages);
   };
 
   const handleSubmit = async () => {
@@ -99,6 +105,18 @@ function EquipmentView() {
           </div>
         ))}
       </div>
+
+      {totalPages > 1 && (
+        <div className="button-group">
+          <button className="secondary" disabled={page === 0} onClick={() => setPage(page - 1)}>
+            Anterior
+          </button>
+          <span>Página {page + 1} de {totalPages}</span>
+          <button className="secondary" disabled={page + 1 >= totalPages} onClick={() => setPage(page + 1)}>
+            Siguiente
+          </button>
+        </div>
+      )}
     </div>
   );
 }
@@ -77,8 +77,10 @@ function PaymentSection() {
           <p><strong>Fecha:</strong> {paymentResult.paymentDate}</p>
           <p>
             <strong>Estado del Alquiler:</strong>{" "}
-            {paymentResult.status}
+            {paymentResult.paymentStatus}
           </p>
+          <p><strong>Pagado:</strong> {paymentResult.paidAmount} €</p>
+          <p><strong>Pendiente:</strong> {paymentResult.pendingAmount} €</p>
         </div>
       )}
 
@@ -1,6 +1,8 @@
 import { useState, useEffect } from "react";
 import api from "../../api/axiosConfig";
 
+const PICKER_SIZE = 20;
+
 function RentalView() {
 
   const [form, setForm] = useState({
@@ -11,15 +13,25 @@ function RentalView() {
   });
 
   const [clients, setClients] = useState([]);
+  const [clientName, setClientName] = useState("");
+  const [equipments, setEquipments] = useState([]);
+  const [equipmentName, setEquipmentName] = useState("");
   const [selectedDni, setSelectedDni] = useState("");
   const [rentals, setRentals] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
 
-  // Cargar clientes al iniciar
+  // Selectores: una página de coincidencias por prefijo de nombre, nunca la tabla entera
   useEffect(() => {
-    api.get("/clients")
-      .then(res => setClients(res.data))
+    api.get("/clients/search", { params: { name: clientName, size: PICKER_SIZE, sort: "name" } })
+      .then(res => setClients(res.data.content))
       .catch(err => console.error(err));
-  }, []);
+  }, [clientName]);
+
+  useEffect(() => {
+    api.get("/equipments/search", { params: { name: equipmentName, size: PICKER_SIZE, sort: "name" } })
+      .then(res => setEquipments(res.data.content))
+      .catch(err => console.error(err));
+  }, [equipmentName]);
 
   // Crear alquiler
   const handleSubmit = () => {
@@ -44,7 +56,20 @@ function RentalView() {
     }
 
     api.get(`/clients/${selectedDni}/rentals`)
-      .then(res => setRentals(res.data))
+      .then(res => {
+        setRentals(res.data);
+        setNextCursor(res.headers["x-next-cursor"] ?? null);
+      })
+      .catch(err => alert(err.response?.data));
+  };
+
+  // Siguiente página del historial (cursor = último id recibido)
+  const loadMoreRentals = () => {
+    api.get(`/clients/${selectedDni}/rentals`, { params: { after: nextCursor } })
+      .then(res => {
+        setRentals(prev => [...prev, ...res.data]);
+        setNextCursor(res.headers["x-next-cursor"] ?? null);
+      })
       .catch(err => alert(err.response?.data));
   };
 
@@ -54,16 +79,40 @@ function RentalView() {
       <h2>Crear Alquiler</h2>
 
       <input
-        placeholder="DNI Cliente"
+        placeholder="Buscar cliente por nombre"
+        value={clientName}
+        onChange={e => setClientName(e.target.value)}
+      />
+
+      <select
         value={form.clientDni}
         onChange={e => setForm({ ...form, clientDni: e.target.value })}
-      />
+      >
+        <option value="">Selecciona un cliente</option>
+        {clients.map(client => (
+          <option key={client.id} value={client.dni}>
+            {client.dni} - {client.name}
+          </option>
+        ))}
+      </select>
 
       <input
-        placeholder="ID Equipo"
+        placeholder="Buscar equipo por nombre"
+        value={equipmentName}
+        onChange={e => setEquipmentName(e.target.value)}
+      />
+
+      <select
         value={form.equipmentId}
         onChange={e => setForm({ ...form, equipmentId: e.target.value })}
-      />
+      >
+        <option value="">Selecciona un equipo</option>
+        {equipments.map(eq => (
+          <option key={eq.id} value={eq.id}>
+            {eq.internalCode} - {eq.name} ({eq.status})
+          </option>
+        ))}
+      </select>
 
       <input
         type="date"
@@ -85,6 +134,12 @@ function RentalView() {
 
       <h2>Buscar Alquileres por Cliente</h2>
 
+      <input
+        placeholder="Buscar cliente por nombre"
+        value={clientName}
+        onChange={e => setClientName(e.target.value)}
+      />
+
       <select
         value={selectedDni}
         onChange={e => setSelectedDni(e.target.value)}
@@ -130,6 +185,12 @@ function RentalView() {
         </table>
       )}
 
+      {nextCursor && (
+        <button className="secondary" onClick={loadMoreRentals}>
+          Cargar más
+        </button>
+      )}
+
     </div>
   );
 }
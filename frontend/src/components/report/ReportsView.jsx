@@ -141,19 +141,15 @@ function ReportsView() {
           <table style={{ marginTop: "10px", width: "100%" }}>
             <thead>
               <tr>
-                <th>Nombre</th>
-                <th>Categoría</th>
-                <th>Código</th>
-                <th>Precio/día</th>
+                <th>Equipo</th>
+                <th>Alquileres</th>
               </tr>
             </thead>
             <tbody>
               {topEquipments.map(eq => (
-                <tr key={eq.id}>
-                  <td>{eq.name}</td>
-                  <td>{eq.category}</td>
-                  <td>{eq.internalCode}</td>
-                  <td>{eq.pricePerDay} €</td>
+                <tr key={eq.equipmentId}>
+                  <td>{eq.equipmentName}</td>
+                  <td>{eq.totalRentals}</td>
                 </tr>
               ))}
             </tbody>
@@ -179,17 +175,15 @@ function ReportsView() {
               <tr>
                 <th>Nombre</th>
                 <th>DNI</th>
-                <th>Email</th>
-                <th>Teléfono</th>
+                <th>Alquileres</th>
               </tr>
             </thead>
             <tbody>
               {topClients.map(client => (
-                <tr key={client.id}>
-                  <td>{client.name}</td>
+                <tr key={client.clientId}>
+                  <td>{client.clientName}</td>
                   <td>{client.dni}</td>
-                  <td>{client.email}</td>
-                  <td>{client.phone}</td>
+                  <td>{client.totalRentals}</td>
                 </tr>
               ))}
             </tbody>
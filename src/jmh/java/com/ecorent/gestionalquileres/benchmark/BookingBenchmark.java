@@ -0,0 +1,61 @@
+package com.ecorent.gestionalquileres.benchmark;
+
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.service.RentalService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RF-07: reserva de un equipo (cerrojo, solapamiento, alta y agregados) con
+ * el historial sembrado. Cada invocación reserva dos días libres de un equipo
+ * distinto; las reservas se confirman, así que la base de datos crece durante
+ * la medición como lo haría en producción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class BookingBenchmark {
+
+    private static final LocalDate FUTURE = LocalDate.of(2030, 1, 1);
+
+    @Param("200")
+    int equipments;
+
+    @Param("100")
+    int clients;
+
+    @Param("5000")
+    int historicRentals;
+
+    private SeededApplication app;
+    private RentalService rentalService;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = SeededApplication.start(equipments, clients, historicRentals);
+        rentalService = app.bean(RentalService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public Rental createRental() {
+        long n = sequence++;
+        int slot = (int) (n % equipments);
+        LocalDate start = FUTURE.plusDays(2 * (n / equipments));
+        return rentalService.createRental(
+                app.clients().get(slot % clients).getDni(),
+                app.equipments().get(slot).getId(),
+                start,
+                start.plusDays(1));
+    }
+}
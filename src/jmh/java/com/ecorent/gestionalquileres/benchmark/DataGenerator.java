@@ -0,0 +1,175 @@
+package com.ecorent.gestionalquileres.benchmark;
+
+import com.ecorent.gestionalquileres.service.IncomeRollup;
+import com.ecorent.gestionalquileres.service.RentalCounters;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * Genera un volumen de producción (por defecto 50.000 clientes, 20.000 equipos
+ * y 10 millones de alquileres con sus pagos) sobre una base de datos vacía.
+ *
+ * Todo se inserta con INSERT ... SELECT sobre SYSTEM_RANGE de H2, por tramos
+ * confirmados de {@code --chunk} filas. Los valores salen de una mezcla
+ * aritmética de la posición y la semilla, así que la misma semilla produce
+ * exactamente los mismos datos. Cada equipo encadena sus alquileres cada 7
+ * días desde 2015 sin solapes; todos están devueltos, el 90 % pagado del todo,
+ * el 7 % a medias y el resto pendiente. Contadores e ingresos diarios se
+ * reconstruyen al final con los mismos procesos que al arrancar la aplicación.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmarks test-compile exec:exec@generate-data \
+ *     -Dgenerator.args="--url=jdbc:h2:file:./data/loadtest --rentals=10000000"
+ * </pre>
+ */
+public final class DataGenerator {
+
+    static final String DEFAULT_URL = "jdbc:h2:file:./data/loadtest";
+
+    private static final String HISTORY_START = "DATE '2015-01-01'";
+    private static final int RENTAL_STRIDE_DAYS = 7;
+    private static final long[] MULTIPLIERS = {
+            2654435761L, 2246822519L, 3266489917L, 668265263L, 374761393L, 1597334677L};
+
+    private final JdbcTemplate jdbc;
+    private final long seed;
+
+    private DataGenerator(JdbcTemplate jdbc, long seed) {
+        this.jdbc = jdbc;
+        this.seed = seed;
+    }
+
+    // DNI del cliente i-ésimo (1..n): el driver de carga reserva con ellos
+    static String dni(long i) {
+        return String.format("%08dG", i);
+    }
+
+    public static void main(String[] args) {
+
+        Map<String, String> options = Options.parse(args);
+        String url = options.getOrDefault("url", DEFAULT_URL);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "50000"));
+        int equipments = Integer.parseInt(options.getOrDefault("equipments", "20000"));
+        long rentals = Long.parseLong(options.getOrDefault("rentals", "10000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        long chunk = Long.parseLong(options.getOrDefault("chunk", "250000"));
+
+        try (ConfigurableApplicationContext context = Options.startApplication(url)) {
+
+            DataGenerator generator = new DataGenerator(context.getBean(JdbcTemplate.class), seed);
+            generator.requireEmpty();
+
+            long started = System.nanoTime();
+            generator.equipments(equipments);
+            generator.clients(clients);
+            log(started, "%d equipos y %d clientes", equipments, clients);
+
+            for (long from = 1; from <= rentals; from += chunk) {
+                long to = Math.min(rentals, from + chunk - 1);
+                generator.rentals(from, to, equipments, clients);
+                log(started, "alquileres %d/%d", to, rentals);
+            }
+
+            long payments = generator.payments(chunk);
+            log(started, "%d pagos", payments);
+
+            context.getBean(RentalCounters.class).backfill();
+            context.getBean(IncomeRollup.class).load();
+            log(started, "contadores e ingresos diarios reconstruidos");
+        }
+    }
+
+    private void requireEmpty() {
+        for (String table : new String[]{"client", "equipment", "rental", "payment"}) {
+            Long rows = jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+            if (rows != null && rows > 0) {
+                throw new IllegalStateException("La tabla " + table + " no está vacía: usa una base de datos nueva");
+            }
+        }
+        // Ids 1..n: los alquileres referencian equipos y clientes por posición
+        jdbc.execute("ALTER TABLE equipment ALTER COLUMN id RESTART WITH 1");
+        jdbc.execute("ALTER TABLE client ALTER COLUMN id RESTART WITH 1");
+    }
+
+    private void equipments(int count) {
+        jdbc.update("""
+                INSERT INTO equipment (name, category, internal_code, price_per_day, status)
+                SELECT 'Equipo ' || X,
+                       CASE MOD(X, 5) WHEN 0 THEN 'Energía' WHEN 1 THEN 'Obra' WHEN 2 THEN 'Jardín'
+                                      WHEN 3 THEN 'Limpieza' ELSE 'Elevación' END,
+                       'EQ-' || LPAD(X, 6, '0'),
+                       %s,
+                       'AVAILABLE'
+                FROM SYSTEM_RANGE(1, ?)
+                ORDER BY X
+                """.formatted(price("X")), count);
+    }
+
+    private void clients(int count) {
+        jdbc.update("""
+                INSERT INTO client (name, dni, phone, email)
+                SELECT 'Cliente ' || X,
+                       LPAD(X, 8, '0') || 'G',
+                       '6' || LPAD(MOD(%s, 100000000), 8, '0'),
+                       'cliente' || X || '@ecorent.test'
+                FROM SYSTEM_RANGE(1, ?)
+                ORDER BY X
+                """.formatted(mix(2)), count);
+    }
+
+    private void rentals(long from, long to, int equipments, int clients) {
+        jdbc.update("""
+                INSERT INTO rental (client_id, equipment_id, start_date, end_date,
+                                    total_amount, paid_amount, returned)
+                SELECT r.client_id, r.equipment_id, r.start_date, DATEADD(DAY, r.days - 1, r.start_date),
+                       r.total,
+                       CASE WHEN r.paid < 90 THEN r.total
+                            WHEN r.paid < 97 THEN ROUND(r.total / 2, 2)
+                            ELSE 0 END,
+                       TRUE
+                FROM (SELECT MOD(X - 1, %1$d) + 1 AS equipment_id,
+                             MOD(%3$s, %2$d) + 1 AS client_id,
+                             DATEADD(DAY, ((X - 1) / %1$d) * %7$d + MOD(%4$s, 2), %8$s) AS start_date,
+                             MOD(%5$s, 5) + 1 AS days,
+                             %9$s * (MOD(%5$s, 5) + 1) AS total,
+                             MOD(%6$s, 100) AS paid
+                      FROM SYSTEM_RANGE(?, ?)) r
+                """.formatted(equipments, clients, mix(3), mix(4), mix(5), mix(6),
+                RENTAL_STRIDE_DAYS, HISTORY_START, price("(MOD(X - 1, %d) + 1)".formatted(equipments))),
+                from, to);
+    }
+
+    // Un pago por alquiler con importe pagado, el día de la devolución
+    private long payments(long chunk) {
+        Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM rental", Long.class);
+        long inserted = 0;
+        for (long from = 1; maxId != null && from <= maxId; from += chunk) {
+            inserted += jdbc.update("""
+                    INSERT INTO payment (rental_id, amount, payment_date)
+                    SELECT id, paid_amount, end_date
+                    FROM rental
+                    WHERE paid_amount > 0 AND id BETWEEN ? AND ?
+                    ORDER BY id
+                    """, from, from + chunk - 1);
+        }
+        return inserted;
+    }
+
+    // Precio por día de un equipo: la misma expresión al crearlo y al calcular sus alquileres,
+    // así el importe no necesita un JOIN con equipment
+    private String price(String equipmentId) {
+        return "(10 + MOD(%s, 90))".formatted(mix(1).replace("X", equipmentId));
+    }
+
+    // Entero pseudoaleatorio en [0, 2^31 - 1) para la fila X; un multiplicador por columna
+    // para que las columnas no queden correladas
+    private String mix(int column) {
+        return "MOD(X * %d + %d, 2147483647)".formatted(MULTIPLIERS[column - 1], seed * 1_000_003L + column);
+    }
+
+    private static void log(long started, String format, Object... args) {
+        System.out.printf("[%6.1f s] %s%n", (System.nanoTime() - started) / 1e9, format.formatted(args));
+    }
+}
@@ -0,0 +1,355 @@
+package com.ecorent.gestionalquileres.benchmark;
+
+import com.ecorent.gestionalquileres.repository.ClientRepository;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Arranca la aplicación en un puerto aleatorio sobre la base de datos indicada
+ * (normalmente la de {@link DataGenerator}) y la somete por HTTP a una mezcla de
+ * reservas, devoluciones, pagos e informes desde {@code --threads} hilos.
+ *
+ * Tras el calentamiento se miden {@code --duration} segundos; al final se
+ * imprime, por endpoint, el número de peticiones, los rechazos (4xx), los
+ * errores (5xx o de red), el rendimiento y las latencias p50/p99/máxima.
+ * Cada hilo usa su propia semilla, así que la secuencia de operaciones se
+ * repite entre ejecuciones.
+ *
+ * Con {@code --modes=platform,virtual} la misma carga se lanza primero contra
+ * la aplicación con el pool de hilos de plataforma de Tomcat y después con
+ * hilos virtuales ({@code spring.threads.virtual.enabled}), y se comparan
+ * ambos resultados; conviene usar muchos más hilos cliente que los 200 de
+ * Tomcat para notar la diferencia.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmarks test-compile exec:exec@load-test \
+ *     -Dloadtest.args="--url=jdbc:h2:file:./data/loadtest --threads=16 --duration=60"
+ *
+ * ./mvnw -Pbenchmarks test-compile exec:exec@load-test \
+ *     -Dloadtest.args="--url=jdbc:h2:file:./data/loadtest --threads=1000 --modes=platform,virtual"
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final LocalDate FUTURE = LocalDate.of(2035, 1, 1);
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final long equipments;
+    private final long clients;
+    private final int[] mix;
+
+    // Alquileres reservados por el driver: pendientes de devolver y con saldo por pagar
+    private final ConcurrentLinkedQueue<Long> toReturn = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> toPay = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    private volatile boolean measuring;
+
+    private LoadDriver(String baseUrl, long equipments, long clients, int[] mix) {
+        this.baseUrl = baseUrl;
+        this.equipments = equipments;
+        this.clients = clients;
+        this.mix = mix;
+        for (String name : List.of(
+                "POST /api/rentals",
+                "PUT /api/rentals/{id}/return",
+                "POST /api/rentals/{id}/payments",
+                "GET /api/reports/income",
+                "GET /api/reports/top-equipments",
+                "GET /api/reports/top-clients")) {
+            endpoints.put(name, new Endpoint(name));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        Map<String, String> options = Options.parse(args);
+        String url = options.getOrDefault("url", DataGenerator.DEFAULT_URL);
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "60"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        // Pesos reserva,devolución,pago,informe
+        int[] mix = Arrays.stream(options.getOrDefault("mix", "40,20,25,15").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        // Hilos de la aplicación: platform, virtual o ambos en orden para compararlos
+        List<String> modes = List.of(options.getOrDefault("modes", "platform").split(","));
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            boolean virtual = switch (mode) {
+                case "platform" -> false;
+                case "virtual" -> true;
+                default -> throw new IllegalArgumentException("Modo no válido (platform o virtual): " + mode);
+            };
+
+            try (ConfigurableApplicationContext context = Options.startApplication(url,
+                    "--spring.threads.virtual.enabled=" + virtual)) {
+
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                long equipments = context.getBean(EquipmentRepository.class).count();
+                long clients = context.getBean(ClientRepository.class).count();
+                if (equipments == 0 || clients == 0) {
+                    throw new IllegalStateException("Base de datos sin equipos o clientes: ejecuta antes DataGenerator");
+                }
+                System.out.printf("%nHilos %s. Aplicación en el puerto %d: %d equipos, %d clientes, %d hilos cliente%n",
+                        mode, port, equipments, clients, threads);
+
+                LoadDriver driver = new LoadDriver("http://localhost:" + port, equipments, clients, mix);
+                // Semillas distintas por modo: repetir las reservas del anterior solo daría solapes
+                long modeSeed = seed + (long) results.size() * threads;
+                results.put(mode, driver.run(threads, modeSeed, warmup, duration));
+            }
+        }
+
+        if (results.size() > 1) {
+            compare(results);
+        }
+    }
+
+    private Result run(int threads, long seed, int warmupSeconds, int durationSeconds) throws InterruptedException {
+
+        long end = System.nanoTime() + Duration.ofSeconds(warmupSeconds + durationSeconds).toNanos();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Random random = new Random(seed + i);
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    nextOperation(random);
+                }
+            }, "load-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        Thread.sleep(Duration.ofSeconds(warmupSeconds));
+        endpoints.values().forEach(Endpoint::reset);
+        measuring = true;
+        long measureStart = System.nanoTime();
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        measuring = false;
+
+        return report((System.nanoTime() - measureStart) / 1e9);
+    }
+
+    private void nextOperation(Random random) {
+        int pick = random.nextInt(Arrays.stream(mix).sum());
+        if ((pick -= mix[0]) < 0) {
+            book(random);
+        } else if ((pick -= mix[1]) < 0) {
+            Long id = toReturn.poll();
+            if (id == null) {
+                book(random);
+            } else {
+                send("PUT /api/rentals/{id}/return", "PUT", "/api/rentals/" + id + "/return", null);
+            }
+        } else if ((pick -= mix[2]) < 0) {
+            Long id = toPay.poll();
+            if (id == null) {
+                book(random);
+            } else if (send("POST /api/rentals/{id}/payments", "POST", "/api/rentals/" + id + "/payments",
+                    "{\"amount\": 1.00}") == 200) {
+                toPay.add(id);
+            }
+        } else {
+            report(random);
+        }
+    }
+
+    private void book(Random random) {
+        long equipmentId = 1 + random.nextLong(equipments);
+        LocalDate start = FUTURE.plusDays(random.nextInt(3650));
+        String body = """
+                {"clientDni": "%s", "equipmentId": %d, "startDate": "%s", "endDate": "%s"}
+                """.formatted(DataGenerator.dni(1 + random.nextLong(clients)), equipmentId,
+                start, start.plusDays(random.nextInt(3)));
+
+        HttpResponse<String> response = exchange("POST /api/rentals", "POST", "/api/rentals", body);
+        if (response != null && response.statusCode() == 200) {
+            Matcher id = ID.matcher(response.body());
+            if (id.find()) {
+                Long rentalId = Long.valueOf(id.group(1));
+                toReturn.add(rentalId);
+                toPay.add(rentalId);
+            }
+        }
+    }
+
+    private void report(Random random) {
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                LocalDate start = LocalDate.of(2015 + random.nextInt(10), 1, 1);
+                send("GET /api/reports/income", "GET",
+                        "/api/reports/income?start=" + start + "&end=" + start.plusYears(1).minusDays(1), null);
+            }
+            case 1 -> send("GET /api/reports/top-equipments", "GET", "/api/reports/top-equipments?limit=10", null);
+            default -> send("GET /api/reports/top-clients", "GET", "/api/reports/top-clients?limit=10", null);
+        }
+    }
+
+    private int send(String endpoint, String method, String path, String body) {
+        HttpResponse<String> response = exchange(endpoint, method, path, body);
+        return response == null ? -1 : response.statusCode();
+    }
+
+    private HttpResponse<String> exchange(String endpoint, String method, String path, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long started = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            response = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (measuring) {
+            endpoints.get(endpoint).record(System.nanoTime() - started, response == null ? -1 : response.statusCode());
+        }
+        return response;
+    }
+
+    private Result report(double seconds) {
+        System.out.printf("%nMedición: %.1f s%n", seconds);
+        System.out.printf("%-34s %9s %8s %8s %8s %10s %9s %9s %9s%n",
+                "Endpoint", "Peticiones", "2xx", "4xx", "Errores", "req/s", "p50 ms", "p99 ms", "máx ms");
+        Endpoint all = new Endpoint("Total");
+        for (Endpoint endpoint : endpoints.values()) {
+            Endpoint.Summary s = endpoint.summary();
+            all.merge(endpoint);
+            System.out.printf("%-34s %9d %8d %8d %8d %10.1f %9.2f %9.2f %9.2f%n",
+                    endpoint.name, s.count(), s.ok(), s.rejected(), s.failed(), s.count() / seconds,
+                    s.p50() / 1e6, s.p99() / 1e6, s.max() / 1e6);
+        }
+        Endpoint.Summary total = all.summary();
+        System.out.printf("%-34s %9d %8d %8d %8d %10.1f %9.2f %9.2f %9.2f%n",
+                all.name, total.count(), total.ok(), total.rejected(), total.failed(), total.count() / seconds,
+                total.p50() / 1e6, total.p99() / 1e6, total.max() / 1e6);
+        return new Result(total, seconds);
+    }
+
+    private static void compare(Map<String, Result> results) {
+        System.out.printf("%nComparativa de modos de hilos%n");
+        System.out.printf("%-10s %10s %8s %8s %9s %9s %9s%n",
+                "Hilos", "req/s", "4xx", "Errores", "p50 ms", "p99 ms", "máx ms");
+        results.forEach((mode, result) -> {
+            Endpoint.Summary s = result.total();
+            System.out.printf("%-10s %10.1f %8d %8d %9.2f %9.2f %9.2f%n",
+                    mode, s.count() / result.seconds(), s.rejected(), s.failed(),
+                    s.p50() / 1e6, s.p99() / 1e6, s.max() / 1e6);
+        });
+    }
+
+    private record Result(Endpoint.Summary total, double seconds) {
+    }
+
+    // Latencias de un endpoint: todas las muestras, ordenadas solo al resumir
+    private static final class Endpoint {
+
+        private final String name;
+        private long[] latencies = new long[1024];
+        private int count;
+        private int ok;
+        private int rejected;
+        private int failed;
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        synchronized void reset() {
+            count = ok = rejected = failed = 0;
+        }
+
+        // Acumula las muestras de otro endpoint (para el total)
+        void merge(Endpoint other) {
+            long[] samples;
+            int otherOk;
+            int otherRejected;
+            int otherFailed;
+            synchronized (other) {
+                samples = Arrays.copyOf(other.latencies, other.count);
+                otherOk = other.ok;
+                otherRejected = other.rejected;
+                otherFailed = other.failed;
+            }
+            synchronized (this) {
+                if (count + samples.length > latencies.length) {
+                    latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + samples.length));
+                }
+                System.arraycopy(samples, 0, latencies, count, samples.length);
+                count += samples.length;
+                ok += otherOk;
+                rejected += otherRejected;
+                failed += otherFailed;
+            }
+        }
+
+        synchronized void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (status >= 200 && status < 300) {
+                ok++;
+            } else if (status >= 400 && status < 500) {
+                rejected++;
+            } else {
+                failed++;
+            }
+        }
+
+        synchronized Summary summary() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Summary(count, ok, rejected, failed,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), count == 0 ? 0 : sorted[count - 1]);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.ceil(p * sorted.length) - 1];
+        }
+
+        record Summary(int count, int ok, int rejected, int failed, long p50, long p99, long max) {
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecorent.gestionalquileres.benchmark;
+
+import com.ecorent.gestionalquileres.GestionalquileresApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Argumentos --clave=valor y arranque de la aplicación para el generador y el driver de carga
+final class Options {
+
+    private Options() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento no válido (se espera --clave=valor): " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    // Puerto aleatorio y sin trazas SQL; como argumentos para prevalecer sobre application.properties
+    static ConfigurableApplicationContext startApplication(String url, String... extraArgs) {
+        // Lanzados desde main, DevTools reiniciaría la aplicación en otro hilo
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--spring.autoconfigure.exclude="
+                        + "org.springframework.boot.devtools.autoconfigure.LocalDevToolsAutoConfiguration,"
+                        + "org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(GestionalquileresApplication.class)
+                .run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecorent.gestionalquileres.benchmark;
+
+import com.ecorent.gestionalquileres.dto.payment.PaymentResponse;
+import com.ecorent.gestionalquileres.service.PaymentService;
+import com.ecorent.gestionalquileres.service.RentalService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RF-12 + RN-05: registro de un pago sobre alquileres abiertos con importe de
+ * sobra, repartiendo los pagos entre ellos para no medir siempre la misma fila.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PaymentBenchmark {
+
+    private static final BigDecimal CENT = new BigDecimal("0.01");
+
+    @Param("200")
+    int equipments;
+
+    @Param("100")
+    int clients;
+
+    @Param("5000")
+    int historicRentals;
+
+    @Param("50")
+    int openRentals;
+
+    private SeededApplication app;
+    private PaymentService paymentService;
+    private long[] rentalIds;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = SeededApplication.start(equipments, clients, historicRentals);
+        paymentService = app.bean(PaymentService.class);
+
+        // Un año de alquiler por equipo: millones de pagos de un céntimo antes de agotarlo
+        RentalService rentalService = app.bean(RentalService.class);
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        rentalIds = new long[openRentals];
+        for (int i = 0; i < openRentals; i++) {
+            rentalIds[i] = rentalService.createRental(
+                    app.clients().get(i % clients).getDni(),
+                    app.equipments().get(i % equipments).getId(),
+                    start.plusYears(i / equipments),
+                    start.plusYears(i / equipments).plusDays(364)).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public PaymentResponse registerPayment() {
+        return paymentService.registerPayment(rentalIds[(int) (sequence++ % rentalIds.length)], CENT);
+    }
+}
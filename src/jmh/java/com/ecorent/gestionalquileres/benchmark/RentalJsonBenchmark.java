@@ -0,0 +1,59 @@
+package com.ecorent.gestionalquileres.benchmark;
+
+import com.ecorent.gestionalquileres.dto.rental.RentalResponse;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de listas de {@link RentalResponse} con el mismo
+ * conversor de mensajes que usan los controladores (historial, reservas en bloque).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RentalJsonBenchmark {
+
+    @Param({"50", "500"})
+    int size;
+
+    private SeededApplication app;
+    private MappingJackson2HttpMessageConverter converter;
+    private List<RentalResponse> rentals;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = SeededApplication.start(50, 20, size);
+        converter = app.bean(MappingJackson2HttpMessageConverter.class);
+
+        RentalRepository rentalRepository = app.bean(RentalRepository.class);
+        rentals = new ArrayList<>(size);
+        for (var client : app.clients()) {
+            rentals.addAll(rentalRepository.findHistoryPage(client.getDni(), 0L, Limit.of(size)));
+        }
+        rentals = List.copyOf(rentals.subList(0, size));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public int writeRentalList() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(rentals, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsBytes().length;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecorent.gestionalquileres.benchmark;
+
+import com.ecorent.gestionalquileres.dto.report.TopClientResponse;
+import com.ecorent.gestionalquileres.dto.report.TopEquipmentResponse;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.ecorent.gestionalquileres.service.ReportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RF-14: informes sobre el historial sembrado. {@code incomeFromQuery} mide la
+ * consulta que el servicio usa como respaldo, para comparar con el acumulado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReportBenchmark {
+
+    private static final LocalDate FROM = SeededApplication.HISTORY_START;
+    private static final LocalDate TO = FROM.plusYears(1);
+
+    @Param("200")
+    int equipments;
+
+    @Param("100")
+    int clients;
+
+    @Param("5000")
+    int historicRentals;
+
+    private SeededApplication app;
+    private ReportService reportService;
+    private RentalRepository rentalRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        app = SeededApplication.start(equipments, clients, historicRentals);
+        reportService = app.bean(ReportService.class);
+        rentalRepository = app.bean(RentalRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        app.close();
+    }
+
+    @Benchmark
+    public List<TopEquipmentResponse> topEquipments() {
+        return reportService.getTopRentedEquipments(10);
+    }
+
+    @Benchmark
+    public List<TopClientResponse> topClients() {
+        return reportService.getTopClients(10);
+    }
+
+    @Benchmark
+    public BigDecimal income() {
+        return reportService.getIncomeBetween(FROM, TO);
+    }
+
+    @Benchmark
+    public BigDecimal incomeFromQuery() {
+        return rentalRepository.sumIncomeStartingBetween(FROM, TO);
+    }
+}
@@ -0,0 +1,119 @@
+package com.ecorent.gestionalquileres.benchmark;
+
+import com.ecorent.gestionalquileres.GestionalquileresApplication;
+import com.ecorent.gestionalquileres.entity.Client;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.service.ClientService;
+import com.ecorent.gestionalquileres.service.EquipmentService;
+import com.ecorent.gestionalquileres.service.RentalService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * La aplicación completa sobre H2 en memoria, con catálogo, clientes e
+ * historial de alquileres generados con semilla fija: dos ejecuciones con los
+ * mismos parámetros miden exactamente los mismos datos.
+ *
+ * Los datos se crean a través de los servicios, así que contadores, ingresos
+ * diarios e índice de disponibilidad quedan como en producción.
+ */
+final class SeededApplication implements AutoCloseable {
+
+    static final long SEED = 42L;
+    static final LocalDate HISTORY_START = LocalDate.of(2022, 1, 1);
+
+    private static final String[] CATEGORIES = {"Energía", "Obra", "Jardín", "Limpieza", "Elevación"};
+
+    private final ConfigurableApplicationContext context;
+    private final List<Equipment> equipments = new ArrayList<>();
+    private final List<Client> clients = new ArrayList<>();
+
+    private SeededApplication(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    static SeededApplication start(int equipmentCount, int clientCount, int historicRentals) {
+
+        // Como argumentos, para que prevalezcan sobre application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(GestionalquileresApplication.class)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID(),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--server.port=0",
+                        "--logging.level.root=WARN",
+                        // DevTools está en el classpath de test: ni reinicios ni apagado propio de H2
+                        "--spring.autoconfigure.exclude="
+                                + "org.springframework.boot.devtools.autoconfigure.LocalDevToolsAutoConfiguration,"
+                                + "org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration");
+
+        SeededApplication app = new SeededApplication(context);
+        app.seed(equipmentCount, clientCount, historicRentals);
+        return app;
+    }
+
+    private void seed(int equipmentCount, int clientCount, int historicRentals) {
+
+        Random random = new Random(SEED);
+        EquipmentService equipmentService = bean(EquipmentService.class);
+        ClientService clientService = bean(ClientService.class);
+        RentalService rentalService = bean(RentalService.class);
+
+        for (int i = 0; i < equipmentCount; i++) {
+            equipments.add(equipmentService.createEquipment(Equipment.builder()
+                    .name("Equipo " + i)
+                    .category(CATEGORIES[i % CATEGORIES.length])
+                    .internalCode(String.format("EQ-%05d", i))
+                    .pricePerDay(BigDecimal.valueOf(10 + random.nextInt(90)))
+                    .build()));
+        }
+
+        for (int i = 0; i < clientCount; i++) {
+            clients.add(clientService.createClient(Client.builder()
+                    .name("Cliente " + i)
+                    .dni(String.format("%08dB", i))
+                    .phone("600" + String.format("%06d", i))
+                    .build()));
+        }
+
+        // Historial ya devuelto, sin solapes: cada equipo avanza su propia fecha libre
+        LocalDate[] nextFree = new LocalDate[equipmentCount];
+        Arrays.fill(nextFree, HISTORY_START);
+        for (int i = 0; i < historicRentals; i++) {
+            int e = random.nextInt(equipmentCount);
+            LocalDate start = nextFree[e].plusDays(random.nextInt(3));
+            LocalDate end = start.plusDays(random.nextInt(7));
+            nextFree[e] = end.plusDays(1);
+
+            Rental rental = rentalService.createRental(
+                    clients.get(random.nextInt(clientCount)).getDni(), equipments.get(e).getId(), start, end);
+            rentalService.registerReturn(rental.getId());
+        }
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    List<Equipment> equipments() {
+        return equipments;
+    }
+
+    List<Client> clients() {
+        return clients;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
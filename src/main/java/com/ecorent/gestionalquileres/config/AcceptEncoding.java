@@ -0,0 +1,52 @@
+package com.ecorent.gestionalquileres.config;
+
+import java.util.Locale;
+
+/**
+ * Negociación de la cabecera Accept-Encoding para las respuestas que tienen
+ * variante gzip. El controlador elige el cuerpo y {@link ConditionalGetInterceptor}
+ * la ETag con esta misma comprobación, así que nunca discrepan.
+ *
+ * Se respetan los valores q: {@code gzip;q=0} rechaza gzip, y {@code *} solo
+ * lo acepta si gzip no aparece por su nombre.
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = quality(parts) > 0;
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    // Sin q vale 1; un q mal formado se trata como 0 para no comprimir por error
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i];
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(parameter.substring(equals + 1).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecorent.gestionalquileres.config;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Caché de segundo nivel de Hibernate para equipos y clientes, por id y por
+ * clave natural (código interno, DNI).
+ *
+ * Las regiones se crean aquí con el mismo tamaño máximo y el mismo tiempo de
+ * inactividad; cualquier otra región pedida por Hibernate hace fallar el
+ * arranque en lugar de crearse sin límites.
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String EQUIPMENT_REGION = "equipment";
+    public static final String EQUIPMENT_NATURAL_ID_REGION = "equipment-natural-id";
+    public static final String CLIENT_REGION = "client";
+    public static final String CLIENT_NATURAL_ID_REGION = "client-natural-id";
+
+    static final List<String> REGIONS = List.of(
+            EQUIPMENT_REGION, EQUIPMENT_NATURAL_ID_REGION, CLIENT_REGION, CLIENT_NATURAL_ID_REGION);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${ecorent.cache.max-entries:10000}") long maxEntries,
+            @Value("${ecorent.cache.time-to-idle:PT30M}") Duration timeToIdle) {
+
+        CacheConfiguration<Object, Object> region = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToIdleExpiration(timeToIdle))
+                .build();
+
+        Map<String, CacheConfiguration<?, ?>> caches = new HashMap<>();
+        REGIONS.forEach(name -> caches.put(name, region));
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider)
+                Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+
+        // Un gestor propio por contexto: los proveedores JCache los comparten por URI
+        return provider.getCacheManager(
+                URI.create("ecorent:hibernate:" + UUID.randomUUID()),
+                new DefaultConfiguration(caches, provider.getDefaultClassLoader()));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecorent.gestionalquileres.config;
+
+import com.ecorent.gestionalquileres.service.AggregateVersions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra el GET condicional de los listados e informes. En los tests de
+ * controlador (@WebMvcTest) no hay AggregateVersions y no se registra.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ConditionalGetConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<AggregateVersions> aggregateVersions;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        aggregateVersions.ifAvailable(versions ->
+                registry.addInterceptor(new ConditionalGetInterceptor(versions)).addPathPatterns("/api/**"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecorent.gestionalquileres.config;
+
+import com.ecorent.gestionalquileres.service.AggregateVersions;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * GET condicional para los métodos con {@link VersionedBy}: la ETag sale de
+ * las versiones en memoria, así que un 304 no ejecuta el controlador, ni
+ * consulta la base de datos ni serializa nada.
+ *
+ * La versión se lee antes de ejecutar la consulta: si una escritura confirma
+ * entretanto, el cliente guarda datos nuevos con la etiqueta anterior y los
+ * vuelve a pedir en la siguiente petición, nunca al revés.
+ *
+ * Con {@link VersionedBy#gzip()} la variante comprimida añade {@code -gzip} a
+ * la ETag: las dos representaciones no son iguales byte a byte y una ETag
+ * fuerte no puede compartirse entre ellas.
+ */
+class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final AggregateVersions aggregateVersions;
+
+    ConditionalGetInterceptor(AggregateVersions aggregateVersions) {
+        this.aggregateVersions = aggregateVersions;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        VersionedBy versionedBy = method.getMethodAnnotation(VersionedBy.class);
+        if (versionedBy == null) {
+            return true;
+        }
+
+        // El navegador guarda la respuesta pero la revalida siempre con If-None-Match
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+
+        String etag = aggregateVersions.etag(versionedBy.value());
+        if (versionedBy.gzip() && AcceptEncoding.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            // "1-4-2" -> "1-4-2-gzip"
+            etag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+
+        // Solo responde 304 en GET y HEAD; añade la ETag en cualquier caso
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecorent.gestionalquileres.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas propias además de las de Actuator (HTTP, JVM, HikariCP, Hibernate):
+ * los servicios anotados con {@code @Timed} publican ecorent.service por
+ * clase, método y excepción, y GlobalExceptionHandler cuenta los rechazos de
+ * negocio por motivo en ecorent.business.rejections.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,10 @@
+package com.ecorent.gestionalquileres.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas @Scheduled: el paso diario de alquileres vencidos (OverdueRentals)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
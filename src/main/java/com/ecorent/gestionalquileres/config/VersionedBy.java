@@ -0,0 +1,23 @@
+package com.ecorent.gestionalquileres.config;
+
+import com.ecorent.gestionalquileres.service.Aggregate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Agregados de los que depende la respuesta de un GET: con ellos se calcula
+ * su ETag y se contesta 304 si el cliente ya tiene esa versión.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface VersionedBy {
+
+    Aggregate[] value();
+
+    // La respuesta sale comprimida con gzip si el cliente lo acepta: esa variante
+    // lleva su propia ETag para que una caché no la confunda con la de texto plano
+    boolean gzip() default false;
+}
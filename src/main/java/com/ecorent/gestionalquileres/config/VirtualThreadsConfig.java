@@ -0,0 +1,80 @@
+package com.ecorent.gestionalquileres.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Modo opcional con hilos virtuales ({@code spring.threads.virtual.enabled=true}):
+ * Spring Boot ya ejecuta en ellos las peticiones de Tomcat y los ejecutores de
+ * {@code @Async} y de peticiones asíncronas de MVC; aquí se añade el límite de
+ * conexiones concurrentes delante de HikariCP y sus métricas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    // Estático: los post-procesadores se crean antes que el resto de beans
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSource(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)) {
+                    int configured = environment.getProperty(
+                            "ecorent.datasource.max-concurrent-connections", Integer.class, 0);
+                    Duration timeout = environment.getProperty(
+                            "ecorent.datasource.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+                    return new ConnectionLimitingDataSource(dataSource, permits(dataSource, configured), timeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // HikariCP aplica este valor al arrancar el pool si no se ha configurado otro
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    // 0 = tantas como el máximo del pool
+    static int permits(DataSource dataSource, int configured) {
+        if (configured > 0) {
+            return configured;
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                return poolSize > 0 ? poolSize : HIKARI_DEFAULT_POOL_SIZE;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se puede leer el tamaño del pool", e);
+        }
+        throw new IllegalStateException(
+                "Indica ecorent.datasource.max-concurrent-connections: el DataSource no es HikariCP");
+    }
+
+    @Bean
+    @ConditionalOnClass(MeterBinder.class)
+    MeterBinder connectionLimitMetrics(DataSource dataSource) throws SQLException {
+        ConnectionLimitingDataSource limited = dataSource.unwrap(ConnectionLimitingDataSource.class);
+        return registry -> {
+            Gauge.builder("ecorent.datasource.permits.available", limited,
+                            ConnectionLimitingDataSource::availablePermits)
+                    .description("Conexiones que aún pueden prestarse sin esperar")
+                    .register(registry);
+            Gauge.builder("ecorent.datasource.permits.waiting", limited,
+                            ConnectionLimitingDataSource::waitingThreads)
+                    .description("Hilos esperando una conexión delante del pool")
+                    .register(registry);
+        };
+    }
+}
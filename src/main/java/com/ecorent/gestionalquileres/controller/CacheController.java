@@ -0,0 +1,26 @@
+package com.ecorent.gestionalquileres.controller;
+
+import com.ecorent.gestionalquileres.dto.cache.CacheStatsResponse;
+import com.ecorent.gestionalquileres.service.CacheStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Tag(name = "Cache", description = "Estadísticas de la caché de segundo nivel")
+public class CacheController {
+
+    private final CacheStatsService cacheStatsService;
+
+    @Operation(summary = "Aciertos y fallos por región")
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStatsResponse> stats() {
+        return ResponseEntity.ok(cacheStatsService.getStats());
+    }
+}
@@ -1,14 +1,21 @@
 package com.ecorent.gestionalquileres.controller;
 
+import com.ecorent.gestionalquileres.config.VersionedBy;
 import com.ecorent.gestionalquileres.dto.client.*;
+import com.ecorent.gestionalquileres.dto.rental.RentalHistoryPage;
 import com.ecorent.gestionalquileres.dto.rental.RentalResponse;
 import com.ecorent.gestionalquileres.entity.Client;
+import com.ecorent.gestionalquileres.service.Aggregate;
 import com.ecorent.gestionalquileres.service.ClientService;
 import com.ecorent.gestionalquileres.service.RentalService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -61,30 +68,59 @@ public class ClientController {
     }
 
     @Operation(summary = "Consultar historial de alquileres por DNI")
+    @VersionedBy({Aggregate.RENTALS, Aggregate.CLIENTS, Aggregate.EQUIPMENTS})
     @GetMapping("/{dni}/rentals")
     public ResponseEntity<List<RentalResponse>> getHistory(
-            @PathVariable String dni) {
-
-        List<RentalResponse> rentals = rentalService.getClientHistory(dni)
-                .stream()
-                .map(r -> new RentalResponse(
-                        r.getId(),
-                        r.getClient().getName(),
-                        r.getClient().getDni(),
-                        r.getEquipment().getId(),
-                        r.getEquipment().getName(),
-                        r.getStartDate(),
-                        r.getEndDate(),
-                        r.getTotalAmount(),
-                        r.isReturned()
-                ))
-                .toList();
-
-        return ResponseEntity.ok(rentals);
+            @PathVariable String dni,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+
+        RentalHistoryPage page = rentalService.getClientHistory(dni, after, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor().toString());
+        }
+        return response.body(page.rentals());
     }
+
+    // Obsoleto: solo los primeros clientes; el listado completo se recorre con /search.
+    // X-Total-Count dice cuántos hay y, si no caben, el Link "next" apunta a la página
+    // de /search (tamaño máximo 100) que sigue a los 1000 devueltos
+    @Operation(summary = "Listar clientes (obsoleto: como mucho 1000, usar /api/clients/search)", deprecated = true)
+    @VersionedBy(Aggregate.CLIENTS)
     @GetMapping
     public ResponseEntity<List<Client>> findAll() {
-        return ResponseEntity.ok(clientService.findAll());
+
+        Page<Client> clients = clientService.findAll();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("Deprecation", "true")
+                .header("X-Total-Count", String.valueOf(clients.getTotalElements()))
+                .header(HttpHeaders.LINK, "</api/clients/search>; rel=\"successor-version\"");
+        if (clients.hasNext()) {
+            response.header(HttpHeaders.LINK, "</api/clients/search?page=10&size=100&sort=id>; rel=\"next\"");
+        }
+        return response.body(clients.getContent());
+    }
+
+    @Operation(summary = "Listado paginado de clientes con filtro por nombre")
+    @VersionedBy(Aggregate.CLIENTS)
+    @GetMapping("/search")
+    public ResponseEntity<Page<ClientResponse>> search(
+            @RequestParam(required = false) String name,
+            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+
+        Page<ClientResponse> response = clientService.search(name, pageable)
+                .map(c -> new ClientResponse(
+                        c.getId(),
+                        c.getName(),
+                        c.getDni(),
+                        c.getPhone(),
+                        c.getEmail()
+                ));
+
+        return ResponseEntity.ok(response);
     }
 
 }
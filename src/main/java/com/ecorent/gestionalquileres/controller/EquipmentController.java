@@ -1,15 +1,35 @@
 package com.ecorent.gestionalquileres.controller;
 
+import com.ecorent.gestionalquileres.config.AcceptEncoding;
+import com.ecorent.gestionalquileres.config.VersionedBy;
 import com.ecorent.gestionalquileres.dto.equipment.*;
 import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.service.Aggregate;
+import com.ecorent.gestionalquileres.service.EquipmentCatalog;
+import com.ecorent.gestionalquileres.service.EquipmentImportService;
 import com.ecorent.gestionalquileres.service.EquipmentService;
+import com.ecorent.gestionalquileres.service.EquipmentStatusFeed;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,6 +39,9 @@ import java.util.List;
 public class EquipmentController {
 
     private final EquipmentService equipmentService;
+    private final EquipmentCatalog equipmentCatalog;
+    private final EquipmentImportService equipmentImportService;
+    private final EquipmentStatusFeed equipmentStatusFeed;
 
     @Operation(summary = "Registrar nuevo equipo")
     @PostMapping
@@ -36,11 +59,72 @@ public class EquipmentController {
         return ResponseEntity.ok(toResponse(saved));
     }
 
-    @Operation(summary = "Listar todos los equipos")
-    @GetMapping
-    public ResponseEntity<List<EquipmentResponse>> findAll() {
+    // RF-01 masivo → el cuerpo se lee en streaming, sin cargar el fichero entero
+    @Operation(summary = "Importar equipos desde CSV (cabecera name,category,internalCode,pricePerDay) o NDJSON")
+    @PostMapping("/import")
+    public ResponseEntity<EquipmentImportResponse> importEquipments(
+            @RequestParam(defaultValue = "csv") String format,
+            InputStream body) throws IOException {
 
-        List<EquipmentResponse> response = equipmentService.findAll()
+        return ResponseEntity.ok(equipmentImportService.importEquipments(ImportFormat.from(format), body));
+    }
+
+    // Bytes ya serializados del catálogo; gzip si el cliente lo acepta.
+    // Obsoleto: solo los primeros equipos; el listado completo se recorre con /search.
+    // X-Total-Count dice cuántos hay y, si no caben, el Link "next" apunta a la página
+    // de /search (tamaño máximo 100) que sigue a los 1000 devueltos
+    @Operation(summary = "Listar equipos (obsoleto: como mucho 1000, usar /api/equipments/search)", deprecated = true)
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = EquipmentResponse.class))))
+    @VersionedBy(value = Aggregate.EQUIPMENTS, gzip = true)
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> findAll(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        EquipmentCatalog.Snapshot catalog = equipmentCatalog.current();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header("Deprecation", "true")
+                .header("X-Total-Count", String.valueOf(catalog.total()))
+                .header(HttpHeaders.LINK, "</api/equipments/search>; rel=\"successor-version\"");
+        if (catalog.truncated()) {
+            response.header(HttpHeaders.LINK, "</api/equipments/search?page=10&size=100&sort=id>; rel=\"next\"");
+        }
+
+        if (AcceptEncoding.acceptsGzip(acceptEncoding)) {
+            return response
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(catalog.gzip());
+        }
+        return response.body(catalog.json());
+    }
+
+    @Operation(summary = "Listado paginado de equipos con filtros por estado, categoría y nombre")
+    @VersionedBy(Aggregate.EQUIPMENTS)
+    @GetMapping("/search")
+    public ResponseEntity<Page<EquipmentResponse>> search(
+            @RequestParam(required = false) EquipmentStatus status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String name,
+            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+
+        Page<EquipmentResponse> response = equipmentService
+                .search(status, category, name, pageable)
+                .map(this::toResponse);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Buscar equipos disponibles por categoría entre dos fechas")
+    @VersionedBy({Aggregate.EQUIPMENTS, Aggregate.RENTALS})
+    @GetMapping("/available")
+    public ResponseEntity<List<EquipmentResponse>> findAvailable(
+            @RequestParam(required = false) String category,
+            @RequestParam LocalDate start,
+            @RequestParam LocalDate end) {
+
+        List<EquipmentResponse> response = equipmentService.findAvailable(category, start, end)
                 .stream()
                 .map(this::toResponse)
                 .toList();
@@ -48,6 +132,16 @@ public class EquipmentController {
         return ResponseEntity.ok(response);
     }
     
+    // EventSource manda Last-Event-ID al reconectar; el parámetro sirve para reanudar una conexión nueva
+    @Operation(summary = "Eventos SSE con los cambios de estado de los equipos")
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(required = false) Long lastEventId) {
+
+        return equipmentStatusFeed.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Equipment> update(@PathVariable Long id,
                                             @RequestBody Equipment equipment) {
@@ -0,0 +1,60 @@
+package com.ecorent.gestionalquileres.controller;
+
+import com.ecorent.gestionalquileres.config.VersionedBy;
+import com.ecorent.gestionalquileres.dto.export.ExportFormat;
+import com.ecorent.gestionalquileres.service.Aggregate;
+import com.ecorent.gestionalquileres.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@Tag(name = "Exports", description = "Volcados completos para auditoría (NDJSON o CSV)")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @Operation(summary = "Exportar todos los alquileres")
+    @VersionedBy({Aggregate.RENTALS, Aggregate.CLIENTS, Aggregate.EQUIPMENTS})
+    @GetMapping("/rentals")
+    public ResponseEntity<StreamingResponseBody> rentals(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        ExportFormat exportFormat = ExportFormat.from(format);
+
+        return attachment("rentals", exportFormat,
+                out -> exportService.exportRentals(exportFormat, out));
+    }
+
+    @Operation(summary = "Exportar todos los pagos")
+    @VersionedBy(Aggregate.PAYMENTS)
+    @GetMapping("/payments")
+    public ResponseEntity<StreamingResponseBody> payments(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        ExportFormat exportFormat = ExportFormat.from(format);
+
+        return attachment("payments", exportFormat,
+                out -> exportService.exportPayments(exportFormat, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> attachment(
+            String name, ExportFormat format, StreamingResponseBody body) {
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.extension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -1,7 +1,6 @@
 package com.ecorent.gestionalquileres.controller;
 
 import com.ecorent.gestionalquileres.dto.payment.*;
-import com.ecorent.gestionalquileres.entity.Payment;
 import com.ecorent.gestionalquileres.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,17 +23,6 @@ public class PaymentController {
             @PathVariable Long rentalId,
             @Valid @RequestBody PaymentRequest request) {
 
-        Payment payment = paymentService.registerPayment(rentalId, request.amount());
-
-        String status = paymentService.getPaymentStatus(rentalId);
-
-        return ResponseEntity.ok(
-                new PaymentResponse(
-                        payment.getId(),
-                        payment.getAmount(),
-                        payment.getPaymentDate(),
-                        status
-                )
-        );
+        return ResponseEntity.ok(paymentService.registerPayment(rentalId, request.amount()));
     }
 }
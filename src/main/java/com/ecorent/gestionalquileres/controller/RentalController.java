@@ -1,7 +1,10 @@
 package com.ecorent.gestionalquileres.controller;
 
+import com.ecorent.gestionalquileres.config.VersionedBy;
 import com.ecorent.gestionalquileres.dto.rental.*;
 import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.service.Aggregate;
+import com.ecorent.gestionalquileres.service.OverdueRentals;
 import com.ecorent.gestionalquileres.service.RentalService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 public class RentalController {
 
     private final RentalService rentalService;
+    private final OverdueRentals overdueRentals;
 
     @Operation(summary = "Crear nuevo alquiler")
     @PostMapping
@@ -33,19 +37,24 @@ public class RentalController {
                 request.endDate()
         );
 
-        return ResponseEntity.ok(
-                new RentalResponse(
-                        rental.getId(),
-                        rental.getClient().getName(),
-                        rental.getClient().getDni(),
-                        rental.getEquipment().getId(),
-                        rental.getEquipment().getName(),
-                        rental.getStartDate(),
-                        rental.getEndDate(),
-                        rental.getTotalAmount(),
-                        rental.isReturned()
-                )
-        );
+        return ResponseEntity.ok(toResponse(rental));
+    }
+
+    @Operation(summary = "Crear alquileres de varios equipos (como mucho 50) en una sola operación")
+    @PostMapping("/batch")
+    public ResponseEntity<List<RentalResponse>> createBatch(
+            @Valid @RequestBody RentalBatchRequest request) {
+
+        List<RentalResponse> response = rentalService.createRentals(
+                        request.clientDni(),
+                        request.equipmentIds(),
+                        request.startDate(),
+                        request.endDate())
+                .stream()
+                .map(this::toResponse)
+                .toList();
+
+        return ResponseEntity.ok(response);
     }
 
     @Operation(summary = "Registrar devolución del equipo")
@@ -63,9 +72,43 @@ public class RentalController {
                 )
         );
     }
+    // RN-04 → sin ETag: la lista cambia también al pasar el día
+    @Operation(summary = "Alquileres vencidos sin devolver, del más antiguo al más reciente")
+    @GetMapping("/overdue")
+    public ResponseEntity<List<OverdueRentalResponse>> findOverdue() {
+        return ResponseEntity.ok(overdueRentals.overdue());
+    }
+
+    @Operation(summary = "Historial de alquileres por DNI, paginado por cursor")
+    @VersionedBy({Aggregate.RENTALS, Aggregate.CLIENTS, Aggregate.EQUIPMENTS})
     @GetMapping("/{dni}/rentals")
-    public ResponseEntity<List<Rental>> getClientHistory(@PathVariable String dni) {
-        return ResponseEntity.ok(rentalService.getClientHistory(dni));
+    public ResponseEntity<List<RentalResponse>> getClientHistory(
+            @PathVariable String dni,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+
+        RentalHistoryPage page = rentalService.getClientHistory(dni, after, limit);
+
+        // El cuerpo sigue siendo la lista; el cursor de la siguiente página va en cabecera
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor().toString());
+        }
+        return response.body(page.rentals());
+    }
+
+    private RentalResponse toResponse(Rental rental) {
+        return new RentalResponse(
+                rental.getId(),
+                rental.getClient().getName(),
+                rental.getClient().getDni(),
+                rental.getEquipment().getId(),
+                rental.getEquipment().getName(),
+                rental.getStartDate(),
+                rental.getEndDate(),
+                rental.getTotalAmount(),
+                rental.isReturned()
+        );
     }
 
 }
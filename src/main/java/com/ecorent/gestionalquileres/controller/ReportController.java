@@ -1,15 +1,21 @@
 package com.ecorent.gestionalquileres.controller;
 
+import com.ecorent.gestionalquileres.config.VersionedBy;
 import com.ecorent.gestionalquileres.dto.report.*;
+import com.ecorent.gestionalquileres.service.Aggregate;
+import com.ecorent.gestionalquileres.service.ReportJobService;
 import com.ecorent.gestionalquileres.service.ReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -18,8 +24,10 @@ import java.time.LocalDate;
 public class ReportController {
 
     private final ReportService reportService;
+    private final ReportJobService reportJobService;
 
     @Operation(summary = "Ingresos por periodo")
+    @VersionedBy(Aggregate.RENTALS)
     @GetMapping("/income")
     public ResponseEntity<IncomeReportResponse> income(
             @RequestParam LocalDate start,
@@ -29,20 +37,42 @@ public class ReportController {
                 new IncomeReportResponse(
                         start,
                         end,
-                        BigDecimal.valueOf(reportService.getIncomeBetween(start, end)) 
+                        reportService.getIncomeBetween(start, end)
                 )
         );
     }
 
     @Operation(summary = "Equipos más alquilados")
+    @VersionedBy({Aggregate.RENTALS, Aggregate.EQUIPMENTS})
     @GetMapping("/top-equipments")
-    public ResponseEntity<?> topEquipments() {
-        return ResponseEntity.ok(reportService.getTopRentedEquipments());
+    public ResponseEntity<List<TopEquipmentResponse>> topEquipments(
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(reportService.getTopRentedEquipments(limit));
     }
 
     @Operation(summary = "Clientes recurrentes")
+    @VersionedBy({Aggregate.RENTALS, Aggregate.CLIENTS})
     @GetMapping("/top-clients")
-    public ResponseEntity<?> topClients() {
-        return ResponseEntity.ok(reportService.getTopClients());
+    public ResponseEntity<List<TopClientResponse>> topClients(
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(reportService.getTopClients(limit));
+    }
+
+    @Operation(summary = "Encolar un informe para calcularlo en segundo plano")
+    @PostMapping("/jobs")
+    public ResponseEntity<ReportJobResponse> submitJob(
+            @Valid @RequestBody ReportJobRequest request) {
+
+        ReportJobResponse job = reportJobService.submit(request);
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reports/jobs/" + job.id()))
+                .body(job);
+    }
+
+    @Operation(summary = "Estado y resultado de un informe en segundo plano")
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ReportJobResponse> getJob(@PathVariable UUID id) {
+        return ResponseEntity.ok(reportJobService.getJob(id));
     }
 }
@@ -0,0 +1,32 @@
+package com.ecorent.gestionalquileres.controller;
+
+import com.ecorent.gestionalquileres.dto.payment.StatementFormat;
+import com.ecorent.gestionalquileres.dto.payment.StatementReconciliationResponse;
+import com.ecorent.gestionalquileres.service.StatementReconciliationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/payments/statements")
+@RequiredArgsConstructor
+@Tag(name = "Payments", description = "Gestión de pagos")
+public class StatementController {
+
+    private final StatementReconciliationService statementReconciliationService;
+
+    // RF-12 en bloque → el extracto del banco como cuerpo; la referencia de cada línea lleva el id del alquiler
+    @Operation(summary = "Conciliar un extracto bancario (CSV reference,amount[,date] o ancho fijo) con los alquileres")
+    @PostMapping
+    public ResponseEntity<StatementReconciliationResponse> reconcile(
+            @RequestParam(defaultValue = "csv") String format,
+            InputStream body) throws IOException {
+
+        return ResponseEntity.ok(statementReconciliationService.reconcile(StatementFormat.from(format), body));
+    }
+}
@@ -0,0 +1,9 @@
+package com.ecorent.gestionalquileres.dto.cache;
+
+public record CacheRegionStats(
+
+        String region,
+        long hits,
+        long misses,
+        long puts
+) {}
@@ -0,0 +1,9 @@
+package com.ecorent.gestionalquileres.dto.cache;
+
+import java.util.List;
+
+public record CacheStatsResponse(
+
+        boolean statisticsEnabled,
+        List<CacheRegionStats> regions
+) {}
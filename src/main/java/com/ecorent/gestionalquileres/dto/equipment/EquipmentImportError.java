@@ -0,0 +1,8 @@
+package com.ecorent.gestionalquileres.dto.equipment;
+
+// row es la fila de datos (1 = primera después de la cabecera en CSV, primera línea en NDJSON)
+public record EquipmentImportError(
+        long row,
+        String internalCode,
+        String message
+) {}
@@ -0,0 +1,10 @@
+package com.ecorent.gestionalquileres.dto.equipment;
+
+import java.util.List;
+
+// errors se corta en ecorent.equipments.import.max-errors; rejected cuenta todas las filas rechazadas
+public record EquipmentImportResponse(
+        long imported,
+        long rejected,
+        List<EquipmentImportError> errors
+) {}
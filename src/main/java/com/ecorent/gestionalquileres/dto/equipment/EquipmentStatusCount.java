@@ -0,0 +1,8 @@
+package com.ecorent.gestionalquileres.dto.equipment;
+
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+
+public record EquipmentStatusCount(
+        EquipmentStatus status,
+        long count
+) {}
@@ -0,0 +1,10 @@
+package com.ecorent.gestionalquileres.dto.equipment;
+
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+
+// previous es null si el equipo se acaba de crear y status es null si se ha eliminado
+public record EquipmentStatusEvent(
+        Long equipmentId,
+        EquipmentStatus previous,
+        EquipmentStatus status
+) {}
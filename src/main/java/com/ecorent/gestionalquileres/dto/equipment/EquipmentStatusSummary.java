@@ -0,0 +1,9 @@
+package com.ecorent.gestionalquileres.dto.equipment;
+
+// Totales del panel, coherentes con el id del evento sync que los lleva
+public record EquipmentStatusSummary(
+        long total,
+        long available,
+        long rented,
+        long maintenance
+) {}
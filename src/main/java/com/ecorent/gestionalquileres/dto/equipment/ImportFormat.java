@@ -0,0 +1,21 @@
+package com.ecorent.gestionalquileres.dto.equipment;
+
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+
+import java.util.Locale;
+
+// Formatos de POST /api/equipments/import: CSV con cabecera o un objeto JSON por línea
+public enum ImportFormat {
+
+    CSV,
+    NDJSON;
+
+    public static ImportFormat from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(RejectionReason.UNSUPPORTED_FORMAT, "Formato de importación no soportado: " + value);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecorent.gestionalquileres.dto.export;
+
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static ExportFormat from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(RejectionReason.UNSUPPORTED_FORMAT, "Formato de exportación no soportado: " + value);
+        }
+    }
+}
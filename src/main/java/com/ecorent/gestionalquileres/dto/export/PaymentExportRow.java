@@ -0,0 +1,13 @@
+package com.ecorent.gestionalquileres.dto.export;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record PaymentExportRow(
+
+        Long id,
+        Long rentalId,
+        String clientDni,
+        BigDecimal amount,
+        LocalDate paymentDate
+) {}
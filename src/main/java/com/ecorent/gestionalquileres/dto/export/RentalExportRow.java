@@ -0,0 +1,18 @@
+package com.ecorent.gestionalquileres.dto.export;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record RentalExportRow(
+
+        Long id,
+        String clientDni,
+        String clientName,
+        Long equipmentId,
+        String equipmentCode,
+        String equipmentName,
+        LocalDate startDate,
+        LocalDate endDate,
+        BigDecimal totalAmount,
+        boolean returned
+) {}
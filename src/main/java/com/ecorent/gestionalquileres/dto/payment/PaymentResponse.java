@@ -8,5 +8,7 @@ public record PaymentResponse(
         Long id,
         BigDecimal amount,
         LocalDate paymentDate,
-        String paymentStatus
+        String paymentStatus,
+        BigDecimal paidAmount,
+        BigDecimal pendingAmount
 ) {}
@@ -0,0 +1,20 @@
+package com.ecorent.gestionalquileres.dto.payment;
+
+import java.math.BigDecimal;
+
+// Saldo de un alquiler para conciliar pagos sin cargar la entidad
+public record RentalBalance(
+
+        Long rentalId,
+        BigDecimal totalAmount,
+        BigDecimal paidAmount
+) {
+
+    public BigDecimal pendingAmount() {
+        return totalAmount.subtract(paidAmount);
+    }
+
+    public RentalBalance pay(BigDecimal amount) {
+        return new RentalBalance(rentalId, totalAmount, paidAmount.add(amount));
+    }
+}
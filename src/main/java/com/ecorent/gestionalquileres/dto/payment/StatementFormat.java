@@ -0,0 +1,21 @@
+package com.ecorent.gestionalquileres.dto.payment;
+
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+
+import java.util.Locale;
+
+// Formatos de POST /api/payments/statements: CSV con cabecera o ancho fijo (fecha, referencia, céntimos)
+public enum StatementFormat {
+
+    CSV,
+    FIXED;
+
+    public static StatementFormat from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(RejectionReason.UNSUPPORTED_FORMAT, "Formato de extracto no soportado: " + value);
+        }
+    }
+}
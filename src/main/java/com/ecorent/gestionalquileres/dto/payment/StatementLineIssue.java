@@ -0,0 +1,12 @@
+package com.ecorent.gestionalquileres.dto.payment;
+
+import java.math.BigDecimal;
+
+// Línea del extracto que no se aplicó; reference y amount son null si no se pudieron leer
+public record StatementLineIssue(
+
+        long row,
+        String reference,
+        BigDecimal amount,
+        String message
+) {}
@@ -0,0 +1,13 @@
+package com.ecorent.gestionalquileres.dto.payment;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record StatementReconciliationResponse(
+
+        long applied,
+        BigDecimal appliedAmount,
+        List<StatementLineIssue> unmatched,
+        List<StatementLineIssue> overpayments,
+        List<StatementLineIssue> invalid
+) {}
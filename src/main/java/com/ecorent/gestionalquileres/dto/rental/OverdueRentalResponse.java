@@ -0,0 +1,14 @@
+package com.ecorent.gestionalquileres.dto.rental;
+
+import java.time.LocalDate;
+
+public record OverdueRentalResponse(
+
+        Long rentalId,
+        Long equipmentId,
+        String equipmentName,
+        String clientDni,
+        String clientName,
+        LocalDate endDate,
+        long daysOverdue
+) {}
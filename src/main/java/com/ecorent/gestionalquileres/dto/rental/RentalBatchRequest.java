@@ -0,0 +1,29 @@
+package com.ecorent.gestionalquileres.dto.rental;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record RentalBatchRequest(
+
+        @NotBlank
+        String clientDni,
+
+        @NotEmpty
+        @Size(max = RentalBatchRequest.MAX_EQUIPMENTS)
+        List<@NotNull Long> equipmentIds,
+
+        @NotNull
+        LocalDate startDate,
+
+        @NotNull
+        LocalDate endDate
+) {
+
+    // Todo el lote va en una transacción que bloquea sus equipos: se acota su tamaño
+    public static final int MAX_EQUIPMENTS = 50;
+}
@@ -0,0 +1,14 @@
+package com.ecorent.gestionalquileres.dto.rental;
+
+import java.time.LocalDate;
+
+// Alquiler abierto con lo necesario para listarlo como vencido sin volver a consultarlo
+public record RentalDue(
+
+        Long rentalId,
+        Long equipmentId,
+        String equipmentName,
+        String clientDni,
+        String clientName,
+        LocalDate endDate
+) {}
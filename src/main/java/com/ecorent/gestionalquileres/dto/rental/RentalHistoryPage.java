@@ -0,0 +1,9 @@
+package com.ecorent.gestionalquileres.dto.rental;
+
+import java.util.List;
+
+public record RentalHistoryPage(
+
+        List<RentalResponse> rentals,
+        Long nextCursor
+) {}
@@ -0,0 +1,11 @@
+package com.ecorent.gestionalquileres.dto.rental;
+
+import java.time.LocalDate;
+
+public record RentalPeriod(
+
+        Long rentalId,
+        Long equipmentId,
+        LocalDate startDate,
+        LocalDate endDate
+) {}
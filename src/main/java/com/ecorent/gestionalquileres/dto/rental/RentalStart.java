@@ -0,0 +1,11 @@
+package com.ecorent.gestionalquileres.dto.rental;
+
+import java.time.LocalDate;
+
+// Alquiler que aún no ha empezado: el día en que su equipo pasa a alquilado
+public record RentalStart(
+
+        Long rentalId,
+        Long equipmentId,
+        LocalDate startDate
+) {}
@@ -0,0 +1,18 @@
+package com.ecorent.gestionalquileres.dto.report;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+// start y end solo para INCOME; limit solo para los rankings
+public record ReportJobRequest(
+
+        @NotNull
+        ReportType type,
+
+        LocalDate start,
+
+        LocalDate end,
+
+        Integer limit
+) {}
@@ -0,0 +1,16 @@
+package com.ecorent.gestionalquileres.dto.report;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// result: IncomeReportResponse o la lista del ranking cuando status = DONE
+public record ReportJobResponse(
+
+        UUID id,
+        ReportType type,
+        ReportJobStatus status,
+        Instant submittedAt,
+        Instant finishedAt,
+        Object result,
+        String error
+) {}
@@ -0,0 +1,9 @@
+package com.ecorent.gestionalquileres.dto.report;
+
+public enum ReportJobStatus {
+
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.ecorent.gestionalquileres.dto.report;
+
+public enum ReportType {
+
+    INCOME,
+    TOP_EQUIPMENTS,
+    TOP_CLIENTS
+}
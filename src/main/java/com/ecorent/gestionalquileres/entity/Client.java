@@ -1,9 +1,16 @@
 package com.ecorent.gestionalquileres.entity;
 
+import com.ecorent.gestionalquileres.config.CacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.CLIENT_REGION)
+@NaturalIdCache(region = CacheConfig.CLIENT_NATURAL_ID_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,6 +23,7 @@ public class Client {
     private Long id;
 
     private String name;
+    @NaturalId
     @Column(nullable = false, unique = true)
     private String dni;
     private String phone;
@@ -0,0 +1,21 @@
+package com.ecorent.gestionalquileres.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// RF-14 → contador de alquileres por cliente, mantenido al reservar
+@Entity
+@Table(indexes = @Index(name = "idx_client_rental_count_top", columnList = "rentalCount DESC, clientId"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientRentalCount {
+
+    @Id
+    private Long clientId;
+
+    @Column(nullable = false)
+    private long rentalCount;
+}
@@ -0,0 +1,23 @@
+package com.ecorent.gestionalquileres.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// RF-14 → ingresos agregados por día de inicio del alquiler
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyIncome {
+
+    @Id
+    private LocalDate incomeDate;
+
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal amount;
+}
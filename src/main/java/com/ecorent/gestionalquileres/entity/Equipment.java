@@ -1,11 +1,18 @@
 package com.ecorent.gestionalquileres.entity;
 
+import com.ecorent.gestionalquileres.config.CacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.math.BigDecimal;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.EQUIPMENT_REGION)
+@NaturalIdCache(region = CacheConfig.EQUIPMENT_NATURAL_ID_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,6 +29,7 @@ public class Equipment {
 
     private String category;
 
+    @NaturalId
     @Column(nullable = false, unique = true)
     private String internalCode;
 
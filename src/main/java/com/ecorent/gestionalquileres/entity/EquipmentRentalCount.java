@@ -0,0 +1,21 @@
+package com.ecorent.gestionalquileres.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// RF-14 → contador de alquileres por equipo, mantenido al reservar
+@Entity
+@Table(indexes = @Index(name = "idx_equipment_rental_count_top", columnList = "rentalCount DESC, equipmentId"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EquipmentRentalCount {
+
+    @Id
+    private Long equipmentId;
+
+    @Column(nullable = false)
+    private long rentalCount;
+}
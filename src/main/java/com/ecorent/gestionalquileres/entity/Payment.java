@@ -5,6 +5,7 @@ import lombok.*;
 import java.time.*;
 import java.math.*;
 @Entity
+@Table(indexes = @Index(name = "idx_payment_rental", columnList = "rental_id"))
 @Getter
 @Setter
 @NoArgsConstructor
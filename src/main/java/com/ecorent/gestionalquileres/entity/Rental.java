@@ -2,9 +2,17 @@ package com.ecorent.gestionalquileres.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.*;
 import java.math.*;
 @Entity
+// Índices creados por las migraciones de Flyway (V2__rental_query_indexes.sql)
+@Table(indexes = {
+        @Index(name = "idx_rental_equipment_open_period", columnList = "equipment_id, returned, startDate, endDate"),
+        @Index(name = "idx_rental_client", columnList = "client_id, id")
+})
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,6 +29,12 @@ public class Rental {
 
     private BigDecimal totalAmount;
 
+    // RN-05 → suma de pagos registrados, mantenida con cada pago
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
     private boolean returned = false;
 
     @ManyToOne(optional = false)
@@ -4,7 +4,18 @@ public class BusinessException extends RuntimeException {
 
 	private static final long serialVersionUID = 1L;
 
+	private final RejectionReason reason;
+
 	public BusinessException(String message) {
+        this(RejectionReason.OTHER, message);
+    }
+
+	public BusinessException(RejectionReason reason, String message) {
         super(message);
+        this.reason = reason;
+    }
+
+	public RejectionReason getReason() {
+        return reason;
     }
 }
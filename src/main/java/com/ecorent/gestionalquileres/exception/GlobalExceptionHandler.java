@@ -1,7 +1,11 @@
 package com.ecorent.gestionalquileres.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -12,14 +16,23 @@ import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
-    // ✅ Errores de negocio (RF / RN)
+    static final String REJECTIONS_METRIC = "ecorent.business.rejections";
+
+    // Opcional: los tests @WebMvcTest no levantan Micrometer
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    // ✅ Errores de negocio (RF / RN), contados por motivo
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ErrorResponse> handleBusinessException(
             BusinessException ex,
             HttpServletRequest request) {
 
+        meterRegistry.ifAvailable(registry ->
+                registry.counter(REJECTIONS_METRIC, "reason", ex.getReason().tag()).increment());
+
         ErrorResponse error = new ErrorResponse(
                 LocalDateTime.now(),
                 HttpStatus.BAD_REQUEST.value(),
@@ -71,6 +84,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    // ✅ Ordenación por una propiedad inexistente (?sort=...)
+    @ExceptionHandler(PropertyReferenceException.class)
+    public ResponseEntity<ErrorResponse> handlePropertyReference(
+            PropertyReferenceException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid Parameter",
+                "Propiedad de ordenación no válida: " + ex.getPropertyName(),
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.badRequest().body(error);
+    }
+
     // ✅ Recurso no encontrado (NotFoundException)
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<ErrorResponse> handleNotFound(
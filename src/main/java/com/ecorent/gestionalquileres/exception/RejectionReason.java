@@ -0,0 +1,26 @@
+package com.ecorent.gestionalquileres.exception;
+
+// Motivo de un rechazo de negocio: etiqueta "reason" de ecorent.business.rejections
+public enum RejectionReason {
+
+    INVALID_DATES,
+    OVERLAP,
+    MAINTENANCE,
+    EQUIPMENT_RENTED,
+    ALREADY_RETURNED,
+    OVERPAYMENT,
+    DUPLICATE_DNI,
+    DUPLICATE_INTERNAL_CODE,
+    DUPLICATE_EQUIPMENT,
+    HAS_RENTAL_HISTORY,
+    CONCURRENT_OPERATION,
+    INTERRUPTED,
+    UNSUPPORTED_FORMAT,
+    INVALID_IMPORT_FILE,
+    TOO_MANY_REPORT_JOBS,
+    OTHER;
+
+    public String tag() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecorent.gestionalquileres.repository;
+
+import com.ecorent.gestionalquileres.entity.Client;
+
+import java.util.Optional;
+
+// RF-05 / RF-07 → búsquedas por DNI resueltas con la caché de clave natural
+public interface ClientNaturalIdLookup {
+
+    Optional<Client> findByDni(String dni);
+
+    boolean existsByDni(String dni);
+}
@@ -0,0 +1,30 @@
+package com.ecorent.gestionalquileres.repository;
+
+import com.ecorent.gestionalquileres.entity.Client;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+class ClientNaturalIdLookupImpl implements ClientNaturalIdLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // DNI → id desde la caché de clave natural, y el cliente desde la de entidades
+    @Override
+    public Optional<Client> findByDni(String dni) {
+        if (dni == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Client.class)
+                .loadOptional(dni);
+    }
+
+    @Override
+    public boolean existsByDni(String dni) {
+        return findByDni(dni).isPresent();
+    }
+}
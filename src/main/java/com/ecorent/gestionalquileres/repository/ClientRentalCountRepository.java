@@ -0,0 +1,45 @@
+package com.ecorent.gestionalquileres.repository;
+
+import com.ecorent.gestionalquileres.dto.report.TopClientResponse;
+import com.ecorent.gestionalquileres.entity.ClientRentalCount;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ClientRentalCountRepository extends JpaRepository<ClientRentalCount, Long> {
+
+    // RF-14 → suma las reservas nuevas del cliente; 0 si aún no tiene contador
+    @Modifying
+    @Query("""
+        UPDATE ClientRentalCount c
+        SET c.rentalCount = c.rentalCount + :rentals
+        WHERE c.clientId = :clientId
+    """)
+    int increment(Long clientId, long rentals);
+
+    // RF-14 → top N leído del índice (rentalCount DESC), sin recorrer Rental
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.report.TopClientResponse(
+            cl.id, cl.name, cl.dni, c.rentalCount)
+        FROM ClientRentalCount c
+        JOIN Client cl ON cl.id = c.clientId
+        ORDER BY c.rentalCount DESC, c.clientId
+    """)
+    List<TopClientResponse> findTop(Limit limit);
+
+    // Alta de los contadores que falten (datos anteriores a los contadores)
+    @Modifying
+    @Query("""
+        INSERT INTO ClientRentalCount (clientId, rentalCount)
+        SELECT cl.id, COUNT(r.id)
+        FROM Client cl
+        LEFT JOIN Rental r ON r.client = cl
+        WHERE NOT EXISTS (
+            SELECT 1 FROM ClientRentalCount c WHERE c.clientId = cl.id)
+        GROUP BY cl.id
+    """)
+    int backfillMissing();
+}
@@ -1,25 +1,18 @@
 package com.ecorent.gestionalquileres.repository;
 
 import com.ecorent.gestionalquileres.entity.Client;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
-import java.util.List;
-import java.util.Optional;
+public interface ClientRepository extends JpaRepository<Client, Long>, ClientNaturalIdLookup {
 
-public interface ClientRepository extends JpaRepository<Client, Long> {
-
-    Optional<Client> findByDni(String dni);
-
-    // RF-14 → clientes con más alquileres
+    // RF-05 → listado paginado con filtro opcional por prefijo de nombre
     @Query("""
         SELECT c FROM Client c
-        LEFT JOIN Rental r ON r.client = c
-        GROUP BY c
-        ORDER BY COUNT(r.id) DESC
+        WHERE (:namePrefix IS NULL OR LOWER(c.name) LIKE :namePrefix ESCAPE '\\')
     """)
-    List<Client> findTopClients();
-    
-    boolean existsByDni(String dni);
+    Page<Client> search(String namePrefix, Pageable pageable);
 
 }
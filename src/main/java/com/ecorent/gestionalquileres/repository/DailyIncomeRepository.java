@@ -0,0 +1,32 @@
+package com.ecorent.gestionalquileres.repository;
+
+import com.ecorent.gestionalquileres.entity.DailyIncome;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface DailyIncomeRepository extends JpaRepository<DailyIncome, LocalDate> {
+
+    // RF-14 → suma al día ya existente; 0 si aún no hay fila para ese día
+    @Modifying
+    @Query("""
+        UPDATE DailyIncome d
+        SET d.amount = d.amount + :amount
+        WHERE d.incomeDate = :incomeDate
+    """)
+    int add(LocalDate incomeDate, BigDecimal amount);
+
+    // Reconstrucción completa desde los alquileres (tras vaciar la tabla)
+    @Modifying
+    @Query("""
+        INSERT INTO DailyIncome (incomeDate, amount)
+        SELECT r.startDate, SUM(r.totalAmount)
+        FROM Rental r
+        WHERE r.totalAmount IS NOT NULL
+        GROUP BY r.startDate
+    """)
+    int rebuildFromRentals();
+}
@@ -0,0 +1,15 @@
+package com.ecorent.gestionalquileres.repository;
+
+import com.ecorent.gestionalquileres.entity.Equipment;
+
+import java.util.List;
+import java.util.Optional;
+
+// RF-01 / RF-07 → búsquedas de equipos servidas desde la caché de segundo nivel
+public interface EquipmentNaturalIdLookup {
+
+    Optional<Equipment> findByInternalCode(String internalCode);
+
+    // Sustituye al IN de JpaRepository: solo consulta los ids que no están en caché
+    List<Equipment> findAllById(Iterable<Long> ids);
+}
@@ -0,0 +1,43 @@
+package com.ecorent.gestionalquileres.repository;
+
+import com.ecorent.gestionalquileres.entity.Equipment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+class EquipmentNaturalIdLookupImpl implements EquipmentNaturalIdLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Equipment> findByInternalCode(String internalCode) {
+        if (internalCode == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Equipment.class)
+                .loadOptional(internalCode);
+    }
+
+    @Override
+    public List<Equipment> findAllById(Iterable<Long> ids) {
+        List<Long> idList = new ArrayList<>();
+        ids.forEach(idList::add);
+        if (idList.isEmpty()) {
+            return List.of();
+        }
+        // Los ids inexistentes vuelven como null
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(Equipment.class)
+                .multiLoad(idList)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
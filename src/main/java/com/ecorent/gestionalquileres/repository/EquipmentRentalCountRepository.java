@@ -0,0 +1,46 @@
+package com.ecorent.gestionalquileres.repository;
+
+import com.ecorent.gestionalquileres.dto.report.TopEquipmentResponse;
+import com.ecorent.gestionalquileres.entity.EquipmentRentalCount;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface EquipmentRentalCountRepository extends JpaRepository<EquipmentRentalCount, Long> {
+
+    // RF-14 → +1 por equipo reservado; devuelve cuántos contadores existían
+    @Modifying
+    @Query("""
+        UPDATE EquipmentRentalCount c
+        SET c.rentalCount = c.rentalCount + 1
+        WHERE c.equipmentId IN :equipmentIds
+    """)
+    int increment(Collection<Long> equipmentIds);
+
+    // RF-14 → top N leído del índice (rentalCount DESC), sin recorrer Rental
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.report.TopEquipmentResponse(
+            e.id, e.name, c.rentalCount)
+        FROM EquipmentRentalCount c
+        JOIN Equipment e ON e.id = c.equipmentId
+        ORDER BY c.rentalCount DESC, c.equipmentId
+    """)
+    List<TopEquipmentResponse> findTop(Limit limit);
+
+    // Alta de los contadores que falten (datos anteriores a los contadores)
+    @Modifying
+    @Query("""
+        INSERT INTO EquipmentRentalCount (equipmentId, rentalCount)
+        SELECT e.id, COUNT(r.id)
+        FROM Equipment e
+        LEFT JOIN Rental r ON r.equipment = e
+        WHERE NOT EXISTS (
+            SELECT 1 FROM EquipmentRentalCount c WHERE c.equipmentId = e.id)
+        GROUP BY e.id
+    """)
+    int backfillMissing();
+}
@@ -1,27 +1,88 @@
 package com.ecorent.gestionalquileres.repository;
 
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentStatusCount;
 import com.ecorent.gestionalquileres.entity.Equipment;
 import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
-public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
+public interface EquipmentRepository extends JpaRepository<Equipment, Long>, EquipmentNaturalIdLookup {
 
-    // RF-01 → código interno único
-    Optional<Equipment> findByInternalCode(String internalCode);
+    // Totales por estado para los eventos de estado (se cargan una vez al arrancar)
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.equipment.EquipmentStatusCount(e.status, COUNT(e))
+        FROM Equipment e
+        GROUP BY e.status
+    """)
+    List<EquipmentStatusCount> countByStatus();
 
     // RF-03 → filtrar por estado
-    List<Equipment> findByStatus(EquipmentStatus status);
+    Page<Equipment> findByStatus(EquipmentStatus status, Pageable pageable);
 
-    // RF-14 → equipos más alquilados
+    // RF-03 → listado paginado con filtros opcionales (nulos = sin filtrar)
     @Query("""
         SELECT e FROM Equipment e
-        LEFT JOIN Rental r ON r.equipment = e
-        GROUP BY e
-        ORDER BY COUNT(r.id) DESC
+        WHERE (:status IS NULL OR e.status = :status)
+        AND (:category IS NULL OR e.category = :category)
+        AND (:namePrefix IS NULL OR LOWER(e.name) LIKE :namePrefix ESCAPE '\\')
+    """)
+    Page<Equipment> search(EquipmentStatus status, String category, String namePrefix, Pageable pageable);
+
+    // RF-04 → candidatos a la búsqueda de disponibilidad (todo menos mantenimiento)
+    @Query("""
+        SELECT e FROM Equipment e
+        WHERE (:category IS NULL OR e.category = :category)
+        AND e.status <> com.ecorent.gestionalquileres.entity.EquipmentStatus.MAINTENANCE
+        ORDER BY e.id
+    """)
+    List<Equipment> findRentableByCategory(String category);
+
+    // RF-03 → de estos equipos, los libres con un alquiler abierto que ya ha empezado
+    @Query("""
+        SELECT e.id FROM Equipment e
+        WHERE e.id IN :ids
+        AND e.status = com.ecorent.gestionalquileres.entity.EquipmentStatus.AVAILABLE
+        AND EXISTS (
+            SELECT 1 FROM Rental r
+            WHERE r.equipment = e AND r.returned = false AND r.startDate <= :today)
+        ORDER BY e.id
+    """)
+    List<Long> findAvailableWithStartedRental(Collection<Long> ids, LocalDate today);
+
+    // RF-03 → equipos libres con un alquiler abierto que ya ha empezado
+    @Query("""
+        SELECT e.id FROM Equipment e
+        WHERE e.status = com.ecorent.gestionalquileres.entity.EquipmentStatus.AVAILABLE
+        AND EXISTS (
+            SELECT 1 FROM Rental r
+            WHERE r.equipment = e AND r.returned = false AND r.startDate <= :today)
+    """)
+    List<Long> findAvailableWithStartedRental(LocalDate today);
+
+    // RF-03 → equipos alquilados sin ningún alquiler abierto que haya empezado
+    @Query("""
+        SELECT e.id FROM Equipment e
+        WHERE e.status = com.ecorent.gestionalquileres.entity.EquipmentStatus.RENTED
+        AND NOT EXISTS (
+            SELECT 1 FROM Rental r
+            WHERE r.equipment = e AND r.returned = false AND r.startDate <= :today)
+    """)
+    List<Long> findRentedWithoutStartedRental(LocalDate today);
+
+    // RF-03 → cambio de estado en bloque; solo toca los que siguen en el estado de partida
+    @Modifying
+    @Query("""
+        UPDATE Equipment e
+        SET e.status = :to
+        WHERE e.id IN :ids
+        AND e.status = :from
     """)
-    List<Equipment> findTopRentedEquipments();
+    int updateStatus(Collection<Long> ids, EquipmentStatus from, EquipmentStatus to);
 }
@@ -1,21 +1,29 @@
 package com.ecorent.gestionalquileres.repository;
 
+import com.ecorent.gestionalquileres.dto.export.PaymentExportRow;
 import com.ecorent.gestionalquileres.entity.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     List<Payment> findByRentalId(Long rentalId);
 
-    // ✅ RN-05 → suma de pagos
+    // ✅ Exportación completa para auditoría: cursor con fetch size, sin entidades gestionadas
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
     @Query("""
-        SELECT COALESCE(SUM(p.amount), 0)
+        SELECT new com.ecorent.gestionalquileres.dto.export.PaymentExportRow(
+            p.id, r.id, c.dni, p.amount, p.paymentDate)
         FROM Payment p
-        WHERE p.rental.id = :rentalId
+        JOIN p.rental r
+        JOIN r.client c
+        ORDER BY p.id
     """)
-    BigDecimal sumPaymentsByRentalId(Long rentalId);
+    Stream<PaymentExportRow> streamForExport();
 }
\ No newline at end of file
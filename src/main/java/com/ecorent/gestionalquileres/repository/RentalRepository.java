@@ -1,11 +1,29 @@
 package com.ecorent.gestionalquileres.repository;
 
+import com.ecorent.gestionalquileres.dto.export.RentalExportRow;
+import com.ecorent.gestionalquileres.dto.payment.RentalBalance;
+import com.ecorent.gestionalquileres.dto.rental.RentalDue;
+import com.ecorent.gestionalquileres.dto.rental.RentalPeriod;
+import com.ecorent.gestionalquileres.dto.rental.RentalResponse;
+import com.ecorent.gestionalquileres.dto.rental.RentalStart;
 import com.ecorent.gestionalquileres.entity.Rental;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface RentalRepository extends JpaRepository<Rental, Long> {
 
@@ -16,23 +34,130 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
             LocalDate startDate
     );
 
+    // ✅ RN-01 Carga inicial del índice de disponibilidad (solo alquileres abiertos)
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.rental.RentalPeriod(
+            r.id, r.equipment.id, r.startDate, r.endDate)
+        FROM Rental r
+        WHERE r.returned = false
+    """)
+    List<RentalPeriod> findOpenRentalPeriods();
+
+    // ✅ RN-04 Carga inicial de la cola de vencimientos (solo alquileres abiertos)
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.rental.RentalDue(
+            r.id, e.id, e.name, c.dni, c.name, r.endDate)
+        FROM Rental r
+        JOIN r.client c
+        JOIN r.equipment e
+        WHERE r.returned = false
+    """)
+    List<RentalDue> findOpenRentalDues();
+
+    // RF-03 → reservas que empiezan después de hoy, para cambiar el estado del equipo ese día
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.rental.RentalStart(
+            r.id, r.equipment.id, r.startDate)
+        FROM Rental r
+        WHERE r.returned = false
+        AND r.startDate > :today
+    """)
+    List<RentalStart> findUpcomingStarts(LocalDate today);
+
+    // ✅ RF-04 Respaldo de la búsqueda de disponibilidad: equipos ocupados en el rango
+    @Query("""
+        SELECT DISTINCT r.equipment.id
+        FROM Rental r
+        WHERE r.returned = false
+        AND r.startDate <= :end
+        AND r.endDate >= :start
+    """)
+    Set<Long> findBookedEquipmentIdsBetween(LocalDate start, LocalDate end);
+
+    // ✅ RN-01 Solapamiento en bloque para reservas múltiples
+    @Query("""
+        SELECT DISTINCT r.equipment.id
+        FROM Rental r
+        WHERE r.equipment.id IN :equipmentIds
+        AND r.returned = false
+        AND r.startDate <= :end
+        AND r.endDate >= :start
+    """)
+    Set<Long> findBookedEquipmentIdsBetween(Collection<Long> equipmentIds, LocalDate start, LocalDate end);
+
+    // Devolución: el equipo se conoce antes de leer el alquiler, para tomar su franja primero
+    @Query("SELECT r.equipment.id FROM Rental r WHERE r.id = :id")
+    Optional<Long> findEquipmentIdById(Long id);
+
+    // ✅ RN-05 Pago: bloquea el alquiler para actualizar el importe pagado sin carreras
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Rental r WHERE r.id = :id")
+    Optional<Rental> findByIdForUpdate(Long id);
+
+    // ✅ RN-05 Conciliación: bloquea de una vez los alquileres de un extracto, en orden de id
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.payment.RentalBalance(r.id, r.totalAmount, r.paidAmount)
+        FROM Rental r
+        WHERE r.id IN :ids
+        ORDER BY r.id
+    """)
+    List<RentalBalance> findBalancesForUpdate(Collection<Long> ids);
+
+    // ✅ RN-05 Completa el importe pagado de alquileres con pagos anteriores a la columna
+    @Modifying
+    @Query("""
+        UPDATE Rental r
+        SET r.paidAmount = (
+            SELECT SUM(p.amount) FROM Payment p WHERE p.rental = r)
+        WHERE r.paidAmount = 0
+        AND EXISTS (SELECT 1 FROM Payment p WHERE p.rental = r)
+    """)
+    int backfillPaidAmounts();
+
     // ✅ RF-06 Historial por cliente
     List<Rental> findByClientId(Long clientId);
 
+    // ✅ RF-06 Historial por cliente paginado por clave (id > cursor), leído como DTO
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.rental.RentalResponse(
+            r.id, c.name, c.dni, e.id, e.name,
+            r.startDate, r.endDate, r.totalAmount, r.returned)
+        FROM Rental r
+        JOIN r.client c
+        JOIN r.equipment e
+        WHERE c.dni = :dni
+        AND r.id > :after
+        ORDER BY r.id
+    """)
+    List<RentalResponse> findHistoryPage(String dni, Long after, Limit limit);
+
+    // ✅ Exportación completa para auditoría: cursor con fetch size, sin entidades gestionadas
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT new com.ecorent.gestionalquileres.dto.export.RentalExportRow(
+            r.id, c.dni, c.name, e.id, e.internalCode, e.name,
+            r.startDate, r.endDate, r.totalAmount, r.returned)
+        FROM Rental r
+        JOIN r.client c
+        JOIN r.equipment e
+        ORDER BY r.id
+    """)
+    Stream<RentalExportRow> streamForExport();
+
     // ✅ RN-04 Alquileres activos
     List<Rental> findByReturnedFalseAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
             LocalDate today1,
             LocalDate today2
     );
 
-    // ✅ RF-14 Ingresos por periodo
+    // ✅ RF-14 Ingresos por periodo (por fecha de inicio); respaldo del acumulado diario
     @Query("""
         SELECT COALESCE(SUM(r.totalAmount), 0)
         FROM Rental r
-        WHERE r.startDate >= :start
-        AND r.endDate <= :end
+        WHERE r.startDate BETWEEN :start AND :end
     """)
-    Double calculateIncomeBetween(LocalDate start, LocalDate end);
+    BigDecimal sumIncomeStartingBetween(LocalDate start, LocalDate end);
     
     List<Rental> findByClientDni(String dni);
     
@@ -0,0 +1,9 @@
+package com.ecorent.gestionalquileres.service;
+
+// Conjuntos de datos con versión propia en AggregateVersions
+public enum Aggregate {
+    EQUIPMENTS,
+    CLIENTS,
+    RENTALS,
+    PAYMENTS
+}
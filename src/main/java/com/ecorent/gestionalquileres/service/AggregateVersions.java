@@ -0,0 +1,43 @@
+package com.ecorent.gestionalquileres.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Versión en memoria de cada agregado, para responder GET condicionales
+ * (ETag / If-None-Match) sin consultar la base de datos.
+ *
+ * Los métodos de escritura de los servicios suben la versión de lo que
+ * modifican, y la subida se aplica al confirmar la transacción: quien lee
+ * una versión nueva ya ve los datos confirmados. Las etiquetas llevan además
+ * el instante de arranque, así que tras un reinicio ninguna coincide.
+ */
+@Component
+public class AggregateVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Aggregate.values().length);
+
+    // Se llama dentro de la transacción de escritura
+    public void bump(Aggregate... aggregates) {
+        TransactionCallbacks.afterCommit(() -> {
+            for (Aggregate aggregate : aggregates) {
+                versions.incrementAndGet(aggregate.ordinal());
+            }
+        });
+    }
+
+    public long version(Aggregate aggregate) {
+        return versions.get(aggregate.ordinal());
+    }
+
+    // ETag fuerte con la versión de cada agregado del que depende la respuesta
+    public String etag(Aggregate... aggregates) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        for (Aggregate aggregate : aggregates) {
+            etag.append('-').append(version(aggregate));
+        }
+        return etag.append('"').toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.cache.CacheRegionStats;
+import com.ecorent.gestionalquileres.dto.cache.CacheStatsResponse;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CacheStatsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Aciertos y fallos por región de la caché de segundo nivel (hibernate.generate_statistics)
+    public CacheStatsResponse getStats() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<CacheRegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(name -> {
+                    CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(name);
+                    return new CacheRegionStats(
+                            name, region.getHitCount(), region.getMissCount(), region.getPutCount());
+                })
+                .toList();
+
+        return new CacheStatsResponse(statistics.isStatisticsEnabled(), regions);
+    }
+}
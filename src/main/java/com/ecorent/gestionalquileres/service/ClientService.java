@@ -2,14 +2,17 @@ package com.ecorent.gestionalquileres.service;
 
 import com.ecorent.gestionalquileres.entity.Client;
 import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
 import com.ecorent.gestionalquileres.exception.NotFoundException;
 import com.ecorent.gestionalquileres.repository.ClientRepository;
 import com.ecorent.gestionalquileres.repository.RentalRepository;
 
 import lombok.RequiredArgsConstructor;
 
-import java.util.List;
-
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,17 +21,26 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class ClientService {
 
+    // Tope del listado sin paginar; para recorrer todos, /api/clients/search
+    static final int UNPAGED_LIMIT = 1000;
+
     private final ClientRepository clientRepository;
     private final RentalRepository rentalRepository;
+    private final RentalCounters rentalCounters;
+    private final AggregateVersions aggregateVersions;
 
     // RF-05
     public Client createClient(Client client) {
 
         if (clientRepository.existsByDni(client.getDni())) {
-            throw new BusinessException("Ya existe un cliente con ese DNI");
+            throw new BusinessException(RejectionReason.DUPLICATE_DNI, "Ya existe un cliente con ese DNI");
         }
 
-        return clientRepository.save(client);
+        Client saved = clientRepository.save(client);
+        rentalCounters.registerClient(saved.getId());
+        aggregateVersions.bump(Aggregate.CLIENTS);
+
+        return saved;
     }
     
     public Client updateClient(Long id, Client updated) {
@@ -39,6 +51,7 @@ public class ClientService {
         client.setName(updated.getName());
         client.setPhone(updated.getPhone());
         client.setEmail(updated.getEmail());
+        aggregateVersions.bump(Aggregate.CLIENTS);
 
         return client;
     }
@@ -51,10 +64,12 @@ public class ClientService {
         boolean hasRentals = rentalRepository.existsByClientId(id);
 
         if (hasRentals) {
-            throw new BusinessException("No se puede eliminar un cliente con historial de alquileres");
+            throw new BusinessException(RejectionReason.HAS_RENTAL_HISTORY, "No se puede eliminar un cliente con historial de alquileres");
         }
 
         clientRepository.delete(client);
+        rentalCounters.forgetClient(id);
+        aggregateVersions.bump(Aggregate.CLIENTS);
     }
 
 
@@ -63,8 +78,16 @@ public class ClientService {
                 .orElseThrow(() -> new NotFoundException("Cliente no encontrado"));
     }
     
-    public List<Client> findAll() {
-        return clientRepository.findAll();
+    @Transactional(readOnly = true)
+    public Page<Client> findAll() {
+        // Solo se cuenta el total si hay más clientes que el tope
+        return clientRepository.findAll(PageRequest.of(0, UNPAGED_LIMIT, Sort.by("id")));
+    }
+
+    // RF-05 → listado paginado con filtro opcional por prefijo de nombre
+    @Transactional(readOnly = true)
+    public Page<Client> search(String namePrefix, Pageable pageable) {
+        return clientRepository.search(SearchPatterns.startsWith(namePrefix), pageable);
     }
 
     
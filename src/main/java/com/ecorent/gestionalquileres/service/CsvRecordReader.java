@@ -0,0 +1,96 @@
+package com.ecorent.gestionalquileres.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV (RFC 4180) registro a registro, el inverso de
+ * {@link ExportService#csvField}: separador coma, campos entre comillas con
+ * comillas dobladas y saltos de línea dentro, y fin de línea CRLF o LF.
+ */
+final class CsvRecordReader {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+
+    // Búfer propio: leer carácter a carácter de un BufferedReader toma su cerrojo en cada llamada
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // null al final de la entrada
+    List<String> next() throws IOException {
+
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new MalformedRecordException("Comillas sin cerrar");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n' && following != -1) {
+                        position--;
+                    }
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    // Error del contenido, no de la lectura: quien llama puede rechazar el registro
+    static final class MalformedRecordException extends IOException {
+
+        MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+}
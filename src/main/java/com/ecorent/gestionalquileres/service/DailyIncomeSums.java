@@ -0,0 +1,68 @@
+package com.ecorent.gestionalquileres.service;
+
+/**
+ * Sumas acumuladas de ingresos diarios, en céntimos, sobre días epoch:
+ * {@code prefix[i]} es el total de los días {@code [baseDay, baseDay + i)}.
+ * Cualquier rango se resuelve con dos lecturas; añadir un importe a un día
+ * recorre las posiciones posteriores a ese día.
+ *
+ * No es thread-safe: {@link IncomeRollup} sincroniza el acceso.
+ */
+class DailyIncomeSums {
+
+    // Margen al crecer para no reasignar el array en cada día nuevo
+    private static final int GROWTH_DAYS = 366;
+
+    private long baseDay;
+    private long[] prefix = new long[1];
+
+    void clear() {
+        baseDay = 0;
+        prefix = new long[1];
+    }
+
+    int days() {
+        return prefix.length - 1;
+    }
+
+    void add(long day, long cents) {
+        ensureCovers(day);
+        for (int i = (int) (day - baseDay) + 1; i < prefix.length; i++) {
+            prefix[i] += cents;
+        }
+    }
+
+    // Total de [fromDay, toDay], ambos incluidos; fuera del rango cubierto no hay ingresos
+    long sum(long fromDay, long toDay) {
+        long from = Math.max(fromDay, baseDay);
+        long to = Math.min(toDay, baseDay + days() - 1);
+        if (from > to) {
+            return 0;
+        }
+        return prefix[(int) (to - baseDay) + 1] - prefix[(int) (from - baseDay)];
+    }
+
+    private void ensureCovers(long day) {
+        if (days() == 0) {
+            baseDay = day;
+            prefix = new long[GROWTH_DAYS + 1];
+            return;
+        }
+        long lastDay = baseDay + days() - 1;
+        if (day >= baseDay && day <= lastDay) {
+            return;
+        }
+        long newBase = day < baseDay ? day - GROWTH_DAYS : baseDay;
+        long newLast = day > lastDay ? day + GROWTH_DAYS : lastDay;
+        long[] grown = new long[(int) (newLast - newBase + 2)];
+        int offset = (int) (baseDay - newBase);
+        System.arraycopy(prefix, 0, grown, offset, prefix.length);
+        // Los días añadidos al final heredan el total acumulado
+        long total = prefix[prefix.length - 1];
+        for (int i = offset + prefix.length; i < grown.length; i++) {
+            grown[i] = total;
+        }
+        baseDay = newBase;
+        prefix = grown;
+    }
+}
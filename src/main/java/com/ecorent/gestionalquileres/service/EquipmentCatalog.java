@@ -0,0 +1,106 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentResponse;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catálogo completo de equipos (GET /api/equipments) ya serializado.
+ *
+ * Se guarda el JSON de la lista, y su versión gzip, junto con la versión de
+ * EQUIPMENTS con la que se generó. Esa versión sube al confirmar cualquier
+ * escritura de EquipmentService y cada reserva o devolución, que cambian el
+ * estado; la primera lectura posterior regenera el catálogo, una sola vez
+ * aunque lleguen varias a la vez. El resto de lecturas solo escriben los
+ * bytes guardados, sin consultas ni serialización.
+ *
+ * El listado está limitado a los primeros {@link #LIMIT} equipos por id para
+ * que la respuesta siga acotada; para recorrer todos, /api/equipments/search.
+ * El snapshot guarda el total de equipos y si la lista se ha cortado, para que
+ * el controlador lo indique en la respuesta.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EquipmentCatalog {
+
+    static final int LIMIT = 1000;
+
+    private final EquipmentRepository equipmentRepository;
+    private final AggregateVersions aggregateVersions;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.version() == aggregateVersions.version(Aggregate.EQUIPMENTS)) {
+            return current;
+        }
+        synchronized (this) {
+            // La versión se lee antes de consultar: si cambia mientras tanto, se regenera otra vez
+            long version = aggregateVersions.version(Aggregate.EQUIPMENTS);
+            current = snapshot;
+            if (current == null || current.version() != version) {
+                current = build(version);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot build(long version) {
+
+        // Solo se cuenta el total si hay más equipos que el tope
+        Page<Equipment> page = equipmentRepository.findAll(PageRequest.of(0, LIMIT, Sort.by("id")));
+
+        List<EquipmentResponse> equipments = page.getContent()
+                .stream()
+                .map(e -> new EquipmentResponse(
+                        e.getId(),
+                        e.getName(),
+                        e.getCategory(),
+                        e.getInternalCode(),
+                        e.getPricePerDay(),
+                        e.getStatus()))
+                .toList();
+
+        try {
+            Snapshot built = Snapshot.of(version, objectMapper.writeValueAsBytes(equipments),
+                    page.getTotalElements(), page.hasNext());
+            log.debug("Catálogo de equipos regenerado: {} equipos, {} bytes ({} con gzip)",
+                    equipments.size(), built.json().length, built.gzip().length);
+            return built;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el catálogo de equipos", e);
+        }
+    }
+
+    // Los arrays se comparten entre todas las peticiones: nadie debe modificarlos
+    public record Snapshot(long version, byte[] json, byte[] gzip, long total, boolean truncated) {
+
+        public static Snapshot of(long version, byte[] json, long total, boolean truncated) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Snapshot(version, json, compressed.toByteArray(), total, truncated);
+        }
+    }
+}
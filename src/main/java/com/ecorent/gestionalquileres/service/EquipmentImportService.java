@@ -0,0 +1,315 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentImportError;
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentImportResponse;
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentRequest;
+import com.ecorent.gestionalquileres.dto.equipment.ImportFormat;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Alta masiva de equipos (RF-01) desde CSV o NDJSON.
+ *
+ * La entrada se lee en streaming, fila a fila. Cada fila se valida como
+ * {@link EquipmentRequest} y su código interno se comprueba contra un conjunto
+ * en memoria, cargado una vez al empezar con los códigos existentes y
+ * ampliado con los del propio fichero. Las filas válidas se insertan con JDBC
+ * por lotes de {@code ecorent.equipments.import.chunk-size}, cada lote en su
+ * transacción junto con sus contadores de alquileres.
+ *
+ * El conjunto no ve las altas que confirman otras peticiones durante la
+ * importación; de eso se encarga la restricción única de internal_code. Si un
+ * lote choca con ella se deshace entero y se repite fila a fila, y la fila que
+ * vuelve a chocar queda rechazada como código duplicado.
+ *
+ * Las filas rechazadas no detienen la importación: la respuesta lleva el
+ * motivo de cada una.
+ */
+@Slf4j
+@Service
+@Timed(value = "ecorent.service", histogram = true)
+public class EquipmentImportService {
+
+    static final List<String> CSV_COLUMNS = List.of("name", "category", "internalCode", "pricePerDay");
+
+    static final String DUPLICATE_CODE = "Ya existe un equipo con ese código interno";
+
+    private static final String INSERT_EQUIPMENT = """
+            INSERT INTO equipment (name, category, internal_code, price_per_day, status)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_COUNTER =
+            "INSERT INTO equipment_rental_count (equipment_id, rental_count) VALUES (?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader requestReader;
+    private final Validator validator;
+    private final AggregateVersions aggregateVersions;
+    private final EquipmentStatusFeed equipmentStatusFeed;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public EquipmentImportService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  Validator validator,
+                                  AggregateVersions aggregateVersions,
+                                  EquipmentStatusFeed equipmentStatusFeed,
+                                  @Value("${ecorent.equipments.import.chunk-size:1000}") int chunkSize,
+                                  @Value("${ecorent.equipments.import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requestReader = objectMapper.readerFor(EquipmentRequest.class);
+        this.validator = validator;
+        this.aggregateVersions = aggregateVersions;
+        this.equipmentStatusFeed = equipmentStatusFeed;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public EquipmentImportResponse importEquipments(ImportFormat format, InputStream in) throws IOException {
+
+        Run run = new Run(loadInternalCodes());
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+
+        switch (format) {
+            case CSV -> readCsv(reader, run);
+            case NDJSON -> readNdjson(new BufferedReader(reader), run);
+        }
+        run.flush();
+
+        log.info("Importación de equipos: {} altas, {} filas rechazadas", run.imported, run.rejected);
+        return new EquipmentImportResponse(run.imported, run.rejected, run.errors);
+    }
+
+    private Set<String> loadInternalCodes() {
+        Set<String> codes = new HashSet<>();
+        jdbcTemplate.query("SELECT internal_code FROM equipment", rs -> {
+            codes.add(rs.getString(1));
+        });
+        return codes;
+    }
+
+    private void readCsv(Reader reader, Run run) throws IOException {
+
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new BusinessException(RejectionReason.INVALID_IMPORT_FILE, "El fichero está vacío");
+        }
+
+        // Columnas por nombre, en cualquier orden; se ignora el BOM de Excel
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            Integer position = positions.get(CSV_COLUMNS.get(i).toLowerCase(Locale.ROOT));
+            if (position == null) {
+                throw new BusinessException(RejectionReason.INVALID_IMPORT_FILE,
+                        "Falta la columna " + CSV_COLUMNS.get(i) + " en la cabecera; se esperan " + CSV_COLUMNS);
+            }
+            columns[i] = position;
+        }
+
+        long row = 0;
+        while (true) {
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (CsvRecordReader.MalformedRecordException e) {
+                run.reject(row + 1, null, e.getMessage());
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            row++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            if (record.size() != header.size()) {
+                run.reject(row, null, "Se esperaban " + header.size() + " columnas y hay " + record.size());
+                continue;
+            }
+
+            String internalCode = record.get(columns[2]);
+            BigDecimal pricePerDay;
+            try {
+                String price = record.get(columns[3]).trim();
+                pricePerDay = price.isEmpty() ? null : new BigDecimal(price);
+            } catch (NumberFormatException e) {
+                run.reject(row, internalCode, "pricePerDay: no es un número");
+                continue;
+            }
+
+            run.accept(row, new EquipmentRequest(
+                    record.get(columns[0]), record.get(columns[1]), internalCode, pricePerDay));
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Run run) throws IOException {
+        long row = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            EquipmentRequest request;
+            try {
+                request = requestReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                run.reject(row, null, "JSON no válido");
+                continue;
+            }
+            // Una línea "null" se lee sin error pero no es un equipo
+            if (request == null) {
+                run.reject(row, null, "JSON no válido");
+                continue;
+            }
+            run.accept(row, request);
+        }
+    }
+
+    private List<Long> insert(List<EquipmentRequest> rows) {
+
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_EQUIPMENT, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        EquipmentRequest request = rows.get(i);
+                        ps.setString(1, request.name());
+                        ps.setString(2, request.category());
+                        ps.setString(3, request.internalCode());
+                        ps.setBigDecimal(4, request.pricePerDay());
+                        ps.setString(5, EquipmentStatus.AVAILABLE.name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<Long> ids = keys.getKeyList().stream()
+                .map(key -> ((Number) key.values().iterator().next()).longValue())
+                .toList();
+
+        // Nacen con contador a cero, como en EquipmentService.createEquipment
+        jdbcTemplate.batchUpdate(INSERT_COUNTER, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+
+        ids.forEach(id -> equipmentStatusFeed.record(id, null, EquipmentStatus.AVAILABLE));
+        aggregateVersions.bump(Aggregate.EQUIPMENTS);
+
+        return ids;
+    }
+
+    // Estado de una importación
+    private final class Run {
+
+        private final Set<String> internalCodes;
+        private final List<PendingRow> pending = new ArrayList<>(chunkSize);
+        private final List<EquipmentImportError> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        Run(Set<String> internalCodes) {
+            this.internalCodes = internalCodes;
+        }
+
+        void accept(long row, EquipmentRequest request) {
+
+            Set<ConstraintViolation<EquipmentRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(row, request.internalCode(), violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            // También rechaza el segundo uso de un código dentro del mismo fichero
+            if (!internalCodes.add(request.internalCode())) {
+                reject(row, request.internalCode(), DUPLICATE_CODE);
+                return;
+            }
+
+            pending.add(new PendingRow(row, request));
+            if (pending.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String internalCode, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new EquipmentImportError(row, internalCode, message));
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<EquipmentRequest> requests = pending.stream().map(PendingRow::request).toList();
+            try {
+                imported += transactionTemplate.execute(status -> insert(requests)).size();
+            } catch (DataIntegrityViolationException e) {
+                // Otra petición dio de alta alguno de estos códigos después de cargarlos
+                log.debug("Lote de importación con códigos ya existentes; se repite fila a fila");
+                pending.forEach(this::insertAlone);
+            }
+            pending.clear();
+        }
+
+        private void insertAlone(PendingRow pendingRow) {
+            try {
+                imported += transactionTemplate.execute(status -> insert(List.of(pendingRow.request()))).size();
+            } catch (DataIntegrityViolationException e) {
+                reject(pendingRow.row(), pendingRow.request().internalCode(), DUPLICATE_CODE);
+            }
+        }
+    }
+
+    private record PendingRow(long row, EquipmentRequest request) {
+    }
+}
@@ -3,15 +3,22 @@ package com.ecorent.gestionalquileres.service;
 import com.ecorent.gestionalquileres.entity.Equipment;
 import com.ecorent.gestionalquileres.entity.EquipmentStatus;
 import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
 import com.ecorent.gestionalquileres.exception.NotFoundException;
 import com.ecorent.gestionalquileres.repository.EquipmentRepository;
 import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.ecorent.gestionalquileres.service.availability.AvailabilityIndex;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
@@ -20,17 +27,26 @@ public class EquipmentService {
 
     private final EquipmentRepository equipmentRepository;
     private final RentalRepository rentalRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final RentalCounters rentalCounters;
+    private final EquipmentStatusFeed equipmentStatusFeed;
+    private final AggregateVersions aggregateVersions;
 
     // RF-01
     public Equipment createEquipment(Equipment equipment) {
 
         if (equipmentRepository.findByInternalCode(equipment.getInternalCode()).isPresent()) {
-            throw new BusinessException("Ya existe un equipo con ese código interno");
+            throw new BusinessException(RejectionReason.DUPLICATE_INTERNAL_CODE, "Ya existe un equipo con ese código interno");
         }
 
         equipment.setStatus(EquipmentStatus.AVAILABLE);
 
-        return equipmentRepository.save(equipment);
+        Equipment saved = equipmentRepository.save(equipment);
+        rentalCounters.registerEquipment(saved.getId());
+        equipmentStatusFeed.record(saved.getId(), null, saved.getStatus());
+        aggregateVersions.bump(Aggregate.EQUIPMENTS);
+
+        return saved;
     }
 
  // RF-02 con restricciones
@@ -40,12 +56,13 @@ public class EquipmentService {
                 .orElseThrow(() -> new NotFoundException("Equipo no encontrado"));
 
         if (equipment.getStatus() == EquipmentStatus.RENTED) {
-            throw new BusinessException("No se puede modificar un equipo alquilado");
+            throw new BusinessException(RejectionReason.EQUIPMENT_RENTED, "No se puede modificar un equipo alquilado");
         }
 
         equipment.setName(updated.getName());
         equipment.setCategory(updated.getCategory());
         equipment.setPricePerDay(updated.getPricePerDay());
+        aggregateVersions.bump(Aggregate.EQUIPMENTS);
 
         return equipment;
     }
@@ -56,16 +73,19 @@ public class EquipmentService {
                 .orElseThrow(() -> new NotFoundException("Equipo no encontrado"));
 
         if (equipment.getStatus() == EquipmentStatus.RENTED) {
-            throw new BusinessException("No se puede eliminar un equipo alquilado");
+            throw new BusinessException(RejectionReason.EQUIPMENT_RENTED, "No se puede eliminar un equipo alquilado");
         }
 
         boolean hasRentals = rentalRepository.existsByEquipmentId(id);
 
         if (hasRentals) {
-            throw new BusinessException("No se puede eliminar un equipo con historial de alquileres");
+            throw new BusinessException(RejectionReason.HAS_RENTAL_HISTORY, "No se puede eliminar un equipo con historial de alquileres");
         }
 
         equipmentRepository.delete(equipment);
+        rentalCounters.forgetEquipment(id);
+        equipmentStatusFeed.record(id, equipment.getStatus(), null);
+        aggregateVersions.bump(Aggregate.EQUIPMENTS);
     }
 
 
@@ -75,12 +95,49 @@ public class EquipmentService {
         Equipment equipment = equipmentRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Equipo no encontrado"));
 
+        EquipmentStatus previous = equipment.getStatus();
         equipment.setStatus(status);
+        equipmentStatusFeed.record(id, previous, status);
+        aggregateVersions.bump(Aggregate.EQUIPMENTS);
 
         return equipment;
     }
 
-    public List<Equipment> findAll() {
-        return equipmentRepository.findAll();
+    // RF-03 → listado paginado y filtrado; sin filtros de texto se usa la consulta por estado
+    @Transactional(readOnly = true)
+    public Page<Equipment> search(EquipmentStatus status, String category, String namePrefix,
+                                  Pageable pageable) {
+
+        String categoryFilter = SearchPatterns.blankToNull(category);
+        String namePattern = SearchPatterns.startsWith(namePrefix);
+
+        if (status != null && categoryFilter == null && namePattern == null) {
+            return equipmentRepository.findByStatus(status, pageable);
+        }
+
+        return equipmentRepository.search(status, categoryFilter, namePattern, pageable);
+    }
+
+    // RF-04 → equipos libres de la categoría en [start, end]; una sola consulta
+    // de candidatos y el resto se resuelve contra el calendario en memoria
+    @Transactional(readOnly = true)
+    public List<Equipment> findAvailable(String category, LocalDate start, LocalDate end) {
+
+        if (end.isBefore(start)) {
+            throw new BusinessException(RejectionReason.INVALID_DATES, "Fecha fin no puede ser anterior a fecha inicio");
+        }
+
+        Predicate<Long> free;
+        if (availabilityIndex.isReady()) {
+            free = availabilityIndex.freeBetween(start, end);
+        } else {
+            Set<Long> booked = rentalRepository.findBookedEquipmentIdsBetween(start, end);
+            free = id -> !booked.contains(id);
+        }
+
+        return equipmentRepository.findRentableByCategory(SearchPatterns.blankToNull(category))
+                .stream()
+                .filter(e -> free.test(e.getId()))
+                .toList();
     }
 }
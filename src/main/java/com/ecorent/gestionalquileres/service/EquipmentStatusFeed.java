@@ -0,0 +1,314 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentStatusCount;
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentStatusEvent;
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentStatusSummary;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cambios de estado de los equipos (RF-03) como eventos SSE para el panel.
+ *
+ * Los servicios anotan el cambio dentro de su transacción y el evento se
+ * publica al confirmar; si se deshace no sale nada. Cada evento recibe un
+ * número de secuencia, que es su id SSE, y se guarda en un búfer circular con
+ * los últimos {@code ecorent.equipments.events.buffer-size}.
+ *
+ * Cada suscriptor tiene su propia cola acotada
+ * ({@code ecorent.equipments.events.subscriber-queue}); publicar solo encola,
+ * sin esperar a nadie, y un hilo del grupo de escritura vacía la cola de un
+ * suscriptor mientras tenga algo pendiente. Un cliente lento no retrasa a los
+ * demás: si su cola se llena, o una escritura tarda más de
+ * {@code ecorent.equipments.events.write-timeout}, se le cierra la conexión y
+ * el navegador reconecta con el último id recibido.
+ *
+ * Quien conecta sin id recibe un evento {@code sync} con el id actual y los
+ * totales por estado, y aplica encima los cambios posteriores. Al reconectar
+ * con el último id recibido se reenvía lo que falta del búfer; si ese id ya
+ * salió de él, es de un arranque anterior o lo pendiente no cabe en la cola,
+ * recibe otra vez {@code sync}.
+ *
+ * Los totales se cuentan en la base de datos una vez, al crear el bean y antes
+ * de que haya escrituras, y después se llevan con los propios eventos bajo el
+ * mismo bloqueo que asigna los ids: un {@code sync} nunca incluye un cambio
+ * que vaya a llegar después como evento, ni al revés.
+ */
+@Slf4j
+@Component
+public class EquipmentStatusFeed {
+
+    public static final String STATUS_EVENT = "status";
+    public static final String SYNC_EVENT = "sync";
+
+    private final EquipmentRepository equipmentRepository;
+    private final int bufferSize;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService writers;
+
+    // Se añaden bajo el bloqueo del búfer; los callbacks del contenedor los quitan
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Búfer e id se modifican bajo el mismo bloqueo, que también fija el orden en las colas
+    private final Deque<SequencedEvent> buffer = new ArrayDeque<>();
+    private final long[] totals = new long[EquipmentStatus.values().length];
+    private long lastId;
+
+    public EquipmentStatusFeed(EquipmentRepository equipmentRepository,
+                               @Value("${ecorent.equipments.events.buffer-size:1000}") int bufferSize,
+                               @Value("${ecorent.equipments.events.subscriber-queue:256}") int queueCapacity,
+                               @Value("${ecorent.equipments.events.timeout:PT30M}") Duration timeout,
+                               @Value("${ecorent.equipments.events.write-timeout:PT10S}") Duration writeTimeout,
+                               @Value("${ecorent.equipments.events.heartbeat:PT15S}") Duration heartbeat) {
+        this.equipmentRepository = equipmentRepository;
+        this.bufferSize = bufferSize;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeout.toMillis();
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("equipment-events-"));
+        // Un hilo por suscriptor con escrituras pendientes; quedan libres al vaciar su cola
+        this.writers = Executors.newCachedThreadPool(new CustomizableThreadFactory("equipment-events-writer-"));
+        // El latido detecta las conexiones cerradas aunque no haya cambios que enviar
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::dropStalledWriters,
+                writeTimeout.toMillis(), writeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PostConstruct
+    void loadTotals() {
+        synchronized (buffer) {
+            for (EquipmentStatusCount count : equipmentRepository.countByStatus()) {
+                totals[count.status().ordinal()] = count.count();
+            }
+        }
+    }
+
+    // Se llama dentro de la transacción que cambia el estado
+    public void record(Long equipmentId, EquipmentStatus previous, EquipmentStatus status) {
+        if (previous == status) {
+            return;
+        }
+        EquipmentStatusEvent event = new EquipmentStatusEvent(equipmentId, previous, status);
+        TransactionCallbacks.afterCommit(() -> publish(event));
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Long lastEventId) {
+
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        // El navegador reconecta solo, con el último id recibido
+        emitter.onTimeout(emitter::complete);
+
+        synchronized (buffer) {
+            List<SequencedEvent> missed = missedSince(lastEventId);
+            // Lo pendiente va antes que cualquier evento publicado después
+            if (missed == null || missed.size() >= queueCapacity) {
+                subscriber.sync(lastId, summary());
+            } else {
+                missed.forEach(subscriber::send);
+            }
+            subscribers.add(subscriber);
+        }
+
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        writers.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    void publish(EquipmentStatusEvent event) {
+        synchronized (buffer) {
+            if (event.previous() != null) {
+                totals[event.previous().ordinal()]--;
+            }
+            if (event.status() != null) {
+                totals[event.status().ordinal()]++;
+            }
+            SequencedEvent sequenced = new SequencedEvent(++lastId, event);
+            buffer.addLast(sequenced);
+            if (buffer.size() > bufferSize) {
+                buffer.removeFirst();
+            }
+            subscribers.forEach(subscriber -> subscriber.send(sequenced));
+        }
+    }
+
+    // Se llama con el bloqueo del búfer tomado
+    private EquipmentStatusSummary summary() {
+        long available = totals[EquipmentStatus.AVAILABLE.ordinal()];
+        long rented = totals[EquipmentStatus.RENTED.ordinal()];
+        long maintenance = totals[EquipmentStatus.MAINTENANCE.ordinal()];
+        return new EquipmentStatusSummary(available + rented + maintenance, available, rented, maintenance);
+    }
+
+    // null si no se puede continuar desde ese id y hay que sincronizar
+    private List<SequencedEvent> missedSince(Long lastEventId) {
+        if (lastEventId == null || lastEventId > lastId || lastEventId < 0) {
+            return null;
+        }
+        long oldest = buffer.isEmpty() ? lastId + 1 : buffer.getFirst().id();
+        if (lastEventId < oldest - 1) {
+            return null;
+        }
+        return buffer.stream()
+                .filter(sequenced -> sequenced.id() > lastEventId)
+                .toList();
+    }
+
+    private void heartbeat() {
+        try {
+            subscribers.forEach(Subscriber::ping);
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría el latido programado
+            log.warn("Error en el latido de los eventos de equipos", e);
+        }
+    }
+
+    private void dropStalledWriters() {
+        try {
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers) {
+                long since = subscriber.writingSince;
+                if (since != 0 && now - since > writeTimeoutNanos) {
+                    subscriber.drop("escritura bloqueada");
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error al revisar las escrituras de los eventos de equipos", e);
+        }
+    }
+
+    private record SequencedEvent(long id, EquipmentStatusEvent event) {
+    }
+
+    // Cualquiera encola; solo el hilo de escritura que tiene el turno escribe en el emisor
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long writingSince;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void send(SequencedEvent sequenced) {
+            enqueue(SseEmitter.event()
+                    .id(Long.toString(sequenced.id()))
+                    .name(STATUS_EVENT)
+                    .data(sequenced.event(), MediaType.APPLICATION_JSON));
+        }
+
+        void sync(long currentId, EquipmentStatusSummary summary) {
+            enqueue(SseEmitter.event()
+                    .id(Long.toString(currentId))
+                    .name(SYNC_EVENT)
+                    .data(summary, MediaType.APPLICATION_JSON));
+        }
+
+        void ping() {
+            enqueue(SseEmitter.event().comment("ping"));
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                drop("cola llena");
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event = queue.poll();
+                if (event == null) {
+                    draining.set(false);
+                    // Otro hilo pudo encolar justo antes de soltar el turno
+                    if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                write(event);
+            }
+        }
+
+        private void write(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            writingSince = System.nanoTime();
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado o emisor ya completado: el contenedor cierra la petición
+                log.debug("Suscriptor de estados de equipos desconectado: {}", e.getMessage());
+                close();
+            } finally {
+                writingSince = 0;
+            }
+        }
+
+        // Se queda atrás: se cierra la conexión y el navegador reconecta desde su último id
+        void drop(String reason) {
+            if (closed) {
+                return;
+            }
+            log.info("Suscriptor de estados de equipos descartado: {}", reason);
+            close();
+            queue.clear();
+            // complete() espera a que termine la escritura en curso, así que no se llama aquí
+            writers.execute(emitter::complete);
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.rental.RentalStart;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.ecorent.gestionalquileres.service.availability.BookingLocks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Estado de los equipos según el calendario de alquileres (RF-03).
+ *
+ * Una reserva que empieza otro día no marca el equipo como alquilado: espera
+ * en una rueda de temporización con una casilla por día (la fecha de inicio
+ * módulo {@code ecorent.rentals.status.wheel-slots}). Cada medianoche
+ * ({@code ecorent.rentals.status.cron}) se vacían las casillas de los días
+ * transcurridos y los equipos de los alquileres que empiezan pasan a alquilados
+ * con un solo UPDATE. Reservar, devolver y avanzar un día no dependen de
+ * cuántas reservas haya por delante.
+ *
+ * Los inicios que no salen en su paso (reservas confirmadas después de él o
+ * un UPDATE fallido) quedan como atrasados y se reintentan cada
+ * {@code ecorent.rentals.status.late-delay}, sin esperar a la medianoche.
+ *
+ * El paso toma las franjas de {@link BookingLocks} de sus equipos, como
+ * reservas y devoluciones, y solo marca los que siguen libres con un alquiler
+ * abierto ya empezado: una devolución que confirma a la vez no deja el equipo
+ * alquilado sin alquiler.
+ *
+ * La vuelta a disponible sigue siendo la devolución: un alquiler que no se
+ * devuelve a tiempo queda vencido ({@link OverdueRentals}), no libre. Al
+ * arrancar se corrigen los estados que no cuadran con el calendario.
+ */
+@Slf4j
+@Component
+public class EquipmentStatusTimer {
+
+    // Ids por UPDATE: mantiene acotada la lista IN
+    static final int UPDATE_CHUNK = 1000;
+
+    private final EquipmentRepository equipmentRepository;
+    private final RentalRepository rentalRepository;
+    private final EquipmentStatusFeed equipmentStatusFeed;
+    private final AggregateVersions aggregateVersions;
+    private final BookingLocks bookingLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    // Todo bajo el monitor de this; cada casilla y los atrasados, por id de alquiler
+    private final List<Map<Long, RentalStart>> slots;
+    private final Map<Long, RentalStart> late = new LinkedHashMap<>();
+    private LocalDate lastTick;
+
+    @Autowired
+    public EquipmentStatusTimer(EquipmentRepository equipmentRepository,
+                                RentalRepository rentalRepository,
+                                EquipmentStatusFeed equipmentStatusFeed,
+                                AggregateVersions aggregateVersions,
+                                BookingLocks bookingLocks,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${ecorent.rentals.status.wheel-slots:64}") int wheelSlots) {
+        this(equipmentRepository, rentalRepository, equipmentStatusFeed, aggregateVersions,
+                bookingLocks, transactionManager, wheelSlots, Clock.systemDefaultZone());
+    }
+
+    EquipmentStatusTimer(EquipmentRepository equipmentRepository,
+                         RentalRepository rentalRepository,
+                         EquipmentStatusFeed equipmentStatusFeed,
+                         AggregateVersions aggregateVersions,
+                         BookingLocks bookingLocks,
+                         PlatformTransactionManager transactionManager,
+                         int wheelSlots,
+                         Clock clock) {
+        this.equipmentRepository = equipmentRepository;
+        this.rentalRepository = rentalRepository;
+        this.equipmentStatusFeed = equipmentStatusFeed;
+        this.aggregateVersions = aggregateVersions;
+        this.bookingLocks = bookingLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.slots = new ArrayList<>(wheelSlots);
+        for (int i = 0; i < wheelSlots; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.lastTick = LocalDate.now(clock);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        LocalDate today = LocalDate.now(clock);
+
+        int fixed = transactionTemplate.execute(status ->
+                change(equipmentRepository.findAvailableWithStartedRental(today), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED)
+                        + change(equipmentRepository.findRentedWithoutStartedRental(today), EquipmentStatus.RENTED, EquipmentStatus.AVAILABLE));
+
+        slots.forEach(Map::clear);
+        late.clear();
+        lastTick = today;
+        rentalRepository.findUpcomingStarts(today).forEach(this::add);
+
+        log.info("Rueda de estados cargada: {} alquileres por empezar, {} equipos corregidos", pendingCount(), fixed);
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    // El equipo solo cambia al reservar si el alquiler empieza hoy o antes
+    public boolean startsLater(LocalDate start) {
+        return start.isAfter(today());
+    }
+
+    // Reserva futura recién guardada; entra en la rueda al confirmar
+    public void schedule(Rental rental) {
+        RentalStart start = new RentalStart(rental.getId(), rental.getEquipment().getId(), rental.getStartDate());
+        TransactionCallbacks.afterCommit(() -> add(start));
+    }
+
+    // Devolución antes de empezar: sale de la rueda al confirmar
+    public void cancel(Rental rental) {
+        Long rentalId = rental.getId();
+        LocalDate startDate = rental.getStartDate();
+        TransactionCallbacks.afterCommit(() -> remove(rentalId, startDate));
+    }
+
+    @Scheduled(cron = "${ecorent.rentals.status.cron:0 0 0 * * *}")
+    public void tick() {
+        advance(LocalDate.now(clock));
+    }
+
+    // Atrasados: confirmados después del paso de su día o con el UPDATE fallido
+    @Scheduled(fixedDelayString = "${ecorent.rentals.status.late-delay:PT1M}",
+            initialDelayString = "${ecorent.rentals.status.late-delay:PT1M}")
+    public void catchUp() {
+        synchronized (this) {
+            if (late.isEmpty()) {
+                return;
+            }
+        }
+        advance(LocalDate.now(clock));
+    }
+
+    // Devuelve cuántos equipos han pasado a alquilados
+    int advance(LocalDate today) {
+        List<RentalStart> due;
+        synchronized (this) {
+            due = drain(today);
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        TreeSet<Long> equipmentIds = new TreeSet<>();
+        due.forEach(start -> equipmentIds.add(start.equipmentId()));
+        try {
+            int changed = transactionTemplate.execute(status -> {
+                // Con las franjas tomadas ninguna devolución confirma entre la consulta y el UPDATE
+                bookingLocks.lockForTransaction(equipmentIds);
+                return change(equipmentRepository.findAvailableWithStartedRental(equipmentIds, today),
+                        EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+            });
+            log.info("{} alquileres empiezan; {} equipos pasan a alquilados", due.size(), changed);
+            return changed;
+        } catch (RuntimeException e) {
+            // Se reintentan en el siguiente catchUp
+            synchronized (this) {
+                due.forEach(start -> late.putIfAbsent(start.rentalId(), start));
+            }
+            log.warn("No se pudo marcar como alquilados los equipos {}", equipmentIds, e);
+            return 0;
+        }
+    }
+
+    synchronized int pendingCount() {
+        return slots.stream().mapToInt(Map::size).sum() + late.size();
+    }
+
+    // Se llama con el monitor tomado
+    private List<RentalStart> drain(LocalDate today) {
+        List<RentalStart> due = new ArrayList<>(late.values());
+        late.clear();
+
+        long from = lastTick.toEpochDay() + 1;
+        long to = today.toEpochDay();
+        if (to < from) {
+            return due;
+        }
+
+        // Más días que casillas: basta con recorrer la rueda una vez
+        long days = Math.min(to - from + 1, slots.size());
+        for (long day = to - days + 1; day <= to; day++) {
+            Iterator<RentalStart> it = slots.get(slot(day)).values().iterator();
+            while (it.hasNext()) {
+                RentalStart start = it.next();
+                // En la misma casilla esperan también los de vueltas posteriores
+                if (!start.startDate().isAfter(today)) {
+                    due.add(start);
+                    it.remove();
+                }
+            }
+        }
+        lastTick = today;
+        return due;
+    }
+
+    private int change(List<Long> ids, EquipmentStatus from, EquipmentStatus to) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int changed = 0;
+        for (int i = 0; i < ids.size(); i += UPDATE_CHUNK) {
+            changed += equipmentRepository.updateStatus(ids.subList(i, Math.min(i + UPDATE_CHUNK, ids.size())), from, to);
+        }
+        ids.forEach(id -> equipmentStatusFeed.record(id, from, to));
+        aggregateVersions.bump(Aggregate.EQUIPMENTS);
+        return changed;
+    }
+
+    private synchronized void add(RentalStart start) {
+        // Confirmada después del paso de su día: va con los atrasados, que no esperan a medianoche
+        if (!start.startDate().isAfter(lastTick)) {
+            late.put(start.rentalId(), start);
+        } else {
+            slots.get(slot(start.startDate().toEpochDay())).put(start.rentalId(), start);
+        }
+    }
+
+    private synchronized void remove(Long rentalId, LocalDate startDate) {
+        slots.get(slot(startDate.toEpochDay())).remove(rentalId);
+        late.remove(rentalId);
+    }
+
+    private int slot(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) slots.size());
+    }
+}
@@ -0,0 +1,116 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.export.ExportFormat;
+import com.ecorent.gestionalquileres.dto.export.PaymentExportRow;
+import com.ecorent.gestionalquileres.dto.export.RentalExportRow;
+import com.ecorent.gestionalquileres.repository.PaymentRepository;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Volcados completos de alquileres y pagos para auditoría.
+ *
+ * Las filas se leen de un cursor de la base de datos como DTO (nada queda en el
+ * contexto de persistencia) y se escriben una a una en la salida, de modo que
+ * la memoria usada no depende del número de filas exportadas.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private static final List<String> RENTAL_COLUMNS = List.of(
+            "id", "clientDni", "clientName", "equipmentId", "equipmentCode", "equipmentName",
+            "startDate", "endDate", "totalAmount", "returned");
+
+    private static final List<String> PAYMENT_COLUMNS = List.of(
+            "id", "rentalId", "clientDni", "amount", "paymentDate");
+
+    private final RentalRepository rentalRepository;
+    private final PaymentRepository paymentRepository;
+    private final ObjectMapper objectMapper;
+
+    public void exportRentals(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<RentalExportRow> rows = rentalRepository.streamForExport()) {
+            write(format, rows, RENTAL_COLUMNS, r -> new Object[]{
+                    r.id(), r.clientDni(), r.clientName(), r.equipmentId(), r.equipmentCode(),
+                    r.equipmentName(), r.startDate(), r.endDate(), r.totalAmount(), r.returned()}, out);
+        }
+    }
+
+    public void exportPayments(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<PaymentExportRow> rows = paymentRepository.streamForExport()) {
+            write(format, rows, PAYMENT_COLUMNS, p -> new Object[]{
+                    p.id(), p.rentalId(), p.clientDni(), p.amount(), p.paymentDate()}, out);
+        }
+    }
+
+    private <T> void write(ExportFormat format, Stream<T> rows, List<String> columns,
+                           Function<T, Object[]> fields, OutputStream out) throws IOException {
+        switch (format) {
+            case NDJSON -> writeNdjson(rows.iterator(), out);
+            case CSV -> writeCsv(rows.iterator(), columns, fields, out);
+        }
+    }
+
+    // Un objeto JSON por línea; el generador no cierra ni vacía la salida tras cada fila
+    private <T> void writeNdjson(Iterator<T> rows, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (rows.hasNext()) {
+                writer.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private <T> void writeCsv(Iterator<T> rows, List<String> columns,
+                              Function<T, Object[]> fields, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", columns));
+        writer.write("\r\n");
+        while (rows.hasNext()) {
+            Object[] values = fields.apply(rows.next());
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvField(values[i]));
+            }
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    // RFC 4180: se entrecomilla el campo si contiene separador, comillas o saltos de línea
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal amount ? amount.toPlainString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0
+                && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
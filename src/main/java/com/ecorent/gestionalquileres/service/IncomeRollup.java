@@ -0,0 +1,109 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.entity.DailyIncome;
+import com.ecorent.gestionalquileres.repository.DailyIncomeRepository;
+import com.ecorent.gestionalquileres.service.availability.BookingLocks;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Ingresos diarios (RF-14) agregados por fecha de inicio del alquiler.
+ *
+ * La tabla {@link DailyIncome} se actualiza dentro de la transacción de la
+ * reserva; en memoria se mantienen sus sumas acumuladas, que se actualizan al
+ * confirmar, para responder a cualquier rango con una resta exacta en céntimos.
+ * Al arrancar se cargan desde la tabla, reconstruyéndola antes desde los
+ * alquileres si está vacía o si así se configura.
+ */
+@Slf4j
+@Component
+public class IncomeRollup {
+
+    private final DailyIncomeRepository dailyIncomeRepository;
+    private final RentalRepository rentalRepository;
+    private final boolean rebuildOnStartup;
+
+    // El primer ingreso de un día inserta su fila: se serializa por día hasta el commit
+    private final BookingLocks newDayLocks;
+
+    private final DailyIncomeSums sums = new DailyIncomeSums();
+
+    private volatile boolean ready;
+
+    public IncomeRollup(DailyIncomeRepository dailyIncomeRepository,
+                        RentalRepository rentalRepository,
+                        @Value("${ecorent.booking.lock-timeout-ms:5000}") long lockTimeoutMillis,
+                        @Value("${ecorent.income.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.dailyIncomeRepository = dailyIncomeRepository;
+        this.rentalRepository = rentalRepository;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.newDayLocks = new BookingLocks(64, lockTimeoutMillis, "Operación concurrente en curso, inténtelo de nuevo");
+    }
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        ready = false;
+
+        if (rebuildOnStartup || (dailyIncomeRepository.count() == 0 && rentalRepository.count() > 0)) {
+            dailyIncomeRepository.deleteAllInBatch();
+            int days = dailyIncomeRepository.rebuildFromRentals();
+            log.info("Ingresos diarios reconstruidos desde los alquileres: {} días", days);
+        }
+
+        synchronized (sums) {
+            sums.clear();
+            for (DailyIncome income : dailyIncomeRepository.findAll()) {
+                sums.add(income.getIncomeDate().toEpochDay(), cents(income.getAmount()));
+            }
+        }
+
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // RF-14 → ingresos de los alquileres que empiezan en [start, end]
+    public BigDecimal incomeBetween(LocalDate start, LocalDate end) {
+        long total;
+        synchronized (sums) {
+            total = sums.sum(start.toEpochDay(), end.toEpochDay());
+        }
+        return BigDecimal.valueOf(total, 2);
+    }
+
+    // Se llama dentro de la transacción de la reserva
+    public void record(LocalDate day, BigDecimal amount) {
+
+        if (dailyIncomeRepository.add(day, amount) == 0) {
+            newDayLocks.lockForTransaction(day.toEpochDay());
+            // Quien tenía el cerrojo puede haber creado ya la fila del día
+            if (dailyIncomeRepository.add(day, amount) == 0) {
+                dailyIncomeRepository.save(new DailyIncome(day, amount));
+            }
+        }
+
+        long epochDay = day.toEpochDay();
+        long cents = cents(amount);
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (sums) {
+                sums.add(epochDay, cents);
+            }
+        });
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,155 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.rental.OverdueRentalResponse;
+import com.ecorent.gestionalquileres.dto.rental.RentalDue;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Alquileres vencidos (RN-04): abiertos, no devueltos, con la fecha de fin ya
+ * pasada.
+ *
+ * Los alquileres abiertos esperan en una cola de prioridad por fecha de fin,
+ * cargada al arrancar y mantenida por {@code RentalService} al confirmar cada
+ * reserva y devolución. La tarea programada ({@code ecorent.rentals.overdue.cron},
+ * poco después de medianoche) saca de la cola solo los que han vencido y los
+ * pasa a la lista de vencidos; la consulta hace lo mismo antes de responder,
+ * por si la tarea aún no ha pasado hoy. El coste depende de cuántos vencen,
+ * no del número de alquileres.
+ *
+ * Una devolución no busca en la cola: quita el alquiler de los abiertos y su
+ * entrada se descarta cuando le llega el turno.
+ */
+@Slf4j
+@Component
+public class OverdueRentals {
+
+    private static final Comparator<RentalDue> BY_END_DATE =
+            Comparator.comparing(RentalDue::endDate).thenComparing(RentalDue::rentalId);
+
+    private final RentalRepository rentalRepository;
+    private final Clock clock;
+
+    // Todo bajo el monitor de this
+    private final PriorityQueue<RentalDue> pending = new PriorityQueue<>(BY_END_DATE);
+    private final Map<Long, RentalDue> open = new HashMap<>();
+    private final TreeSet<RentalDue> overdue = new TreeSet<>(BY_END_DATE);
+
+    @Autowired
+    public OverdueRentals(RentalRepository rentalRepository) {
+        this(rentalRepository, Clock.systemDefaultZone());
+    }
+
+    OverdueRentals(RentalRepository rentalRepository, Clock clock) {
+        this.rentalRepository = rentalRepository;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        pending.clear();
+        open.clear();
+        overdue.clear();
+
+        for (RentalDue due : rentalRepository.findOpenRentalDues()) {
+            pending.add(due);
+            open.put(due.rentalId(), due);
+        }
+        sweep(LocalDate.now(clock));
+
+        log.info("Cola de vencimientos cargada: {} alquileres abiertos, {} vencidos", open.size(), overdue.size());
+    }
+
+    // Reserva recién guardada; entra en la cola al confirmar
+    public void track(Rental rental) {
+        RentalDue due = new RentalDue(
+                rental.getId(),
+                rental.getEquipment().getId(),
+                rental.getEquipment().getName(),
+                rental.getClient().getDni(),
+                rental.getClient().getName(),
+                rental.getEndDate());
+        TransactionCallbacks.afterCommit(() -> add(due));
+    }
+
+    // Devolución: deja de estar abierto (y vencido) al confirmar
+    public void release(Rental rental) {
+        Long rentalId = rental.getId();
+        TransactionCallbacks.afterCommit(() -> remove(rentalId));
+    }
+
+    @Scheduled(cron = "${ecorent.rentals.overdue.cron:0 5 0 * * *}")
+    public void sweep() {
+        int expired;
+        int total;
+        synchronized (this) {
+            expired = sweep(LocalDate.now(clock));
+            total = overdue.size();
+        }
+        if (expired > 0) {
+            log.info("{} alquileres han vencido sin devolverse; {} vencidos en total", expired, total);
+        }
+    }
+
+    // Vencidos a día de hoy, del más antiguo al más reciente
+    public synchronized List<OverdueRentalResponse> overdue() {
+        LocalDate today = LocalDate.now(clock);
+        sweep(today);
+        return overdue.stream()
+                .map(due -> new OverdueRentalResponse(
+                        due.rentalId(),
+                        due.equipmentId(),
+                        due.equipmentName(),
+                        due.clientDni(),
+                        due.clientName(),
+                        due.endDate(),
+                        ChronoUnit.DAYS.between(due.endDate(), today)))
+                .toList();
+    }
+
+    synchronized int openCount() {
+        return open.size();
+    }
+
+    // La fecha de fin es el último día del alquiler: vence al día siguiente
+    private int sweep(LocalDate today) {
+        int expired = 0;
+        while (!pending.isEmpty() && pending.peek().endDate().isBefore(today)) {
+            RentalDue due = pending.poll();
+            if (open.containsKey(due.rentalId())) {
+                overdue.add(due);
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    private synchronized void add(RentalDue due) {
+        if (open.putIfAbsent(due.rentalId(), due) == null) {
+            pending.add(due);
+        }
+    }
+
+    private synchronized void remove(Long rentalId) {
+        RentalDue due = open.remove(rentalId);
+        if (due != null) {
+            overdue.remove(due);
+        }
+    }
+}
@@ -1,45 +1,76 @@
 package com.ecorent.gestionalquileres.service;
 
+import com.ecorent.gestionalquileres.dto.payment.PaymentResponse;
 import com.ecorent.gestionalquileres.entity.Payment;
 import com.ecorent.gestionalquileres.entity.Rental;
 import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
 import com.ecorent.gestionalquileres.exception.NotFoundException;
 import com.ecorent.gestionalquileres.repository.PaymentRepository;
 import com.ecorent.gestionalquileres.repository.RentalRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+@Slf4j
 @Service
+@Timed(value = "ecorent.service", histogram = true)
 @RequiredArgsConstructor
 @Transactional
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final RentalRepository rentalRepository;
+    private final AggregateVersions aggregateVersions;
+
+    // Alquileres con pagos anteriores a la columna paidAmount
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPaidAmounts() {
+        int rentals = rentalRepository.backfillPaidAmounts();
+        if (rentals > 0) {
+            log.info("Importe pagado completado en {} alquileres", rentals);
+        }
+    }
 
     // RF-12 + RN-05
-    public Payment registerPayment(Long rentalId, BigDecimal amount) {
+    // El alquiler queda bloqueado hasta el commit: el pago y el nuevo importe pagado
+    // se escriben juntos, y la respuesta ya lleva el saldo actualizado
+    public PaymentResponse registerPayment(Long rentalId, BigDecimal amount) {
 
-        Rental rental = rentalRepository.findById(rentalId)
+        Rental rental = rentalRepository.findByIdForUpdate(rentalId)
                 .orElseThrow(() -> new NotFoundException("Alquiler no encontrado"));
 
-        BigDecimal paid = paymentRepository.sumPaymentsByRentalId(rentalId);
+        BigDecimal paid = rental.getPaidAmount().add(amount);
 
-        if (paid.add(amount).compareTo(rental.getTotalAmount()) > 0) {
-            throw new BusinessException("El pago supera el importe pendiente");
+        if (paid.compareTo(rental.getTotalAmount()) > 0) {
+            throw new BusinessException(RejectionReason.OVERPAYMENT, "El pago supera el importe pendiente");
         }
 
+        rental.setPaidAmount(paid);
+        aggregateVersions.bump(Aggregate.PAYMENTS, Aggregate.RENTALS);
+
         Payment payment = Payment.builder()
                 .rental(rental)
                 .amount(amount)
                 .paymentDate(LocalDate.now())
                 .build();
 
-        return paymentRepository.save(payment);
+        Payment saved = paymentRepository.save(payment);
+
+        return new PaymentResponse(
+                saved.getId(),
+                saved.getAmount(),
+                saved.getPaymentDate(),
+                paymentStatus(rental),
+                rental.getPaidAmount(),
+                pendingAmount(rental));
     }
 
     // RF-13
@@ -48,7 +79,12 @@ public class PaymentService {
         Rental rental = rentalRepository.findById(rentalId)
                 .orElseThrow(() -> new NotFoundException("Alquiler no encontrado"));
 
-        BigDecimal paid = paymentRepository.sumPaymentsByRentalId(rentalId);
+        return paymentStatus(rental);
+    }
+
+    private static String paymentStatus(Rental rental) {
+
+        BigDecimal paid = rental.getPaidAmount();
 
         if (paid.compareTo(BigDecimal.ZERO) == 0) {
             return "Pendiente";
@@ -58,4 +94,8 @@ public class PaymentService {
             return "Pagado completo";
         }
     }
+
+    private static BigDecimal pendingAmount(Rental rental) {
+        return rental.getTotalAmount().subtract(rental.getPaidAmount());
+    }
 }
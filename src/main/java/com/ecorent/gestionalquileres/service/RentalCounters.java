@@ -0,0 +1,88 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.entity.ClientRentalCount;
+import com.ecorent.gestionalquileres.entity.EquipmentRentalCount;
+import com.ecorent.gestionalquileres.repository.ClientRentalCountRepository;
+import com.ecorent.gestionalquileres.repository.EquipmentRentalCountRepository;
+import com.ecorent.gestionalquileres.service.availability.BookingLocks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Contadores de alquileres por equipo y por cliente para los informes RF-14.
+ *
+ * Se incrementan dentro de la transacción de la reserva, así que un rollback
+ * los deja como estaban. Equipos y clientes nuevos nacen con contador a cero;
+ * los datos anteriores a los contadores se completan al arrancar.
+ */
+@Slf4j
+@Component
+@Transactional
+public class RentalCounters {
+
+    private final EquipmentRentalCountRepository equipmentCounts;
+    private final ClientRentalCountRepository clientCounts;
+
+    // Contador de cliente ausente: una sola transacción lo crea
+    private final BookingLocks newClientLocks;
+
+    public RentalCounters(EquipmentRentalCountRepository equipmentCounts,
+                          ClientRentalCountRepository clientCounts,
+                          @Value("${ecorent.booking.lock-timeout-ms:5000}") long lockTimeoutMillis) {
+        this.equipmentCounts = equipmentCounts;
+        this.clientCounts = clientCounts;
+        this.newClientLocks = new BookingLocks(64, lockTimeoutMillis, "Operación concurrente en curso, inténtelo de nuevo");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int equipments = equipmentCounts.backfillMissing();
+        int clients = clientCounts.backfillMissing();
+        if (equipments > 0 || clients > 0) {
+            log.info("Contadores de alquileres completados: {} equipos y {} clientes", equipments, clients);
+        }
+    }
+
+    public void registerEquipment(Long equipmentId) {
+        equipmentCounts.save(new EquipmentRentalCount(equipmentId, 0));
+    }
+
+    public void registerClient(Long clientId) {
+        clientCounts.save(new ClientRentalCount(clientId, 0));
+    }
+
+    public void forgetEquipment(Long equipmentId) {
+        equipmentCounts.deleteById(equipmentId);
+    }
+
+    public void forgetClient(Long clientId) {
+        clientCounts.deleteById(clientId);
+    }
+
+    // Equipos primero y cliente después, siempre en el mismo orden, para no cruzar bloqueos de fila.
+    // Los equipos ya están bloqueados por BookingLocks, así que su alta no puede competir
+    public void recordRentals(Collection<Long> equipmentIds, Long clientId) {
+
+        if (equipmentCounts.increment(equipmentIds) < equipmentIds.size()) {
+            Set<Long> missing = new HashSet<>(equipmentIds);
+            equipmentCounts.findAllById(equipmentIds)
+                    .forEach(count -> missing.remove(count.getEquipmentId()));
+            missing.forEach(id -> equipmentCounts.save(new EquipmentRentalCount(id, 1)));
+        }
+
+        if (clientCounts.increment(clientId, equipmentIds.size()) == 0) {
+            newClientLocks.lockForTransaction(clientId);
+            if (clientCounts.increment(clientId, equipmentIds.size()) == 0) {
+                clientCounts.save(new ClientRentalCount(clientId, equipmentIds.size()));
+            }
+        }
+    }
+}
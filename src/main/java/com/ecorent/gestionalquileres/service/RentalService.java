@@ -1,50 +1,76 @@
 package com.ecorent.gestionalquileres.service;
 
+import com.ecorent.gestionalquileres.dto.rental.RentalHistoryPage;
+import com.ecorent.gestionalquileres.dto.rental.RentalResponse;
 import com.ecorent.gestionalquileres.entity.*;
 import com.ecorent.gestionalquileres.entity.EquipmentStatus;
 import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
 import com.ecorent.gestionalquileres.exception.NotFoundException;
 import com.ecorent.gestionalquileres.repository.*;
+import com.ecorent.gestionalquileres.service.availability.AvailabilityIndex;
+import com.ecorent.gestionalquileres.service.availability.BookingLocks;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
+@Timed(value = "ecorent.service", histogram = true)
 @RequiredArgsConstructor
 @Transactional
 public class RentalService {
 
+    static final int DEFAULT_HISTORY_PAGE = 50;
+    static final int MAX_HISTORY_PAGE = 500;
+
     private final RentalRepository rentalRepository;
     private final EquipmentRepository equipmentRepository;
     private final ClientRepository clientRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingLocks bookingLocks;
+    private final RentalCounters rentalCounters;
+    private final IncomeRollup incomeRollup;
+    private final EquipmentStatusFeed equipmentStatusFeed;
+    private final AggregateVersions aggregateVersions;
+    private final OverdueRentals overdueRentals;
+    private final EquipmentStatusTimer equipmentStatusTimer;
 
     // RF-07 + RN-01 + RN-02 + RN-03
     public Rental createRental(String clientDni, Long equipmentId,
                                LocalDate start, LocalDate end) {
 
         if (end.isBefore(start)) {
-            throw new BusinessException("Fecha fin no puede ser anterior a fecha inicio");
+            throw new BusinessException(RejectionReason.INVALID_DATES, "Fecha fin no puede ser anterior a fecha inicio");
         }
 
+        // RN-01 sin carreras: reservas del mismo equipo en serie hasta el commit
+        bookingLocks.lockForTransaction(equipmentId);
+
         Equipment equipment = equipmentRepository.findById(equipmentId)
                 .orElseThrow(() -> new NotFoundException("Equipo no encontrado"));
 
         if (equipment.getStatus() == EquipmentStatus.MAINTENANCE) {
-            throw new BusinessException("Equipo en mantenimiento");
+            throw new BusinessException(RejectionReason.MAINTENANCE, "Equipo en mantenimiento");
         }
 
         // RN-01 Solapamiento
-        List<Rental> overlapping =
-                rentalRepository.findByEquipmentIdAndReturnedFalseAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                        equipmentId, end, start);
-
-        if (!overlapping.isEmpty()) {
-            throw new BusinessException("Existe solapamiento de fechas");
+        if (hasOverlap(equipmentId, start, end)) {
+            throw new BusinessException(RejectionReason.OVERLAP, "Existe solapamiento de fechas");
         }
 
         Client client = clientRepository.findByDni(clientDni)
@@ -64,29 +90,192 @@ public class RentalService {
                 .returned(false)
                 .build();
 
-        equipment.setStatus(EquipmentStatus.RENTED);
+        // RF-03 → el equipo pasa a alquilado el día que empieza el alquiler
+        boolean startsLater = equipmentStatusTimer.startsLater(start);
+        if (!startsLater) {
+            equipmentStatusFeed.record(equipmentId, equipment.getStatus(), EquipmentStatus.RENTED);
+            equipment.setStatus(EquipmentStatus.RENTED);
+        }
+
+        Rental saved = rentalRepository.save(rental);
+        if (startsLater) {
+            equipmentStatusTimer.schedule(saved);
+        }
+        availabilityIndex.book(saved);
+        overdueRentals.track(saved);
+        rentalCounters.recordRentals(List.of(equipmentId), client.getId());
+        incomeRollup.record(start, total);
+        aggregateVersions.bump(Aggregate.RENTALS, Aggregate.EQUIPMENTS);
 
-        return rentalRepository.save(rental);
+        return saved;
+    }
+
+    // RF-07 en bloque: N equipos, mismo cliente y mismas fechas; todo o nada
+    public List<Rental> createRentals(String clientDni, List<Long> equipmentIds,
+                                      LocalDate start, LocalDate end) {
+
+        if (end.isBefore(start)) {
+            throw new BusinessException(RejectionReason.INVALID_DATES, "Fecha fin no puede ser anterior a fecha inicio");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(equipmentIds);
+        if (ids.size() != equipmentIds.size()) {
+            throw new BusinessException(RejectionReason.DUPLICATE_EQUIPMENT, "La reserva contiene equipos repetidos");
+        }
+
+        bookingLocks.lockForTransaction(ids);
+
+        Map<Long, Equipment> equipments = equipmentRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Equipment::getId, Function.identity()));
+
+        for (Long id : ids) {
+            Equipment equipment = equipments.get(id);
+            if (equipment == null) {
+                throw new NotFoundException("Equipo no encontrado: " + id);
+            }
+            if (equipment.getStatus() == EquipmentStatus.MAINTENANCE) {
+                throw new BusinessException(RejectionReason.MAINTENANCE, "Equipo en mantenimiento: " + id);
+            }
+        }
+
+        // RN-01 Solapamiento: una sola comprobación para todo el lote
+        Set<Long> overlapping = overlappingEquipments(ids, start, end);
+        if (!overlapping.isEmpty()) {
+            throw new BusinessException(RejectionReason.OVERLAP, "Existe solapamiento de fechas para los equipos " + overlapping);
+        }
+
+        Client client = clientRepository.findByDni(clientDni)
+                .orElseThrow(() -> new NotFoundException("Cliente no encontrado"));
+
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        boolean startsLater = equipmentStatusTimer.startsLater(start);
+
+        List<Rental> rentals = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Equipment equipment = equipments.get(id);
+            rentals.add(Rental.builder()
+                    .client(client)
+                    .equipment(equipment)
+                    .startDate(start)
+                    .endDate(end)
+                    .totalAmount(equipment.getPricePerDay().multiply(BigDecimal.valueOf(days)))
+                    .returned(false)
+                    .build());
+            if (!startsLater) {
+                equipmentStatusFeed.record(id, equipment.getStatus(), EquipmentStatus.RENTED);
+                equipment.setStatus(EquipmentStatus.RENTED);
+            }
+        }
+
+        List<Rental> saved = rentalRepository.saveAll(rentals);
+        if (startsLater) {
+            saved.forEach(equipmentStatusTimer::schedule);
+        }
+        saved.forEach(availabilityIndex::book);
+        saved.forEach(overdueRentals::track);
+        rentalCounters.recordRentals(ids, client.getId());
+        incomeRollup.record(start, saved.stream()
+                .map(Rental::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        aggregateVersions.bump(Aggregate.RENTALS, Aggregate.EQUIPMENTS);
+
+        return saved;
     }
 
     public Rental registerReturn(Long rentalId) {
 
+        Long equipmentId = rentalRepository.findEquipmentIdById(rentalId)
+                .orElseThrow(() -> new NotFoundException("Alquiler no encontrado"));
+
+        // La franja se toma antes de leer el alquiler: de dos devoluciones a la vez,
+        // la segunda lo lee ya confirmado como devuelto
+        bookingLocks.lockForTransaction(equipmentId);
+
         Rental rental = rentalRepository.findById(rentalId)
                 .orElseThrow(() -> new NotFoundException("Alquiler no encontrado"));
 
         if (rental.isReturned()) {
-            throw new BusinessException("El alquiler ya fue devuelto");
+            throw new BusinessException(RejectionReason.ALREADY_RETURNED, "El alquiler ya fue devuelto");
         }
 
         rental.setReturned(true);
-        rental.getEquipment().setStatus(EquipmentStatus.AVAILABLE);
+        availabilityIndex.release(rental);
+        if (equipmentStatusTimer.startsLater(rental.getStartDate())) {
+            // Aún no había empezado: el equipo no llegó a salir
+            equipmentStatusTimer.cancel(rental);
+        } else {
+            // Si vuelve tarde, el siguiente alquiler puede haber empezado ya: el paso de
+            // medianoche no lo marcó porque el equipo seguía alquilado, y sigue fuera
+            Equipment equipment = rental.getEquipment();
+            EquipmentStatus status = hasOverlap(equipment.getId(), LocalDate.EPOCH, equipmentStatusTimer.today())
+                    ? EquipmentStatus.RENTED
+                    : EquipmentStatus.AVAILABLE;
+            equipmentStatusFeed.record(equipment.getId(), equipment.getStatus(), status);
+            equipment.setStatus(status);
+        }
+        overdueRentals.release(rental);
+        aggregateVersions.bump(Aggregate.RENTALS, Aggregate.EQUIPMENTS);
 
         return rental;
     }
 
+    // RN-01 → índice en memoria; la consulta queda como respaldo mientras
+    // el índice no está cargado o como verificación si así se configura
+    private boolean hasOverlap(Long equipmentId, LocalDate start, LocalDate end) {
+
+        if (!availabilityIndex.isReady()) {
+            return queryOverlap(equipmentId, start, end);
+        }
+
+        boolean indexed = availabilityIndex.overlaps(equipmentId, start, end);
+
+        if (availabilityIndex.isVerifyWithQuery()) {
+            boolean queried = queryOverlap(equipmentId, start, end);
+            if (queried != indexed) {
+                log.warn("Índice de disponibilidad desincronizado para el equipo {} ({} - {})",
+                        equipmentId, start, end);
+                return queried;
+            }
+        }
+
+        return indexed;
+    }
+
+    private Set<Long> overlappingEquipments(Set<Long> ids, LocalDate start, LocalDate end) {
+
+        if (!availabilityIndex.isReady() || availabilityIndex.isVerifyWithQuery()) {
+            return rentalRepository.findBookedEquipmentIdsBetween(ids, start, end);
+        }
+
+        return ids.stream()
+                .filter(id -> availabilityIndex.overlaps(id, start, end))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private boolean queryOverlap(Long equipmentId, LocalDate start, LocalDate end) {
+        return !rentalRepository
+                .findByEquipmentIdAndReturnedFalseAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                        equipmentId, end, start)
+                .isEmpty();
+    }
+
+
+    // RF-06 → página de historial a partir del cursor (último id recibido)
+    @Transactional(readOnly = true)
+    public RentalHistoryPage getClientHistory(String dni, Long after, Integer limit) {
+
+        int size = limit == null ? DEFAULT_HISTORY_PAGE : Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE);
+        long cursor = after == null ? 0L : after;
+
+        // Se pide una fila de más para saber si hay página siguiente
+        List<RentalResponse> rows = rentalRepository.findHistoryPage(dni, cursor, Limit.of(size + 1));
+
+        if (rows.size() <= size) {
+            return new RentalHistoryPage(rows, null);
+        }
 
-    // RF-06
-    public List<Rental> getClientHistory(String dni) {
-        return rentalRepository.findByClientDni(dni);
+        List<RentalResponse> page = rows.subList(0, size);
+        return new RentalHistoryPage(List.copyOf(page), page.get(size - 1).id());
     }
 }
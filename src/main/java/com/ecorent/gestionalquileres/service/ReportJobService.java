@@ -0,0 +1,189 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.report.IncomeReportResponse;
+import com.ecorent.gestionalquileres.dto.report.ReportJobRequest;
+import com.ecorent.gestionalquileres.dto.report.ReportJobResponse;
+import com.ecorent.gestionalquileres.dto.report.ReportJobStatus;
+import com.ecorent.gestionalquileres.dto.report.ReportType;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.NotFoundException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Informes en segundo plano: la petición solo encola el trabajo y devuelve su
+ * id, y el resultado se consulta después.
+ *
+ * Los trabajos corren en un pool fijo con cola acotada, fuera de los hilos de
+ * Tomcat. Cada tipo de informe admite un máximo de trabajos a la vez (en cola o
+ * en ejecución), así un tipo lento no acapara el pool. Los resultados
+ * terminados se conservan durante {@code ecorent.reports.jobs.result-ttl} y
+ * después se descartan.
+ */
+@Slf4j
+@Service
+public class ReportJobService {
+
+    private final ReportService reportService;
+    private final ThreadPoolExecutor executor;
+    private final Map<ReportType, Semaphore> slots = new EnumMap<>(ReportType.class);
+    private final Map<UUID, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final int maxPerType;
+    private final Duration resultTtl;
+    private final Clock clock;
+
+    @Autowired
+    public ReportJobService(ReportService reportService,
+                            @Value("${ecorent.reports.jobs.threads:4}") int threads,
+                            @Value("${ecorent.reports.jobs.queue-capacity:100}") int queueCapacity,
+                            @Value("${ecorent.reports.jobs.max-per-type:2}") int maxPerType,
+                            @Value("${ecorent.reports.jobs.result-ttl:PT15M}") Duration resultTtl) {
+        this(reportService, threads, queueCapacity, maxPerType, resultTtl, Clock.systemUTC());
+    }
+
+    ReportJobService(ReportService reportService, int threads, int queueCapacity,
+                     int maxPerType, Duration resultTtl, Clock clock) {
+        this.reportService = reportService;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("report-job-"));
+        for (ReportType type : ReportType.values()) {
+            slots.put(type, new Semaphore(maxPerType));
+        }
+        this.maxPerType = maxPerType;
+        this.resultTtl = resultTtl;
+        this.clock = clock;
+    }
+
+    public ReportJobResponse submit(ReportJobRequest request) {
+
+        purgeExpired();
+
+        // Los errores de parámetros se devuelven ya, no al consultar el trabajo
+        if (request.type() == ReportType.INCOME) {
+            if (request.start() == null || request.end() == null) {
+                throw new BusinessException(RejectionReason.INVALID_DATES, "El informe de ingresos necesita fecha inicio y fecha fin");
+            }
+            if (request.end().isBefore(request.start())) {
+                throw new BusinessException(RejectionReason.INVALID_DATES, "Fecha fin no puede ser anterior a fecha inicio");
+            }
+        }
+
+        Semaphore slot = slots.get(request.type());
+        if (!slot.tryAcquire()) {
+            throw new BusinessException(RejectionReason.TOO_MANY_REPORT_JOBS,
+                    "Ya hay " + maxPerType + " informes " + request.type() + " en curso, inténtelo más tarde");
+        }
+
+        ReportJob job = new ReportJob(UUID.randomUUID(), request.type(), clock.instant());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, request, slot));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            slot.release();
+            throw new BusinessException(RejectionReason.TOO_MANY_REPORT_JOBS, "La cola de informes está llena, inténtelo más tarde");
+        }
+
+        return job.toResponse();
+    }
+
+    public ReportJobResponse getJob(UUID id) {
+
+        purgeExpired();
+
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new NotFoundException("Informe no encontrado o caducado");
+        }
+        return job.toResponse();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ReportJob job, ReportJobRequest request, Semaphore slot) {
+        ReportJobStatus status = ReportJobStatus.FAILED;
+        Object result = null;
+        String error;
+        try {
+            job.status = ReportJobStatus.RUNNING;
+            result = compute(request);
+            status = ReportJobStatus.DONE;
+            error = null;
+        } catch (BusinessException e) {
+            error = e.getMessage();
+        } catch (RuntimeException e) {
+            log.error("Error en el informe {} ({})", job.id, job.type, e);
+            error = "Ha ocurrido un error inesperado";
+        } finally {
+            // Antes de publicar el resultado: quien lo vea terminado ya puede encolar otro
+            slot.release();
+        }
+        job.finish(status, result, error, clock.instant());
+    }
+
+    private Object compute(ReportJobRequest request) {
+        return switch (request.type()) {
+            case INCOME -> new IncomeReportResponse(request.start(), request.end(),
+                    reportService.getIncomeBetween(request.start(), request.end()));
+            case TOP_EQUIPMENTS -> reportService.getTopRentedEquipments(request.limit());
+            case TOP_CLIENTS -> reportService.getTopClients(request.limit());
+        };
+    }
+
+    private void purgeExpired() {
+        Instant oldest = clock.instant().minus(resultTtl);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(oldest));
+    }
+
+    // Estado de un trabajo; lo escribe el hilo del pool y lo leen las peticiones
+    private static final class ReportJob {
+
+        private final UUID id;
+        private final ReportType type;
+        private final Instant submittedAt;
+        private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+        private volatile Object result;
+        private volatile String error;
+        private volatile Instant finishedAt;
+
+        ReportJob(UUID id, ReportType type, Instant submittedAt) {
+            this.id = id;
+            this.type = type;
+            this.submittedAt = submittedAt;
+        }
+
+        // El estado se escribe el último: quien lee DONE o FAILED ya ve el resultado
+        void finish(ReportJobStatus status, Object result, String error, Instant finishedAt) {
+            this.result = result;
+            this.error = error;
+            this.finishedAt = finishedAt;
+            this.status = status;
+        }
+
+        ReportJobResponse toResponse() {
+            ReportJobStatus current = status;
+            return new ReportJobResponse(id, type, current, submittedAt, finishedAt, result, error);
+        }
+    }
+}
@@ -1,31 +1,56 @@
 package com.ecorent.gestionalquileres.service;
 
-import com.ecorent.gestionalquileres.entity.Client;
-import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.dto.report.TopClientResponse;
+import com.ecorent.gestionalquileres.dto.report.TopEquipmentResponse;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
 import com.ecorent.gestionalquileres.repository.*;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
 @Service
+@Timed(value = "ecorent.service", histogram = true)
 @RequiredArgsConstructor
 public class ReportService {
 
-    private final EquipmentRepository equipmentRepository;
-    private final ClientRepository clientRepository;
+    static final int DEFAULT_TOP = 10;
+    static final int MAX_TOP = 100;
+
+    private final EquipmentRentalCountRepository equipmentRentalCountRepository;
+    private final ClientRentalCountRepository clientRentalCountRepository;
     private final RentalRepository rentalRepository;
+    private final IncomeRollup incomeRollup;
+
+    // RF-14 → top N desde los contadores: no depende del número de alquileres
+    public List<TopEquipmentResponse> getTopRentedEquipments(Integer limit) {
+        return equipmentRentalCountRepository.findTop(top(limit));
+    }
+
+    // RF-14 → acumulado diario en memoria; la consulta solo mientras no está cargado
+    public BigDecimal getIncomeBetween(LocalDate start, LocalDate end) {
+
+        if (end.isBefore(start)) {
+            throw new BusinessException(RejectionReason.INVALID_DATES, "Fecha fin no puede ser anterior a fecha inicio");
+        }
+
+        if (!incomeRollup.isReady()) {
+            return rentalRepository.sumIncomeStartingBetween(start, end);
+        }
 
-    public List<Equipment> getTopRentedEquipments() {
-        return equipmentRepository.findTopRentedEquipments();
+        return incomeRollup.incomeBetween(start, end);
     }
 
-    public Double getIncomeBetween(LocalDate start, LocalDate end) {
-        return rentalRepository.calculateIncomeBetween(start, end);
+    public List<TopClientResponse> getTopClients(Integer limit) {
+        return clientRentalCountRepository.findTop(top(limit));
     }
 
-    public List<Client> getTopClients() {
-        return clientRepository.findTopClients();
+    private static Limit top(Integer limit) {
+        return Limit.of(limit == null ? DEFAULT_TOP : Math.min(Math.max(limit, 1), MAX_TOP));
     }
 }
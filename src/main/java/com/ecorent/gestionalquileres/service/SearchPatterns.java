@@ -0,0 +1,25 @@
+package com.ecorent.gestionalquileres.service;
+
+import java.util.Locale;
+
+final class SearchPatterns {
+
+    private SearchPatterns() {
+    }
+
+    // Prefijo → patrón LIKE en minúsculas con los comodines escapados ('\' como escape)
+    static String startsWith(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        String escaped = prefix.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return escaped + "%";
+    }
+
+    static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
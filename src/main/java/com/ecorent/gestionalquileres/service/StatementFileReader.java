@@ -0,0 +1,250 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.payment.StatementFormat;
+import com.ecorent.gestionalquileres.dto.payment.StatementLineIssue;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Líneas de un extracto bancario leídas directamente de sus bytes (el fichero
+ * proyectado en memoria por {@link StatementReconciliationService}).
+ *
+ * Ancho fijo, al estilo del cuaderno 43: fecha valor {@code yyyyMMdd}
+ * (columnas 1-8), referencia (9-28, rellena con espacios) e importe en
+ * céntimos con ceros a la izquierda (29-42); el resto de la línea se ignora.
+ * Se lee en ISO-8859-1 y los números se convierten sin pasar por String.
+ *
+ * CSV en UTF-8 con cabecera: columnas reference y amount, y date (ISO)
+ * opcional, en cualquier orden. Un registro por línea: las exportaciones de
+ * los bancos no parten campos en varias líneas.
+ */
+final class StatementFileReader {
+
+    static final int DATE_END = 8;
+    static final int REFERENCE_END = 28;
+    static final int AMOUNT_END = 42;
+
+    static final String RENTAL_PREFIX = "ALQ-";
+
+    record StatementLine(long row, String reference, Long rentalId, BigDecimal amount, LocalDate date) {
+    }
+
+    record Result(List<StatementLine> lines, List<StatementLineIssue> invalid) {
+    }
+
+    private final ByteBuffer buffer;
+    private final List<StatementLine> lines = new ArrayList<>();
+    private final List<StatementLineIssue> invalid = new ArrayList<>();
+    private int position;
+    private int lineStart;
+    private int lineEnd;
+    private long row;
+
+    StatementFileReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    Result read(StatementFormat format) throws IOException {
+        switch (format) {
+            case CSV -> readCsv();
+            case FIXED -> readFixed();
+        }
+        return new Result(lines, invalid);
+    }
+
+    // Avanza a la siguiente línea no vacía, sin el fin de línea
+    private boolean nextLine() {
+        while (position < buffer.limit()) {
+            lineStart = position;
+            while (position < buffer.limit() && buffer.get(position) != '\n') {
+                position++;
+            }
+            lineEnd = position;
+            if (position < buffer.limit()) {
+                position++;
+            }
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            row++;
+            if (!isBlank(lineStart, lineEnd)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) != ' ' && buffer.get(i) != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---------- ancho fijo ----------
+
+    private void readFixed() {
+        while (nextLine()) {
+            int length = lineEnd - lineStart;
+            if (length < AMOUNT_END) {
+                invalid(null, null, "Línea de " + length + " caracteres; se esperan al menos " + AMOUNT_END);
+                continue;
+            }
+
+            String reference = text(lineStart + DATE_END, lineStart + REFERENCE_END);
+            long cents = digits(lineStart + REFERENCE_END, lineStart + AMOUNT_END);
+            if (cents < 0) {
+                invalid(reference, null, "Importe no numérico");
+                continue;
+            }
+            BigDecimal amount = BigDecimal.valueOf(cents, 2);
+
+            long date = digits(lineStart, lineStart + DATE_END);
+            LocalDate valueDate;
+            try {
+                valueDate = date < 0 ? null : LocalDate.of((int) (date / 10000), (int) (date / 100 % 100), (int) (date % 100));
+            } catch (DateTimeException e) {
+                valueDate = null;
+            }
+            if (valueDate == null) {
+                invalid(reference, amount, "Fecha valor no válida");
+                continue;
+            }
+
+            accept(reference, amount, valueDate);
+        }
+    }
+
+    private String text(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1).trim();
+    }
+
+    // -1 si hay algo que no es un dígito
+    private long digits(int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // ---------- CSV ----------
+
+    private void readCsv() throws IOException {
+
+        if (!nextLine()) {
+            throw new BusinessException(RejectionReason.INVALID_IMPORT_FILE, "El extracto no tiene cabecera");
+        }
+        List<String> header = csvRecord();
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        Integer referenceColumn = positions.get("reference");
+        Integer amountColumn = positions.get("amount");
+        Integer dateColumn = positions.get("date");
+        if (referenceColumn == null || amountColumn == null) {
+            throw new BusinessException(RejectionReason.INVALID_IMPORT_FILE,
+                    "La cabecera del extracto debe tener las columnas reference y amount (y date opcional)");
+        }
+
+        while (nextLine()) {
+            List<String> record;
+            try {
+                record = csvRecord();
+            } catch (CsvRecordReader.MalformedRecordException e) {
+                invalid(null, null, e.getMessage());
+                continue;
+            }
+            if (record.size() != header.size()) {
+                invalid(null, null, "Se esperaban " + header.size() + " columnas y hay " + record.size());
+                continue;
+            }
+
+            String reference = record.get(referenceColumn).trim();
+            BigDecimal amount;
+            try {
+                // Coma decimal si no hay punto: "12,50" entre comillas
+                String value = record.get(amountColumn).trim();
+                amount = new BigDecimal(value.indexOf('.') < 0 ? value.replace(',', '.') : value);
+            } catch (NumberFormatException e) {
+                invalid(reference, null, "Importe no numérico");
+                continue;
+            }
+
+            LocalDate date = null;
+            if (dateColumn != null && !record.get(dateColumn).isBlank()) {
+                try {
+                    date = LocalDate.parse(record.get(dateColumn).trim());
+                } catch (DateTimeParseException e) {
+                    invalid(reference, amount, "Fecha no válida (se espera yyyy-MM-dd)");
+                    continue;
+                }
+            }
+
+            accept(reference, amount, date);
+        }
+    }
+
+    private List<String> csvRecord() throws IOException {
+        byte[] bytes = new byte[lineEnd - lineStart];
+        buffer.get(lineStart, bytes);
+        return new CsvRecordReader(new StringReader(new String(bytes, StandardCharsets.UTF_8))).next();
+    }
+
+    // ---------- comunes ----------
+
+    private void accept(String reference, BigDecimal amount, LocalDate date) {
+        if (amount.signum() <= 0) {
+            invalid(reference, amount, "Solo se concilian abonos (importe positivo)");
+            return;
+        }
+        lines.add(new StatementLine(row, reference, rentalId(reference), amount, date));
+    }
+
+    private void invalid(String reference, BigDecimal amount, String message) {
+        invalid.add(new StatementLineIssue(row, reference, amount, message));
+    }
+
+    // La referencia es el id del alquiler, solo o con el prefijo: "ALQ-000123", "123".
+    // Cualquier otra cosa no se concilia aunque acabe en cifras ("Factura 2026",
+    // "Nómina 3"): pagaría un alquiler que no tiene nada que ver
+    static Long rentalId(String reference) {
+        int start = reference.regionMatches(true, 0, RENTAL_PREFIX, 0, RENTAL_PREFIX.length())
+                ? RENTAL_PREFIX.length()
+                : 0;
+        int end = reference.length();
+        // Más de 18 cifras no cabe en un long: no es un id
+        if (start == end || end - start > 18) {
+            return null;
+        }
+        for (int i = start; i < end; i++) {
+            if (reference.charAt(i) < '0' || reference.charAt(i) > '9') {
+                return null;
+            }
+        }
+        return Long.parseLong(reference, start, end, 10);
+    }
+}
@@ -0,0 +1,174 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.payment.RentalBalance;
+import com.ecorent.gestionalquileres.dto.payment.StatementFormat;
+import com.ecorent.gestionalquileres.dto.payment.StatementLineIssue;
+import com.ecorent.gestionalquileres.dto.payment.StatementReconciliationResponse;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.ecorent.gestionalquileres.service.StatementFileReader.StatementLine;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Conciliación de un extracto bancario (RF-12 + RN-05 en bloque).
+ *
+ * El extracto se vuelca a un fichero temporal y se lee proyectado en memoria,
+ * sin copiarlo al heap. Después, en una sola transacción: se bloquean de una
+ * vez los alquileres referenciados, se validan los saldos en memoria línea a
+ * línea en el orden del extracto, y los pagos y los nuevos importes pagados se
+ * escriben con JDBC por lotes. Las líneas sin alquiler y las que superarían el
+ * importe pendiente no se aplican y vuelven en el informe.
+ */
+@Slf4j
+@Service
+@Timed(value = "ecorent.service", histogram = true)
+public class StatementReconciliationService {
+
+    // Ids por consulta de bloqueo: mantiene acotada la lista IN
+    static final int LOCK_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RentalRepository rentalRepository;
+    private final AggregateVersions aggregateVersions;
+
+    public StatementReconciliationService(JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          RentalRepository rentalRepository,
+                                          AggregateVersions aggregateVersions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rentalRepository = rentalRepository;
+        this.aggregateVersions = aggregateVersions;
+    }
+
+    public StatementReconciliationResponse reconcile(StatementFormat format, InputStream in) throws IOException {
+
+        Path file = Files.createTempFile("ecorent-statement-", ".tmp");
+        try {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            StatementFileReader.Result parsed = read(format, file);
+            StatementReconciliationResponse response = transactionTemplate.execute(status -> apply(parsed));
+            log.info("Extracto conciliado: {} pagos aplicados ({}), {} sin alquiler, {} con exceso, {} no válidas",
+                    response.applied(), response.appliedAmount(), response.unmatched().size(),
+                    response.overpayments().size(), response.invalid().size());
+            return response;
+        } finally {
+            deleteTempFile(file);
+        }
+    }
+
+    // Ni un fallo al borrar puede ocultar una conciliación ya confirmada: el cliente
+    // recibiría un error y, al reintentar, aplicaría los pagos dos veces. En Windows
+    // el fichero sigue proyectado hasta que se recoge el buffer y no se deja borrar
+    private static void deleteTempFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo borrar el extracto temporal {}; se borrará al salir", file, e);
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private static StatementFileReader.Result read(StatementFormat format, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new BusinessException(RejectionReason.INVALID_IMPORT_FILE, "El extracto está vacío");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new BusinessException(RejectionReason.INVALID_IMPORT_FILE, "El extracto supera los 2 GB");
+            }
+            // La proyección sigue siendo válida al cerrar el canal
+            return new StatementFileReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size)).read(format);
+        }
+    }
+
+    private StatementReconciliationResponse apply(StatementFileReader.Result parsed) {
+
+        List<Long> rentalIds = parsed.lines().stream()
+                .map(StatementLine::rentalId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+
+        // En orden de id, para que dos conciliaciones a la vez no se bloqueen en cruz
+        Map<Long, RentalBalance> balances = new HashMap<>();
+        for (int from = 0; from < rentalIds.size(); from += LOCK_CHUNK) {
+            rentalRepository.findBalancesForUpdate(rentalIds.subList(from, Math.min(from + LOCK_CHUNK, rentalIds.size())))
+                    .forEach(balance -> balances.put(balance.rentalId(), balance));
+        }
+
+        List<StatementLine> payments = new ArrayList<>();
+        Map<Long, BigDecimal> paidAmounts = new LinkedHashMap<>();
+        List<StatementLineIssue> unmatched = new ArrayList<>();
+        List<StatementLineIssue> overpayments = new ArrayList<>();
+        BigDecimal appliedAmount = BigDecimal.ZERO;
+
+        for (StatementLine line : parsed.lines()) {
+
+            RentalBalance balance = line.rentalId() == null ? null : balances.get(line.rentalId());
+            if (balance == null) {
+                unmatched.add(issue(line, "Ningún alquiler con esa referencia"));
+                continue;
+            }
+            if (line.amount().compareTo(balance.pendingAmount()) > 0) {
+                overpayments.add(issue(line, "El pago supera el importe pendiente (" + balance.pendingAmount() + ")"));
+                continue;
+            }
+
+            balance = balance.pay(line.amount());
+            balances.put(balance.rentalId(), balance);
+            paidAmounts.put(balance.rentalId(), balance.paidAmount());
+            payments.add(line);
+            appliedAmount = appliedAmount.add(line.amount());
+        }
+
+        if (!payments.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            jdbcTemplate.batchUpdate("INSERT INTO payment (rental_id, amount, payment_date) VALUES (?, ?, ?)",
+                    payments, payments.size(), (ps, line) -> {
+                        ps.setLong(1, line.rentalId());
+                        ps.setBigDecimal(2, line.amount());
+                        ps.setDate(3, Date.valueOf(line.date() != null ? line.date() : today));
+                    });
+            jdbcTemplate.batchUpdate("UPDATE rental SET paid_amount = ? WHERE id = ?",
+                    List.copyOf(paidAmounts.entrySet()), paidAmounts.size(), (ps, paid) -> {
+                        ps.setBigDecimal(1, paid.getValue());
+                        ps.setLong(2, paid.getKey());
+                    });
+            aggregateVersions.bump(Aggregate.PAYMENTS, Aggregate.RENTALS);
+        }
+
+        return new StatementReconciliationResponse(
+                payments.size(), appliedAmount, unmatched, overpayments, parsed.invalid());
+    }
+
+    private static StatementLineIssue issue(StatementLine line, String message) {
+        return new StatementLineIssue(line.row(), line.reference(), line.amount(), message);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecorent.gestionalquileres.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Acciones sobre el estado en memoria que solo deben verse si la transacción
+ * confirma: contadores, índices, ruedas y eventos se actualizan al hacer commit
+ * y un rollback no deja rastro. Fuera de una transacción se ejecutan ya.
+ */
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+import com.ecorent.gestionalquileres.dto.rental.RentalPeriod;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Índice en memoria de los alquileres abiertos (no devueltos) por equipo,
+ * usado por RN-01 para decidir el solapamiento sin consultar la base de datos
+ * y por la búsqueda de equipos disponibles en un rango de fechas.
+ *
+ * Se construye al arrancar la aplicación y lo mantienen al día
+ * {@code RentalService.createRental} y {@code RentalService.registerReturn}.
+ * Mientras no esté listo, el servicio recurre a la consulta de solapamiento.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AvailabilityIndex {
+
+    private final RentalRepository rentalRepository;
+
+    private final Map<Long, EquipmentSchedule> byEquipment = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @Value("${ecorent.availability.verify-with-query:false}")
+    private boolean verifyWithQuery;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        ready = false;
+        byEquipment.clear();
+
+        int loaded = 0;
+        for (RentalPeriod period : rentalRepository.findOpenRentalPeriods()) {
+            add(period.equipmentId(), period.rentalId(), period.startDate(), period.endDate());
+            loaded++;
+        }
+
+        ready = true;
+        log.info("Índice de disponibilidad cargado: {} alquileres abiertos en {} equipos",
+                loaded, byEquipment.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isVerifyWithQuery() {
+        return verifyWithQuery;
+    }
+
+    // RN-01 → ¿hay algún alquiler abierto del equipo que corte [start, end]?
+    public boolean overlaps(Long equipmentId, LocalDate start, LocalDate end) {
+        EquipmentSchedule schedule = byEquipment.get(equipmentId);
+        return schedule != null && schedule.overlaps(start.toEpochDay(), end.toEpochDay());
+    }
+
+    // Predicado "libre en [start, end]": la máscara del rango se calcula una vez
+    // y cada equipo se resuelve con un AND por palabra de 64 días
+    public Predicate<Long> freeBetween(LocalDate start, LocalDate end) {
+        BookedDays.Mask mask = BookedDays.Mask.of(start.toEpochDay(), end.toEpochDay());
+        return equipmentId -> {
+            EquipmentSchedule schedule = byEquipment.get(equipmentId);
+            return schedule == null || schedule.isFree(mask);
+        };
+    }
+
+    // Alta de un alquiler recién guardado; se deshace si la transacción no confirma
+    public void book(Rental rental) {
+        Long equipmentId = rental.getEquipment().getId();
+        add(equipmentId, rental.getId(), rental.getStartDate(), rental.getEndDate());
+        onRollback(() -> remove(equipmentId, rental.getId(), rental.getStartDate(), rental.getEndDate()));
+    }
+
+    // Devolución: el intervalo deja de bloquear el equipo; se restaura si hay rollback
+    public void release(Rental rental) {
+        Long equipmentId = rental.getEquipment().getId();
+        remove(equipmentId, rental.getId(), rental.getStartDate(), rental.getEndDate());
+        onRollback(() -> add(equipmentId, rental.getId(), rental.getStartDate(), rental.getEndDate()));
+    }
+
+    private void add(Long equipmentId, Long rentalId, LocalDate start, LocalDate end) {
+        byEquipment.computeIfAbsent(equipmentId, id -> new EquipmentSchedule())
+                .add(rentalId, start.toEpochDay(), end.toEpochDay());
+    }
+
+    private void remove(Long equipmentId, Long rentalId, LocalDate start, LocalDate end) {
+        EquipmentSchedule schedule = byEquipment.get(equipmentId);
+        if (schedule != null) {
+            schedule.remove(rentalId, start.toEpochDay(), end.toEpochDay());
+        }
+    }
+
+    private static void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+/**
+ * Calendario de días ocupados de un equipo como bitset de días epoch:
+ * el bit {@code d mod 64} de la palabra {@code floor(d / 64)} indica si el día d
+ * está reservado. Solo guarda las palabras entre el primer y el último día marcado.
+ *
+ * No es thread-safe: {@link AvailabilityIndex} sincroniza el acceso.
+ */
+class BookedDays {
+
+    /** Máscara de un rango de días, calculada una vez por búsqueda y reutilizada para toda la flota. */
+    record Mask(long firstWord, long[] bits) {
+
+        static Mask of(long fromDay, long toDay) {
+            long firstWord = Math.floorDiv(fromDay, 64);
+            long lastWord = Math.floorDiv(toDay, 64);
+            long[] bits = new long[(int) (lastWord - firstWord + 1)];
+            for (long word = firstWord; word <= lastWord; word++) {
+                bits[(int) (word - firstWord)] = wordBits(word, fromDay, toDay);
+            }
+            return new Mask(firstWord, bits);
+        }
+    }
+
+    private long baseWord;
+    private long[] words = new long[0];
+
+    void set(long fromDay, long toDay) {
+        long firstWord = Math.floorDiv(fromDay, 64);
+        long lastWord = Math.floorDiv(toDay, 64);
+        ensureCapacity(firstWord, lastWord);
+        for (long word = firstWord; word <= lastWord; word++) {
+            words[(int) (word - baseWord)] |= wordBits(word, fromDay, toDay);
+        }
+    }
+
+    void clear(long fromDay, long toDay) {
+        long firstWord = Math.max(Math.floorDiv(fromDay, 64), baseWord);
+        long lastWord = Math.min(Math.floorDiv(toDay, 64), baseWord + words.length - 1);
+        for (long word = firstWord; word <= lastWord; word++) {
+            words[(int) (word - baseWord)] &= ~wordBits(word, fromDay, toDay);
+        }
+    }
+
+    // AND palabra a palabra contra la máscara: ningún bit común = libre
+    boolean isFree(Mask mask) {
+        long[] bits = mask.bits();
+        for (int i = 0; i < bits.length; i++) {
+            long index = mask.firstWord() + i - baseWord;
+            if (index >= 0 && index < words.length && (words[(int) index] & bits[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(long firstWord, long lastWord) {
+        if (words.length == 0) {
+            baseWord = firstWord;
+            words = new long[(int) (lastWord - firstWord + 1)];
+            return;
+        }
+        long newBase = Math.min(baseWord, firstWord);
+        long newLast = Math.max(baseWord + words.length - 1, lastWord);
+        if (newBase == baseWord && newLast == baseWord + words.length - 1) {
+            return;
+        }
+        long[] grown = new long[(int) (newLast - newBase + 1)];
+        System.arraycopy(words, 0, grown, (int) (baseWord - newBase), words.length);
+        baseWord = newBase;
+        words = grown;
+    }
+
+    // Bits de la palabra {@code word} que caen dentro de [fromDay, toDay]
+    private static long wordBits(long word, long fromDay, long toDay) {
+        int low = word == Math.floorDiv(fromDay, 64) ? (int) Math.floorMod(fromDay, 64) : 0;
+        int high = word == Math.floorDiv(toDay, 64) ? (int) Math.floorMod(toDay, 64) : 63;
+        return (-1L >>> (63 - (high - low))) << low;
+    }
+}
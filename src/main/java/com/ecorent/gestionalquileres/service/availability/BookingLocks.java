@@ -0,0 +1,113 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cerrojos de reserva repartidos en franjas por id de equipo (lock striping).
+ *
+ * RN-01 es un "comprobar y después insertar": dos reservas simultáneas del mismo
+ * equipo podrían pasar ambas la comprobación. El cerrojo de la franja del equipo
+ * se toma antes de comprobar y se libera al terminar la transacción (commit o
+ * rollback), de modo que solo se serializan las reservas que comparten franja;
+ * las de equipos distintos siguen en paralelo salvo colisión de franja.
+ *
+ * El bean de Spring protege las reservas. Otros servicios crean su propio
+ * juego de franjas con el constructor de tres argumentos para serializar por
+ * otra clave (la primera fila de un día o de un cliente) sin compartir
+ * cerrojos con las reservas.
+ */
+@Component
+public class BookingLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+    private final String busyMessage;
+
+    @Autowired
+    public BookingLocks(@Value("${ecorent.booking.lock-stripes:64}") int stripeCount,
+                        @Value("${ecorent.booking.lock-timeout-ms:5000}") long timeoutMillis) {
+        this(stripeCount, timeoutMillis, "El equipo tiene otra reserva en curso, inténtelo de nuevo");
+    }
+
+    // busyMessage: el error de negocio si el cerrojo no llega a tiempo
+    public BookingLocks(int stripeCount, long timeoutMillis, String busyMessage) {
+        this.busyMessage = busyMessage;
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    int stripeOf(Long key) {
+        int h = Long.hashCode(key);
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    // Bloquea el equipo hasta que termine la transacción en curso
+    public void lockForTransaction(Long equipmentId) {
+        lockForTransaction(List.of(equipmentId));
+    }
+
+    // Varias franjas siempre en orden ascendente para no provocar interbloqueos
+    public void lockForTransaction(Collection<Long> equipmentIds) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El bloqueo de reservas requiere una transacción activa");
+        }
+
+        TreeSet<Integer> ordered = new TreeSet<>();
+        for (Long equipmentId : equipmentIds) {
+            ordered.add(stripeOf(equipmentId));
+        }
+
+        List<ReentrantLock> acquired = new ArrayList<>(ordered.size());
+        try {
+            for (int index : ordered) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new BusinessException(RejectionReason.CONCURRENT_OPERATION, busyMessage);
+                }
+                acquired.add(lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unlock(acquired);
+            throw new BusinessException(RejectionReason.INTERRUPTED, "Reserva interrumpida");
+        } catch (RuntimeException e) {
+            unlock(acquired);
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlock(acquired);
+            }
+        });
+    }
+
+    private static void unlock(List<ReentrantLock> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+/**
+ * Agenda de alquileres abiertos de un equipo: el árbol de intervalos resuelve
+ * RN-01 y el bitset de días ocupados responde a la búsqueda de disponibilidad
+ * de toda la flota. Ambos se modifican siempre juntos bajo el mismo monitor.
+ */
+class EquipmentSchedule {
+
+    private final IntervalTree intervals = new IntervalTree();
+    private final BookedDays bookedDays = new BookedDays();
+
+    synchronized void add(long rentalId, long startDay, long endDay) {
+        intervals.insert(startDay, endDay, rentalId);
+        bookedDays.set(startDay, endDay);
+    }
+
+    synchronized void remove(long rentalId, long startDay, long endDay) {
+        if (!intervals.remove(startDay, rentalId)) {
+            return;
+        }
+        // Otro alquiler abierto (histórico) puede compartir días con el liberado
+        bookedDays.clear(startDay, endDay);
+        intervals.forEachOverlapping(startDay, endDay, (start, end) ->
+                bookedDays.set(Math.max(start, startDay), Math.min(end, endDay)));
+    }
+
+    synchronized boolean overlaps(long startDay, long endDay) {
+        return intervals.overlaps(startDay, endDay);
+    }
+
+    synchronized boolean isFree(BookedDays.Mask mask) {
+        return bookedDays.isFree(mask);
+    }
+}
@@ -0,0 +1,190 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+/**
+ * Árbol de intervalos (AVL aumentado con el fin máximo de cada subárbol)
+ * sobre días epoch cerrados [start, end]. Cada intervalo se identifica por
+ * el id del alquiler que lo ocupa.
+ *
+ * No es thread-safe: {@link AvailabilityIndex} sincroniza el acceso.
+ */
+class IntervalTree {
+
+    @FunctionalInterface
+    interface IntervalConsumer {
+        void accept(long start, long end);
+    }
+
+    private static final class Node {
+
+        final long start;
+        final long end;
+        final long id;
+
+        long maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(long start, long end, long id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void insert(long start, long end, long id) {
+        if (end < start) {
+            throw new IllegalArgumentException("Intervalo inválido: " + start + " > " + end);
+        }
+        root = insert(root, new Node(start, end, id));
+    }
+
+    boolean remove(long start, long id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    // RN-01 → ¿algún intervalo almacenado corta [start, end]?
+    boolean overlaps(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start <= end && node.end >= start) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd >= start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    // Recorre los intervalos que cortan [start, end], podando por maxEnd y por inicio
+    void forEachOverlapping(long start, long end, IntervalConsumer consumer) {
+        forEachOverlapping(root, start, end, consumer);
+    }
+
+    private static void forEachOverlapping(Node node, long start, long end, IntervalConsumer consumer) {
+        if (node == null || node.maxEnd < start) {
+            return;
+        }
+        forEachOverlapping(node.left, start, end, consumer);
+        if (node.start <= end && node.end >= start) {
+            consumer.accept(node.start, node.end);
+        }
+        if (node.start <= end) {
+            forEachOverlapping(node.right, start, end, consumer);
+        }
+    }
+
+    private Node insert(Node node, Node created) {
+        if (node == null) {
+            size++;
+            return created;
+        }
+        if (compare(created.start, created.id, node) < 0) {
+            node.left = insert(node.left, created);
+        } else {
+            node.right = insert(node.right, created);
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            if (node.left == null || node.right == null) {
+                size--;
+                return node.left == null ? node.right : node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            // El borrado recursivo del sucesor es el que descuenta el tamaño
+            Node replacement = new Node(successor.start, successor.end, successor.id);
+            replacement.right = remove(node.right, successor.start, successor.id);
+            replacement.left = node.left;
+            return balance(replacement);
+        }
+        return balance(node);
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long max = node.end;
+        if (node.left != null && node.left.maxEnd > max) {
+            max = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > max) {
+            max = node.right.maxEnd;
+        }
+        node.maxEnd = max;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
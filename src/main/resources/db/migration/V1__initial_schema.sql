@@ -0,0 +1,72 @@
+-- Esquema de partida, tal como lo dejaba spring.jpa.hibernate.ddl-auto=update.
+--
+-- Todo es idempotente (IF NOT EXISTS) porque las bases de datos creadas antes de
+-- Flyway ya tienen parte de estas tablas: se les aplica una línea base en la
+-- versión 0 (spring.flyway.baseline-version) y esta migración solo añade lo que
+-- falte. Las claves ajenas conservan el nombre que les dio Hibernate para no
+-- duplicarlas en esas bases.
+
+CREATE TABLE IF NOT EXISTS client (
+    id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    dni   VARCHAR(255) NOT NULL,
+    email VARCHAR(255),
+    name  VARCHAR(255),
+    phone VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS equipment (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    category      VARCHAR(255),
+    internal_code VARCHAR(255)   NOT NULL,
+    name          VARCHAR(255)   NOT NULL,
+    price_per_day NUMERIC(38, 2) NOT NULL,
+    status        VARCHAR(255) CHECK (status IN ('AVAILABLE', 'RENTED', 'MAINTENANCE'))
+);
+
+CREATE TABLE IF NOT EXISTS rental (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    client_id    BIGINT  NOT NULL,
+    equipment_id BIGINT  NOT NULL,
+    start_date   DATE,
+    end_date     DATE,
+    total_amount NUMERIC(38, 2),
+    returned     BOOLEAN NOT NULL
+);
+
+-- Saldo pagado desnormalizado (se rellena al arrancar desde los pagos existentes)
+ALTER TABLE rental ADD COLUMN IF NOT EXISTS paid_amount NUMERIC(38, 2) DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS payment (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rental_id    BIGINT NOT NULL,
+    amount       NUMERIC(38, 2),
+    payment_date DATE
+);
+
+ALTER TABLE rental ADD CONSTRAINT IF NOT EXISTS FKfurpp295i3dhumquorur054dw
+    FOREIGN KEY (client_id) REFERENCES client (id);
+ALTER TABLE rental ADD CONSTRAINT IF NOT EXISTS FKjsbpl6h9y3ia905d98gskvkow
+    FOREIGN KEY (equipment_id) REFERENCES equipment (id);
+ALTER TABLE payment ADD CONSTRAINT IF NOT EXISTS FK6ma2j46gjbggrp573uya2ub45
+    FOREIGN KEY (rental_id) REFERENCES rental (id);
+
+-- RF-14 → contadores de alquileres para los rankings de equipos y clientes
+CREATE TABLE IF NOT EXISTS equipment_rental_count (
+    equipment_id BIGINT NOT NULL PRIMARY KEY,
+    rental_count BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_equipment_rental_count_top
+    ON equipment_rental_count (rental_count DESC, equipment_id);
+
+CREATE TABLE IF NOT EXISTS client_rental_count (
+    client_id    BIGINT NOT NULL PRIMARY KEY,
+    rental_count BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_client_rental_count_top
+    ON client_rental_count (rental_count DESC, client_id);
+
+-- RF-14 → ingresos diarios por fecha de inicio del alquiler
+CREATE TABLE IF NOT EXISTS daily_income (
+    income_date DATE           NOT NULL PRIMARY KEY,
+    amount      NUMERIC(38, 2) NOT NULL
+);
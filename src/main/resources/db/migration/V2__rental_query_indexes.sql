@@ -0,0 +1,24 @@
+-- Índices explícitos para las consultas de alquileres y pagos.
+
+-- RN-01 → solapes y alquileres activos de un equipo:
+-- equipment_id = ? AND returned = FALSE AND start_date <= ? AND end_date >= ?
+CREATE INDEX IF NOT EXISTS idx_rental_equipment_open_period
+    ON rental (equipment_id, returned, start_date, end_date);
+
+-- RF-06 → historial de un cliente (paginado por id)
+CREATE INDEX IF NOT EXISTS idx_rental_client
+    ON rental (client_id, id);
+
+-- Pagos de un alquiler
+CREATE INDEX IF NOT EXISTS idx_payment_rental
+    ON payment (rental_id);
+
+-- DNI y código interno únicos con índice propio. Sustituyen a las restricciones
+-- con nombre generado que creaba Hibernate en las bases anteriores a Flyway.
+ALTER TABLE client DROP CONSTRAINT IF EXISTS UK_ffgfxk34snifdqqbwtoq6pj37;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_client_dni
+    ON client (dni);
+
+ALTER TABLE equipment DROP CONSTRAINT IF EXISTS UK_qsrd2b0jeikv8a87xchkyin0e;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_equipment_internal_code
+    ON equipment (internal_code);
@@ -0,0 +1,44 @@
+package com.ecorent.gestionalquileres.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcceptEncodingTest {
+
+    @Test
+    void acceptsGzip_whenListedWithoutOrWithPositiveQ() {
+        assertTrue(AcceptEncoding.acceptsGzip("gzip"));
+        assertTrue(AcceptEncoding.acceptsGzip("gzip, deflate, br"));
+        assertTrue(AcceptEncoding.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(AcceptEncoding.acceptsGzip("x-gzip"));
+    }
+
+    @Test
+    void rejectsGzip_withQZero() {
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip; q=0.000, identity"));
+        assertFalse(AcceptEncoding.acceptsGzip("*;q=1, gzip;q=0"));
+    }
+
+    @Test
+    void rejectsGzip_whenOnlyOtherCodingsOrNoHeader() {
+        assertFalse(AcceptEncoding.acceptsGzip(null));
+        assertFalse(AcceptEncoding.acceptsGzip(""));
+        assertFalse(AcceptEncoding.acceptsGzip("identity"));
+        assertFalse(AcceptEncoding.acceptsGzip("br, deflate"));
+        assertFalse(AcceptEncoding.acceptsGzip("x-not-gzip"));
+    }
+
+    @Test
+    void wildcard_acceptsGzipOnlyWhenGzipIsNotNamed() {
+        assertTrue(AcceptEncoding.acceptsGzip("*"));
+        assertFalse(AcceptEncoding.acceptsGzip("*;q=0"));
+        assertTrue(AcceptEncoding.acceptsGzip("*;q=0, gzip"));
+    }
+
+    @Test
+    void malformedQ_isTreatedAsRefused() {
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=abc"));
+    }
+}
@@ -0,0 +1,163 @@
+package com.ecorent.gestionalquileres.config;
+
+import com.ecorent.gestionalquileres.controller.EquipmentController;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.service.Aggregate;
+import com.ecorent.gestionalquileres.service.AggregateVersions;
+import com.ecorent.gestionalquileres.service.EquipmentCatalog;
+import com.ecorent.gestionalquileres.service.EquipmentImportService;
+import com.ecorent.gestionalquileres.service.EquipmentService;
+import com.ecorent.gestionalquileres.service.EquipmentStatusFeed;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Con los filtros de seguridad activos: sus cabeceras por defecto no deben pisar Cache-Control
+@WebMvcTest(controllers = EquipmentController.class)
+@Import({AggregateVersions.class, SecurityConfig.class})
+class ConditionalGetConfigTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    AggregateVersions aggregateVersions;
+
+    @MockBean
+    EquipmentService equipmentService;
+
+    @MockBean
+    EquipmentStatusFeed equipmentStatusFeed;
+
+    @MockBean
+    EquipmentCatalog equipmentCatalog;
+
+    @MockBean
+    EquipmentImportService equipmentImportService;
+
+    private void givenOneEquipment() {
+        given(equipmentCatalog.current()).willReturn(EquipmentCatalog.Snapshot.of(0L, """
+                [{"id":1,"name":"Taladro","internalCode":"EQ-001","pricePerDay":10,"status":"AVAILABLE"}]\
+                """.getBytes(StandardCharsets.UTF_8), 1, false));
+    }
+
+    @Test
+    void versionedGet_returnsEtagAndRevalidationCacheControl() throws Exception {
+        givenOneEquipment();
+
+        mockMvc.perform(get("/api/equipments"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, aggregateVersions.etag(Aggregate.EQUIPMENTS)))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$[0].name").value("Taladro"));
+    }
+
+    @Test
+    void versionedGet_withCurrentEtag_returnsNotModifiedWithoutCallingTheService() throws Exception {
+        String etag = aggregateVersions.etag(Aggregate.EQUIPMENTS);
+
+        mockMvc.perform(get("/api/equipments").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        verifyNoInteractions(equipmentCatalog, equipmentService);
+    }
+
+    @Test
+    void versionedGet_afterAWrite_returnsTheNewVersion() throws Exception {
+        givenOneEquipment();
+        String stale = aggregateVersions.etag(Aggregate.EQUIPMENTS);
+
+        aggregateVersions.bump(Aggregate.EQUIPMENTS);
+
+        mockMvc.perform(get("/api/equipments").header(HttpHeaders.IF_NONE_MATCH, stale))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, aggregateVersions.etag(Aggregate.EQUIPMENTS)));
+        verify(equipmentCatalog).current();
+    }
+
+    @Test
+    void gzipVariant_getsItsOwnEtag() throws Exception {
+        givenOneEquipment();
+        String plain = aggregateVersions.etag(Aggregate.EQUIPMENTS);
+        String gzip = plain.substring(0, plain.length() - 1) + "-gzip\"";
+
+        mockMvc.perform(get("/api/equipments").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, gzip));
+
+        // La copia sin comprimir no valida la comprimida, ni al revés
+        mockMvc.perform(get("/api/equipments")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, plain))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/equipments").header(HttpHeaders.IF_NONE_MATCH, gzip))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, plain));
+
+        mockMvc.perform(get("/api/equipments")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzip))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void gzipRefusedWithQZero_getsThePlainBodyAndEtag() throws Exception {
+        givenOneEquipment();
+        String plain = aggregateVersions.etag(Aggregate.EQUIPMENTS);
+
+        mockMvc.perform(get("/api/equipments").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, plain))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    void versionedGet_dependsOnEveryAggregateItDeclares() throws Exception {
+        String etag = aggregateVersions.etag(Aggregate.EQUIPMENTS, Aggregate.RENTALS);
+
+        aggregateVersions.bump(Aggregate.RENTALS);
+
+        mockMvc.perform(get("/api/equipments/available")
+                        .param("start", "2024-01-01")
+                        .param("end", "2024-01-02")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(equipmentService).findAvailable(null,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2));
+    }
+
+    @Test
+    void unversionedMethods_getNoEtag() throws Exception {
+        given(equipmentService.changeStatus(1L, EquipmentStatus.MAINTENANCE)).willReturn(Equipment.builder()
+                .id(1L)
+                .status(EquipmentStatus.MAINTENANCE)
+                .build());
+
+        mockMvc.perform(put("/api/equipments/1/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"status": "MAINTENANCE"}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+}
@@ -0,0 +1,111 @@
+package com.ecorent.gestionalquileres.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    DataSource target;
+
+    @Mock
+    Connection connection;
+
+    @Test
+    void getConnection_holdsAPermitUntilClose() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        ConnectionLimitingDataSource dataSource =
+                new ConnectionLimitingDataSource(target, 2, Duration.ofMillis(50));
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertEquals(0, dataSource.availablePermits());
+
+        first.close();
+        assertEquals(1, dataSource.availablePermits());
+        verify(connection).close();
+
+        second.close();
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void close_twice_releasesOnlyOnePermit() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        ConnectionLimitingDataSource dataSource =
+                new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+
+        Connection limited = dataSource.getConnection();
+        limited.close();
+        limited.close();
+
+        assertEquals(1, dataSource.availablePermits());
+    }
+
+    @Test
+    void getConnection_timesOutWhenAllPermitsAreInUse() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        ConnectionLimitingDataSource dataSource =
+                new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        verify(target, times(1)).getConnection();
+    }
+
+    @Test
+    void getConnection_releasesThePermitWhenThePoolFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("pool agotado"));
+        ConnectionLimitingDataSource dataSource =
+                new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+
+        assertEquals(1, dataSource.availablePermits());
+    }
+
+    @Test
+    void waitingVirtualThread_getsTheConnectionOnceItIsReturned() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        ConnectionLimitingDataSource dataSource =
+                new ConnectionLimitingDataSource(target, 1, Duration.ofSeconds(5));
+        Connection held = dataSource.getConnection();
+
+        CountDownLatch obtained = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try (Connection ignored = dataSource.getConnection()) {
+                obtained.countDown();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+
+        while (dataSource.waitingThreads() == 0) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, obtained.getCount());
+
+        held.close();
+        assertTrue(obtained.await(5, TimeUnit.SECONDS));
+        waiter.join();
+        assertNull(failure.get());
+        assertEquals(1, dataSource.availablePermits());
+    }
+}
@@ -0,0 +1,84 @@
+package com.ecorent.gestionalquileres.config;
+
+import com.ecorent.gestionalquileres.entity.Client;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.service.ClientService;
+import com.ecorent.gestionalquileres.service.EquipmentService;
+import com.ecorent.gestionalquileres.service.RentalService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El endpoint /actuator/prometheus con la aplicación completa sobre H2 en
+ * memoria: tras una reserva y un pago rechazado publica los timers HTTP y de
+ * servicio, el contador de rechazos por motivo y las métricas de Hibernate,
+ * HikariCP y JVM.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsConfigTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RentalService rentalService;
+
+    @Autowired
+    ClientService clientService;
+
+    @Autowired
+    EquipmentService equipmentService;
+
+    @Test
+    void prometheusEndpoint_exportsApplicationAndPlatformMetrics() throws Exception {
+        Equipment equipment = equipmentService.createEquipment(Equipment.builder()
+                .name("Generador")
+                .category("Energía")
+                .internalCode("EQ-METRICS")
+                .pricePerDay(BigDecimal.TEN)
+                .build());
+        Client client = clientService.createClient(Client.builder()
+                .name("Cliente Métricas")
+                .dni("99999999M")
+                .build());
+        LocalDate start = LocalDate.of(2031, 6, 1);
+        Rental rental = rentalService.createRental(client.getDni(), equipment.getId(), start, start);
+
+        mockMvc.perform(post("/api/rentals/{id}/payments", rental.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 1000.00}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("ecorent_business_rejections_total{")))
+                .andExpect(content().string(containsString("reason=\"overpayment\"")))
+                .andExpect(content().string(containsString(
+                        "ecorent_service_seconds_count{application=\"gestionalquileres\",class=\"com.ecorent.gestionalquileres.service.RentalService\"")))
+                .andExpect(content().string(containsString("method=\"registerPayment\"")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("jvm_memory_used_bytes")));
+    }
+}
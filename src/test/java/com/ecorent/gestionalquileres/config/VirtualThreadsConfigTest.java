@@ -0,0 +1,70 @@
+package com.ecorent.gestionalquileres.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadsConfig.class)
+            .withBean(DataSource.class, () -> {
+                HikariDataSource hikari = new HikariDataSource();
+                hikari.setJdbcUrl("jdbc:h2:mem:virtual-threads");
+                hikari.setMaximumPoolSize(7);
+                return hikari;
+            });
+
+    @Test
+    void platformThreads_leaveTheDataSourceUntouched() {
+        runner.run(context ->
+                assertInstanceOf(HikariDataSource.class, context.getBean(DataSource.class)));
+    }
+
+    @Test
+    void virtualThreads_limitConnectionsToThePoolSize() {
+        runner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            ConnectionLimitingDataSource limited = assertInstanceOf(ConnectionLimitingDataSource.class, dataSource);
+            assertEquals(7, limited.maxConnections());
+            assertTrue(dataSource.isWrapperFor(HikariDataSource.class));
+        });
+    }
+
+    @Test
+    void virtualThreads_unsetPoolSizeUsesTheHikariDefault() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(VirtualThreadsConfig.class)
+                .withBean(DataSource.class, HikariDataSource::new)
+                .withPropertyValues("spring.threads.virtual.enabled=true")
+                .run(context -> assertEquals(10,
+                        context.getBean(ConnectionLimitingDataSource.class).maxConnections()));
+    }
+
+    @Test
+    void virtualThreads_explicitLimitWinsOverThePoolSize() {
+        runner.withPropertyValues(
+                        "spring.threads.virtual.enabled=true",
+                        "ecorent.datasource.max-concurrent-connections=3")
+                .run(context -> assertEquals(3,
+                        context.getBean(ConnectionLimitingDataSource.class).maxConnections()));
+    }
+
+    @Test
+    void virtualThreads_publishPermitGauges() {
+        runner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            MeterRegistry registry = new SimpleMeterRegistry();
+            context.getBean(MeterBinder.class).bindTo(registry);
+
+            assertEquals(7.0, registry.get("ecorent.datasource.permits.available").gauge().value());
+            assertEquals(0.0, registry.get("ecorent.datasource.permits.waiting").gauge().value());
+        });
+    }
+}
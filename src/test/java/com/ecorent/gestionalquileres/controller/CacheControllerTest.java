@@ -0,0 +1,47 @@
+package com.ecorent.gestionalquileres.controller;
+
+import com.ecorent.gestionalquileres.dto.cache.CacheRegionStats;
+import com.ecorent.gestionalquileres.dto.cache.CacheStatsResponse;
+import com.ecorent.gestionalquileres.service.CacheStatsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CacheController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class CacheControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    CacheStatsService cacheStatsService;
+
+    // ---------- GET /api/cache/stats ----------
+
+    @Test
+    void stats_returnsRegionHitsAndMisses() throws Exception {
+        given(cacheStatsService.getStats()).willReturn(new CacheStatsResponse(true, List.of(
+                new CacheRegionStats("client", 40, 2, 2),
+                new CacheRegionStats("client-natural-id", 38, 2, 2))));
+
+        mockMvc.perform(get("/api/cache/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statisticsEnabled").value(true))
+                .andExpect(jsonPath("$.regions.length()").value(2))
+                .andExpect(jsonPath("$.regions[0].region").value("client"))
+                .andExpect(jsonPath("$.regions[0].hits").value(40))
+                .andExpect(jsonPath("$.regions[1].misses").value(2));
+    }
+}
@@ -1,9 +1,9 @@
 package com.ecorent.gestionalquileres.controller;
 
 import com.ecorent.gestionalquileres.dto.client.ClientRequest;
+import com.ecorent.gestionalquileres.dto.rental.RentalHistoryPage;
+import com.ecorent.gestionalquileres.dto.rental.RentalResponse;
 import com.ecorent.gestionalquileres.entity.Client;
-import com.ecorent.gestionalquileres.entity.Rental;
-import com.ecorent.gestionalquileres.entity.Equipment;
 import com.ecorent.gestionalquileres.exception.BusinessException;
 import com.ecorent.gestionalquileres.exception.NotFoundException;
 import com.ecorent.gestionalquileres.service.ClientService;
@@ -14,6 +14,10 @@ import org.mockito.Mockito;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -207,32 +211,26 @@ class ClientControllerTest {
 
     @Test
     void getHistory_returnsRentalResponses() throws Exception {
-        Client client = Client.builder()
-                .id(1L)
-                .name("Juan")
-                .dni("12345678A")
-                .build();
-
-        Equipment equipment = Equipment.builder()
-                .id(10L)
-                .name("Taladro")
-                .build();
-
-        Rental rental = Rental.builder()
-                .id(100L)
-                .client(client)
-                .equipment(equipment)
-                .startDate(LocalDate.of(2024, 1, 1))
-                .endDate(LocalDate.of(2024, 1, 3))
-                .totalAmount(new BigDecimal("30"))
-                .returned(false)
-                .build();
+        RentalResponse rental = new RentalResponse(
+                100L,
+                "Juan",
+                "12345678A",
+                10L,
+                "Taladro",
+                LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 1, 3),
+                new BigDecimal("30"),
+                false
+        );
 
-        given(rentalService.getClientHistory("12345678A"))
-                .willReturn(List.of(rental));
+        given(rentalService.getClientHistory("12345678A", 50L, 1))
+                .willReturn(new RentalHistoryPage(List.of(rental), 100L));
 
-        mockMvc.perform(get("/api/clients/12345678A/rentals"))
+        mockMvc.perform(get("/api/clients/12345678A/rentals")
+                        .param("after", "50")
+                        .param("limit", "1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "100"))
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].id").value(100L))
                 .andExpect(jsonPath("$[0].clientName").value("Juan"))
@@ -241,6 +239,22 @@ class ClientControllerTest {
                 .andExpect(jsonPath("$[0].equipmentName").value("Taladro"));
     }
 
+    // ---------- GET /api/clients/search ----------
+
+    @Test
+    void search_returnsPageOfClientResponses() throws Exception {
+        Client client = Client.builder().id(1L).name("Marta").dni("111A").phone("600").build();
+
+        given(clientService.search(Mockito.eq("mar"), any(Pageable.class)))
+                .willAnswer(invocation -> new PageImpl<>(List.of(client), invocation.getArgument(1), 1));
+
+        mockMvc.perform(get("/api/clients/search").param("name", "mar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].dni").value("111A"))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.size").value(20));
+    }
+
     // ---------- GET /api/clients ----------
 
     @Test
@@ -248,12 +262,30 @@ class ClientControllerTest {
         Client c1 = Client.builder().id(1L).name("A").dni("1").build();
         Client c2 = Client.builder().id(2L).name("B").dni("2").build();
 
-        given(clientService.findAll()).willReturn(List.of(c1, c2));
+        given(clientService.findAll()).willReturn(new PageImpl<>(List.of(c1, c2)));
 
         mockMvc.perform(get("/api/clients"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[1].id").value(2L));
+                .andExpect(jsonPath("$[1].id").value(2L))
+                .andExpect(header().string("Deprecation", "true"))
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(header().stringValues(HttpHeaders.LINK, "</api/clients/search>; rel=\"successor-version\""));
+    }
+
+    @Test
+    void findAll_withMoreClientsThanTheLimit_returnsTheTotalAndANextLink() throws Exception {
+        Client c1 = Client.builder().id(1L).name("A").dni("1").build();
+
+        given(clientService.findAll()).willReturn(new PageImpl<>(List.of(c1), PageRequest.of(0, 1), 1500));
+
+        mockMvc.perform(get("/api/clients"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string("X-Total-Count", "1500"))
+                .andExpect(header().stringValues(HttpHeaders.LINK,
+                        "</api/clients/search>; rel=\"successor-version\"",
+                        "</api/clients/search?page=10&size=100&sort=id>; rel=\"next\""));
     }
 }
@@ -1,11 +1,17 @@
 package com.ecorent.gestionalquileres.controller;
 
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentImportError;
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentImportResponse;
 import com.ecorent.gestionalquileres.dto.equipment.EquipmentRequest;
+import com.ecorent.gestionalquileres.dto.equipment.ImportFormat;
 import com.ecorent.gestionalquileres.entity.Equipment;
 import com.ecorent.gestionalquileres.entity.EquipmentStatus;
 import com.ecorent.gestionalquileres.exception.BusinessException;
 import com.ecorent.gestionalquileres.exception.NotFoundException;
+import com.ecorent.gestionalquileres.service.EquipmentCatalog;
+import com.ecorent.gestionalquileres.service.EquipmentImportService;
 import com.ecorent.gestionalquileres.service.EquipmentService;
+import com.ecorent.gestionalquileres.service.EquipmentStatusFeed;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,15 +19,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -41,6 +61,20 @@ class EquipmentControllerTest {
     @MockBean
     EquipmentService equipmentService;
 
+    @MockBean
+    EquipmentStatusFeed equipmentStatusFeed;
+
+    @MockBean
+    EquipmentCatalog equipmentCatalog;
+
+    @MockBean
+    EquipmentImportService equipmentImportService;
+
+    private static final byte[] CATALOG_JSON = """
+            [{"id":1,"name":"Taladro","category":"Herramientas","internalCode":"EQ-001","pricePerDay":10,"status":"AVAILABLE"},\
+            {"id":2,"name":"Generador","category":"Energía","internalCode":"EQ-002","pricePerDay":1,"status":"RENTED"}]\
+            """.getBytes(StandardCharsets.UTF_8);
+
     // ---------- POST /api/equipments ----------
 
     @Test
@@ -113,35 +147,172 @@ class EquipmentControllerTest {
                 .andExpect(jsonPath("$.error").value("Validation Error"));
     }
 
+    // ---------- POST /api/equipments/import ----------
+
+    @Test
+    void importEquipments_streamsBodyToService_asCsvByDefault() throws Exception {
+        given(equipmentImportService.importEquipments(eq(ImportFormat.CSV), any(InputStream.class)))
+                .willReturn(new EquipmentImportResponse(1, 1, List.of(
+                        new EquipmentImportError(2, "EQ-001", "Ya existe un equipo con ese código interno"))));
+
+        mockMvc.perform(post("/api/equipments/import")
+                        .contentType("text/csv")
+                        .content("name,category,internalCode,pricePerDay\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].internalCode").value("EQ-001"));
+    }
+
+    @Test
+    void importEquipments_acceptsNdjsonFormat() throws Exception {
+        given(equipmentImportService.importEquipments(eq(ImportFormat.NDJSON), any(InputStream.class)))
+                .willReturn(new EquipmentImportResponse(0, 0, List.of()));
+
+        mockMvc.perform(post("/api/equipments/import")
+                        .param("format", "ndjson")
+                        .contentType("application/x-ndjson")
+                        .content(""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(0));
+    }
+
+    @Test
+    void importEquipments_returnsBadRequest_whenFormatIsUnknown() throws Exception {
+        mockMvc.perform(post("/api/equipments/import")
+                        .param("format", "xlsx")
+                        .content("x"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Business Error"))
+                .andExpect(jsonPath("$.message").value("Formato de importación no soportado: xlsx"));
+
+        verifyNoInteractions(equipmentImportService);
+    }
+
     // ---------- GET /api/equipments ----------
 
     @Test
-    void findAll_returnsListOfEquipments() throws Exception {
+    void findAll_returnsCatalogJson() throws Exception {
+        given(equipmentCatalog.current()).willReturn(EquipmentCatalog.Snapshot.of(3L, CATALOG_JSON, 2, false));
+
+        mockMvc.perform(get("/api/equipments"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[1].id").value(2L))
+                .andExpect(header().string("Deprecation", "true"))
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(header().stringValues(HttpHeaders.LINK, "</api/equipments/search>; rel=\"successor-version\""));
+
+        verifyNoInteractions(equipmentService);
+    }
+
+    @Test
+    void findAll_whenTheCatalogIsTruncated_returnsTheTotalAndANextLink() throws Exception {
+        given(equipmentCatalog.current()).willReturn(EquipmentCatalog.Snapshot.of(3L, CATALOG_JSON, 1500, true));
+
+        mockMvc.perform(get("/api/equipments"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1500"))
+                .andExpect(header().stringValues(HttpHeaders.LINK,
+                        "</api/equipments/search>; rel=\"successor-version\"",
+                        "</api/equipments/search?page=10&size=100&sort=id>; rel=\"next\""));
+    }
+
+    @Test
+    void findAll_returnsCompressedCatalog_whenClientAcceptsGzip() throws Exception {
+        EquipmentCatalog.Snapshot catalog = EquipmentCatalog.Snapshot.of(3L, CATALOG_JSON, 2, false);
+        given(equipmentCatalog.current()).willReturn(catalog);
+
+        byte[] body = mockMvc.perform(get("/api/equipments").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertArrayEquals(CATALOG_JSON, in.readAllBytes());
+        }
+    }
+
+    // ---------- GET /api/equipments/search ----------
+
+    @Test
+    void search_returnsPageOfEquipmentResponses() throws Exception {
         Equipment e1 = Equipment.builder()
                 .id(1L)
-                .name("Taladro")
-                .category("Herramientas")
+                .name("Generador")
+                .category("Energía")
                 .internalCode("EQ-001")
                 .pricePerDay(BigDecimal.TEN)
                 .status(EquipmentStatus.AVAILABLE)
                 .build();
 
-        Equipment e2 = Equipment.builder()
-                .id(2L)
-                .name("Generador")
-                .category("Energía")
-                .internalCode("EQ-002")
-                .pricePerDay(BigDecimal.ONE)
-                .status(EquipmentStatus.RENTED)
+        given(equipmentService.search(eq(EquipmentStatus.AVAILABLE), eq("Energía"), eq("gen"), any(Pageable.class)))
+                .willAnswer(invocation -> new PageImpl<>(List.of(e1), invocation.getArgument(3), 41));
+
+        mockMvc.perform(get("/api/equipments/search")
+                        .param("status", "AVAILABLE")
+                        .param("category", "Energía")
+                        .param("name", "gen")
+                        .param("page", "2")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].internalCode").value("EQ-001"))
+                .andExpect(jsonPath("$.totalElements").value(41))
+                .andExpect(jsonPath("$.number").value(2));
+    }
+
+    @Test
+    void search_capsRequestedPageSize() throws Exception {
+        given(equipmentService.search(any(), any(), any(), any(Pageable.class)))
+                .willAnswer(invocation -> Page.empty(invocation.getArgument(3)));
+
+        mockMvc.perform(get("/api/equipments/search").param("size", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(100));
+    }
+
+    // ---------- GET /api/equipments/available ----------
+
+    @Test
+    void findAvailable_returnsFreeEquipmentsOfCategory() throws Exception {
+        Equipment e1 = Equipment.builder()
+                .id(3L)
+                .name("Dumper")
+                .category("Obra")
+                .internalCode("EQ-003")
+                .pricePerDay(BigDecimal.TEN)
+                .status(EquipmentStatus.AVAILABLE)
                 .build();
 
-        given(equipmentService.findAll()).willReturn(List.of(e1, e2));
+        given(equipmentService.findAvailable("Obra", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 7)))
+                .willReturn(List.of(e1));
 
-        mockMvc.perform(get("/api/equipments"))
+        mockMvc.perform(get("/api/equipments/available")
+                        .param("category", "Obra")
+                        .param("start", "2024-05-01")
+                        .param("end", "2024-05-07"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[1].id").value(2L));
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3L))
+                .andExpect(jsonPath("$[0].category").value("Obra"));
+    }
+
+    @Test
+    void findAvailable_returnsBadRequest_whenBusinessException() throws Exception {
+        given(equipmentService.findAvailable(null, LocalDate.of(2024, 5, 7), LocalDate.of(2024, 5, 1)))
+                .willThrow(new BusinessException("Fecha fin no puede ser anterior a fecha inicio"));
+
+        mockMvc.perform(get("/api/equipments/available")
+                        .param("start", "2024-05-07")
+                        .param("end", "2024-05-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Fecha fin no puede ser anterior a fecha inicio"));
     }
 
     // ---------- PUT /api/equipments/{id} ----------
@@ -313,4 +484,38 @@ class EquipmentControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Validation Error"));
     }
+
+    // ---------- GET /api/equipments/events ----------
+
+    @Test
+    void events_opensEventStream_withoutResumeToken() throws Exception {
+        given(equipmentStatusFeed.subscribe(null)).willReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/equipments/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(equipmentStatusFeed).subscribe(null);
+    }
+
+    @Test
+    void events_resumesFromLastEventIdHeader_beforeQueryParameter() throws Exception {
+        given(equipmentStatusFeed.subscribe(any())).willReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/equipments/events")
+                        .header("Last-Event-ID", "42")
+                        .param("lastEventId", "7"))
+                .andExpect(request().asyncStarted());
+
+        verify(equipmentStatusFeed).subscribe(42L);
+    }
+
+    @Test
+    void events_resumesFromQueryParameter_whenNoHeader() throws Exception {
+        given(equipmentStatusFeed.subscribe(any())).willReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/equipments/events").param("lastEventId", "7"))
+                .andExpect(request().asyncStarted());
+
+        verify(equipmentStatusFeed).subscribe(7L);
+    }
 }
@@ -0,0 +1,85 @@
+package com.ecorent.gestionalquileres.controller;
+
+import com.ecorent.gestionalquileres.dto.export.ExportFormat;
+import com.ecorent.gestionalquileres.service.ExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ExportController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class ExportControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    ExportService exportService;
+
+    // ---------- GET /api/exports/rentals ----------
+
+    @Test
+    void rentals_defaultsToNdjsonAttachment() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportRentals(eq(ExportFormat.NDJSON), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/exports/rentals"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rentals.ndjson\""))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    // ---------- GET /api/exports/payments ----------
+
+    @Test
+    void payments_csvFormat_streamsCsvAttachment() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("id,rentalId\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportPayments(eq(ExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/exports/payments").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"payments.csv\""))
+                .andExpect(content().string("id,rentalId\r\n"));
+    }
+
+    @Test
+    void payments_unknownFormat_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/exports/payments").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Formato de exportación no soportado: xml"));
+
+        verifyNoInteractions(exportService);
+    }
+}
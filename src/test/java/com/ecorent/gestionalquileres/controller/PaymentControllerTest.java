@@ -1,7 +1,7 @@
 package com.ecorent.gestionalquileres.controller;
 
 import com.ecorent.gestionalquileres.dto.payment.PaymentRequest;
-import com.ecorent.gestionalquileres.entity.Payment;
+import com.ecorent.gestionalquileres.dto.payment.PaymentResponse;
 import com.ecorent.gestionalquileres.exception.BusinessException;
 import com.ecorent.gestionalquileres.exception.NotFoundException;
 import com.ecorent.gestionalquileres.service.PaymentService;
@@ -43,16 +43,16 @@ class PaymentControllerTest {
         Long rentalId = 10L;
         PaymentRequest request = new PaymentRequest(new BigDecimal("50"));
 
-        Payment payment = Payment.builder()
-                .id(1L)
-                .amount(new BigDecimal("50"))
-                .paymentDate(LocalDate.of(2024, 1, 10))
-                .build();
+        PaymentResponse response = new PaymentResponse(
+                1L,
+                new BigDecimal("50"),
+                LocalDate.of(2024, 1, 10),
+                "Pagado parcial",
+                new BigDecimal("80"),
+                new BigDecimal("40"));
 
         given(paymentService.registerPayment(eq(rentalId), eq(new BigDecimal("50"))))
-                .willReturn(payment);
-        given(paymentService.getPaymentStatus(rentalId))
-                .willReturn("Pagado parcial");
+                .willReturn(response);
 
         mockMvc.perform(post("/api/rentals/{rentalId}/payments", rentalId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -61,7 +61,9 @@ class PaymentControllerTest {
                 .andExpect(jsonPath("$.id").value(1L))
                 .andExpect(jsonPath("$.amount").value(50))
                 .andExpect(jsonPath("$.paymentStatus").value("Pagado parcial"))
-                .andExpect(jsonPath("$.paymentDate").value("2024-01-10"));
+                .andExpect(jsonPath("$.paymentDate").value("2024-01-10"))
+                .andExpect(jsonPath("$.paidAmount").value(80))
+                .andExpect(jsonPath("$.pendingAmount").value(40));
     }
 
     @Test
@@ -1,12 +1,17 @@
 package com.ecorent.gestionalquileres.controller;
 
+import com.ecorent.gestionalquileres.dto.rental.OverdueRentalResponse;
+import com.ecorent.gestionalquileres.dto.rental.RentalBatchRequest;
+import com.ecorent.gestionalquileres.dto.rental.RentalHistoryPage;
 import com.ecorent.gestionalquileres.dto.rental.RentalRequest;
+import com.ecorent.gestionalquileres.dto.rental.RentalResponse;
 import com.ecorent.gestionalquileres.entity.Client;
 import com.ecorent.gestionalquileres.entity.Equipment;
 import com.ecorent.gestionalquileres.entity.EquipmentStatus;
 import com.ecorent.gestionalquileres.entity.Rental;
 import com.ecorent.gestionalquileres.exception.BusinessException;
 import com.ecorent.gestionalquileres.exception.NotFoundException;
+import com.ecorent.gestionalquileres.service.OverdueRentals;
 import com.ecorent.gestionalquileres.service.RentalService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -21,6 +26,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.LongStream;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
@@ -43,6 +49,9 @@ class RentalControllerTest {
     @MockBean
     RentalService rentalService;
 
+    @MockBean
+    OverdueRentals overdueRentals;
+
     // ---------- POST /api/rentals ----------
 
     @Test
@@ -163,6 +172,87 @@ class RentalControllerTest {
                 .andExpect(jsonPath("$.error").value("Validation Error"));
     }
 
+    // ---------- POST /api/rentals/batch ----------
+
+    @Test
+    void createBatch_returnsOneResponsePerEquipment() throws Exception {
+        RentalBatchRequest request = new RentalBatchRequest(
+                "12345678A",
+                List.of(10L, 11L),
+                LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 1, 3)
+        );
+
+        Client client = Client.builder().id(1L).name("Juan").dni("12345678A").build();
+
+        Rental first = Rental.builder()
+                .id(100L)
+                .client(client)
+                .equipment(Equipment.builder().id(10L).name("Taladro").build())
+                .startDate(request.startDate())
+                .endDate(request.endDate())
+                .totalAmount(new BigDecimal("30"))
+                .build();
+
+        Rental second = Rental.builder()
+                .id(101L)
+                .client(client)
+                .equipment(Equipment.builder().id(11L).name("Dumper").build())
+                .startDate(request.startDate())
+                .endDate(request.endDate())
+                .totalAmount(new BigDecimal("60"))
+                .build();
+
+        given(rentalService.createRentals("12345678A", List.of(10L, 11L),
+                request.startDate(), request.endDate()))
+                .willReturn(List.of(first, second));
+
+        mockMvc.perform(post("/api/rentals/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].equipmentId").value(10L))
+                .andExpect(jsonPath("$[1].equipmentName").value("Dumper"))
+                .andExpect(jsonPath("$[1].totalAmount").value(60));
+    }
+
+    @Test
+    void createBatch_returnsBadRequest_whenEquipmentListEmpty() throws Exception {
+        String invalidJson = """
+                {
+                  "clientDni": "12345678A",
+                  "equipmentIds": [],
+                  "startDate": "2024-01-01",
+                  "endDate": "2024-01-03"
+                }
+                """;
+
+        mockMvc.perform(post("/api/rentals/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(invalidJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation Error"));
+    }
+
+    @Test
+    void createBatch_returnsBadRequest_whenTooManyEquipments() throws Exception {
+        RentalBatchRequest request = new RentalBatchRequest(
+                "12345678A",
+                LongStream.rangeClosed(1, RentalBatchRequest.MAX_EQUIPMENTS + 1).boxed().toList(),
+                LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 1, 3)
+        );
+
+        mockMvc.perform(post("/api/rentals/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation Error"));
+
+        Mockito.verifyNoInteractions(rentalService);
+    }
+
     // ---------- PUT /api/rentals/{id}/return ----------
 
     @Test
@@ -220,46 +310,52 @@ class RentalControllerTest {
     // ---------- GET /api/rentals/{dni}/rentals ----------
 
     @Test
-    void getClientHistory_returnsRentalsList() throws Exception {
-        Client client = Client.builder()
-                .id(1L)
-                .name("Juan")
-                .dni("12345678A")
-                .build();
+    void getClientHistory_returnsRentalsListAndNextCursor() throws Exception {
+        RentalResponse rental1 = new RentalResponse(100L, "Juan", "12345678A", 10L, "Taladro",
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3), new BigDecimal("30"), false);
+        RentalResponse rental2 = new RentalResponse(101L, "Juan", "12345678A", 10L, "Taladro",
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 2), new BigDecimal("20"), true);
+
+        given(rentalService.getClientHistory("12345678A", 99L, 2))
+                .willReturn(new RentalHistoryPage(List.of(rental1, rental2), 101L));
+
+        mockMvc.perform(get("/api/rentals/12345678A/rentals")
+                        .param("after", "99")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "101"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(100L))
+                .andExpect(jsonPath("$[1].id").value(101L));
+    }
 
-        Equipment equipment = Equipment.builder()
-                .id(10L)
-                .name("Taladro")
-                .status(EquipmentStatus.AVAILABLE)
-                .build();
+    @Test
+    void getClientHistory_lastPageHasNoCursorHeader() throws Exception {
+        given(rentalService.getClientHistory("12345678A", null, null))
+                .willReturn(new RentalHistoryPage(List.of(), null));
 
-        Rental rental1 = Rental.builder()
-                .id(100L)
-                .client(client)
-                .equipment(equipment)
-                .startDate(LocalDate.of(2024, 1, 1))
-                .endDate(LocalDate.of(2024, 1, 3))
-                .totalAmount(new BigDecimal("30"))
-                .returned(false)
-                .build();
+        mockMvc.perform(get("/api/rentals/12345678A/rentals"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
 
-        Rental rental2 = Rental.builder()
-                .id(101L)
-                .client(client)
-                .equipment(equipment)
-                .startDate(LocalDate.of(2024, 2, 1))
-                .endDate(LocalDate.of(2024, 2, 2))
-                .totalAmount(new BigDecimal("20"))
-                .returned(true)
-                .build();
+    // ---------- GET /api/rentals/overdue ----------
 
-        given(rentalService.getClientHistory("12345678A"))
-                .willReturn(List.of(rental1, rental2));
+    @Test
+    void findOverdue_returnsOverdueRentals() throws Exception {
+        given(overdueRentals.overdue()).willReturn(List.of(
+                new OverdueRentalResponse(100L, 10L, "Taladro", "12345678A", "Juan",
+                        LocalDate.of(2024, 1, 3), 4)));
 
-        mockMvc.perform(get("/api/rentals/12345678A/rentals"))
+        mockMvc.perform(get("/api/rentals/overdue"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(100L))
-                .andExpect(jsonPath("$[1].id").value(101L));
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].rentalId").value(100L))
+                .andExpect(jsonPath("$[0].clientDni").value("12345678A"))
+                .andExpect(jsonPath("$[0].endDate").value("2024-01-03"))
+                .andExpect(jsonPath("$[0].daysOverdue").value(4));
+
+        Mockito.verifyNoInteractions(rentalService);
     }
 }
@@ -1,8 +1,15 @@
 package com.ecorent.gestionalquileres.controller;
 
-import com.ecorent.gestionalquileres.entity.Client;
-import com.ecorent.gestionalquileres.entity.Equipment;
-import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.dto.report.ReportJobRequest;
+import com.ecorent.gestionalquileres.dto.report.ReportJobResponse;
+import com.ecorent.gestionalquileres.dto.report.ReportJobStatus;
+import com.ecorent.gestionalquileres.dto.report.ReportType;
+import com.ecorent.gestionalquileres.dto.report.TopClientResponse;
+import com.ecorent.gestionalquileres.dto.report.TopEquipmentResponse;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.NotFoundException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import com.ecorent.gestionalquileres.service.ReportJobService;
 import com.ecorent.gestionalquileres.service.ReportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -14,12 +21,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = ReportController.class)
@@ -35,6 +46,9 @@ class ReportControllerTest {
     @MockBean
     ReportService reportService;
 
+    @MockBean
+    ReportJobService reportJobService;
+
     // ---------- GET /api/reports/income ----------
 
     @Test
@@ -43,7 +57,7 @@ class ReportControllerTest {
         LocalDate end = LocalDate.of(2024, 1, 31);
 
         given(reportService.getIncomeBetween(start, end))
-                .willReturn(1234.56);
+                .willReturn(new BigDecimal("1234.56"));
 
         mockMvc.perform(get("/api/reports/income")
                         .param("start", "2024-01-01")
@@ -74,61 +88,112 @@ class ReportControllerTest {
     // ---------- GET /api/reports/top-equipments ----------
 
     @Test
-    void topEquipments_returnsListOfEquipments() throws Exception {
-        Equipment e1 = Equipment.builder()
-                .id(1L)
-                .name("Taladro")
-                .category("Herramientas")
-                .internalCode("EQ-001")
-                .pricePerDay(BigDecimal.TEN)
-                .status(EquipmentStatus.RENTED)
-                .build();
-
-        Equipment e2 = Equipment.builder()
-                .id(2L)
-                .name("Generador")
-                .category("Energía")
-                .internalCode("EQ-002")
-                .pricePerDay(BigDecimal.ONE)
-                .status(EquipmentStatus.AVAILABLE)
-                .build();
-
-        given(reportService.getTopRentedEquipments())
-                .willReturn(List.of(e1, e2));
-
-        mockMvc.perform(get("/api/reports/top-equipments"))
+    void topEquipments_returnsRankingWithCounts() throws Exception {
+        given(reportService.getTopRentedEquipments(eq(2)))
+                .willReturn(List.of(
+                        new TopEquipmentResponse(1L, "Taladro", 9L),
+                        new TopEquipmentResponse(2L, "Generador", 4L)));
+
+        mockMvc.perform(get("/api/reports/top-equipments").param("limit", "2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[0].name").value("Taladro"))
-                .andExpect(jsonPath("$[1].id").value(2L))
-                .andExpect(jsonPath("$[1].name").value("Generador"));
+                .andExpect(jsonPath("$[0].equipmentId").value(1L))
+                .andExpect(jsonPath("$[0].equipmentName").value("Taladro"))
+                .andExpect(jsonPath("$[0].totalRentals").value(9))
+                .andExpect(jsonPath("$[1].equipmentId").value(2L))
+                .andExpect(jsonPath("$[1].totalRentals").value(4));
     }
 
     // ---------- GET /api/reports/top-clients ----------
 
     @Test
-    void topClients_returnsListOfClients() throws Exception {
-        Client c1 = Client.builder()
-                .id(1L)
-                .name("Cliente 1")
-                .dni("111A")
-                .build();
-        Client c2 = Client.builder()
-                .id(2L)
-                .name("Cliente 2")
-                .dni("222B")
-                .build();
-
-        given(reportService.getTopClients())
-                .willReturn(List.of(c1, c2));
+    void topClients_returnsRankingWithCounts() throws Exception {
+        given(reportService.getTopClients(null))
+                .willReturn(List.of(
+                        new TopClientResponse(1L, "Cliente 1", "111A", 5L),
+                        new TopClientResponse(2L, "Cliente 2", "222B", 2L)));
 
         mockMvc.perform(get("/api/reports/top-clients"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[0].name").value("Cliente 1"))
-                .andExpect(jsonPath("$[1].id").value(2L))
-                .andExpect(jsonPath("$[1].name").value("Cliente 2"));
+                .andExpect(jsonPath("$[0].clientId").value(1L))
+                .andExpect(jsonPath("$[0].clientName").value("Cliente 1"))
+                .andExpect(jsonPath("$[0].dni").value("111A"))
+                .andExpect(jsonPath("$[0].totalRentals").value(5))
+                .andExpect(jsonPath("$[1].clientId").value(2L));
+    }
+
+    // ---------- POST /api/reports/jobs ----------
+
+    @Test
+    void submitJob_returnsAcceptedWithLocation() throws Exception {
+        UUID id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        given(reportJobService.submit(new ReportJobRequest(
+                ReportType.INCOME, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), null)))
+                .willReturn(new ReportJobResponse(id, ReportType.INCOME, ReportJobStatus.QUEUED,
+                        Instant.parse("2024-06-01T10:00:00Z"), null, null, null));
+
+        mockMvc.perform(post("/api/reports/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"type": "INCOME", "start": "2024-01-01", "end": "2024-12-31"}
+                                """))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/reports/jobs/" + id))
+                .andExpect(jsonPath("$.id").value(id.toString()))
+                .andExpect(jsonPath("$.type").value("INCOME"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void submitJob_withoutType_returnsValidationError() throws Exception {
+        mockMvc.perform(post("/api/reports/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation Error"));
+    }
+
+    @Test
+    void submitJob_whenTooManyJobs_returnsBusinessError() throws Exception {
+        given(reportJobService.submit(any()))
+                .willThrow(new BusinessException(RejectionReason.TOO_MANY_REPORT_JOBS,
+                        "Ya hay 2 informes TOP_CLIENTS en curso, inténtelo más tarde"));
+
+        mockMvc.perform(post("/api/reports/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"type": "TOP_CLIENTS"}
+                                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Ya hay 2 informes TOP_CLIENTS en curso, inténtelo más tarde"));
+    }
+
+    // ---------- GET /api/reports/jobs/{id} ----------
+
+    @Test
+    void getJob_returnsStatusAndResult() throws Exception {
+        UUID id = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        given(reportJobService.getJob(id))
+                .willReturn(new ReportJobResponse(id, ReportType.TOP_EQUIPMENTS, ReportJobStatus.DONE,
+                        Instant.parse("2024-06-01T10:00:00Z"), Instant.parse("2024-06-01T10:00:02Z"),
+                        List.of(new TopEquipmentResponse(1L, "Taladro", 9L)), null));
+
+        mockMvc.perform(get("/api/reports/jobs/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"))
+                .andExpect(jsonPath("$.finishedAt").exists())
+                .andExpect(jsonPath("$.result[0].equipmentName").value("Taladro"))
+                .andExpect(jsonPath("$.result[0].totalRentals").value(9));
+    }
+
+    @Test
+    void getJob_whenUnknownOrExpired_returnsNotFound() throws Exception {
+        UUID id = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        given(reportJobService.getJob(id)).willThrow(new NotFoundException("Informe no encontrado o caducado"));
+
+        mockMvc.perform(get("/api/reports/jobs/{id}", id))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Informe no encontrado o caducado"));
     }
 }
@@ -0,0 +1,342 @@
+package com.ecorent.gestionalquileres.controller;
+
+import com.ecorent.gestionalquileres.dto.report.ReportJobRequest;
+import com.ecorent.gestionalquileres.dto.report.ReportType;
+import com.ecorent.gestionalquileres.entity.Client;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.service.ClientService;
+import com.ecorent.gestionalquileres.service.EquipmentService;
+import com.ecorent.gestionalquileres.service.PaymentService;
+import com.ecorent.gestionalquileres.service.RentalService;
+import com.ecorent.gestionalquileres.service.ReportJobService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de sentencias SQL por petición HTTP para cada método de los
+ * controladores, contra la aplicación completa sobre H2 en memoria.
+ *
+ * El DataSource va envuelto en un proxy JDBC que cuenta cada ejecución (un
+ * lote cuenta como una). Los máximos están en
+ * {@code sql-statement-budgets.properties}, con clave
+ * {@code Controlador.método}: un N+1 nuevo o un método sin presupuesto ni
+ * escenario hace fallar el build. La caché de segundo nivel se vacía antes de
+ * cada petición, así que se mide el peor caso.
+ *
+ * Los datos de partida tienen varios alquileres por cliente y por equipo, con
+ * pagos, para que un acceso perezoso por fila se note en historial e informes.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sql-budgets;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SqlStatementBudgetTest {
+
+    private static final String BUDGETS = "sql-statement-budgets.properties";
+    private static final LocalDate BASE = LocalDate.of(2032, 3, 1);
+    private static final int HISTORY = 6;
+
+    @TestConfiguration
+    static class StatementCounting {
+
+        @Bean
+        StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        static BeanPostProcessor countingDataSource(StatementCounter statementCounter) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource)
+                                .name(beanName)
+                                .listener(statementCounter)
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    // Ejecuciones JDBC de cualquier hilo (las exportaciones escriben desde el hilo asíncrono)
+    static class StatementCounter implements QueryExecutionListener {
+
+        private final AtomicLong executions = new AtomicLong();
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            executions.incrementAndGet();
+        }
+
+        long reset() {
+            return executions.getAndSet(0);
+        }
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    StatementCounter statementCounter;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    ClientService clientService;
+
+    @Autowired
+    EquipmentService equipmentService;
+
+    @Autowired
+    RentalService rentalService;
+
+    @Autowired
+    PaymentService paymentService;
+
+    @Autowired
+    ReportJobService reportJobService;
+
+    private final Map<String, RequestBuilder> scenarios = new LinkedHashMap<>();
+    private Properties budgets;
+
+    @BeforeAll
+    void seed() throws IOException {
+        budgets = PropertiesLoaderUtils.loadProperties(new ClassPathResource(BUDGETS));
+
+        List<Equipment> equipments = new ArrayList<>();
+        for (int i = 0; i < HISTORY; i++) {
+            equipments.add(equipment("EQ-BUDGET-" + i));
+        }
+        Client regular = client("10000000B");
+        Client occasional = client("20000000B");
+
+        // Historial devuelto y pagado: cada alquiler con su equipo y un pago
+        for (int i = 0; i < HISTORY; i++) {
+            LocalDate start = BASE.plusDays(i);
+            Rental rental = rentalService.createRental(
+                    (i % 3 == 0 ? occasional : regular).getDni(), equipments.get(i).getId(), start, start.plusDays(1));
+            paymentService.registerPayment(rental.getId(), new BigDecimal("5.00"));
+            rentalService.registerReturn(rental.getId());
+        }
+
+        Rental toPay = rentalService.createRental(regular.getDni(), equipments.get(0).getId(),
+                BASE.plusDays(100), BASE.plusDays(101));
+        Rental toReturn = rentalService.createRental(regular.getDni(), equipments.get(1).getId(),
+                BASE.plusDays(100), BASE.plusDays(101));
+        Equipment toUpdate = equipment("EQ-BUDGET-UPDATE");
+        Equipment toDelete = equipment("EQ-BUDGET-DELETE");
+        Client toEdit = client("30000000B");
+        Client toRemove = client("40000000B");
+
+        scenarios.put("ClientController.create", post("/api/clients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"name": "Nuevo", "dni": "50000000B", "phone": "600000000", "email": "nuevo@ecorent.test"}
+                        """));
+        scenarios.put("ClientController.update", put("/api/clients/{id}", toEdit.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"name": "Editado", "dni": "30000000B", "phone": "611111111"}
+                        """));
+        scenarios.put("ClientController.delete", delete("/api/clients/{id}", toRemove.getId()));
+        scenarios.put("ClientController.getHistory", get("/api/clients/{dni}/rentals", regular.getDni()));
+        scenarios.put("ClientController.findAll", get("/api/clients"));
+        scenarios.put("ClientController.search", get("/api/clients/search").param("name", "Cliente"));
+
+        scenarios.put("EquipmentController.create", post("/api/equipments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"name": "Nuevo", "category": "Obra", "internalCode": "EQ-BUDGET-NEW", "pricePerDay": 12.50}
+                        """));
+        scenarios.put("EquipmentController.importEquipments", post("/api/equipments/import")
+                .contentType("text/csv")
+                .content("""
+                        name,category,internalCode,pricePerDay
+                        Importado 1,Obra,EQ-BUDGET-IMPORT-1,10
+                        Importado 2,Obra,EQ-BUDGET-IMPORT-2,12.50
+                        """));
+        scenarios.put("EquipmentController.findAll", get("/api/equipments"));
+        scenarios.put("EquipmentController.search", get("/api/equipments/search").param("category", "Obra"));
+        scenarios.put("EquipmentController.findAvailable", get("/api/equipments/available")
+                .param("category", "Obra")
+                .param("start", BASE.toString())
+                .param("end", BASE.plusDays(10).toString()));
+        scenarios.put("EquipmentController.update", put("/api/equipments/{id}", toUpdate.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"name": "Editado", "category": "Obra", "internalCode": "EQ-BUDGET-UPDATE", "pricePerDay": 20}
+                        """));
+        scenarios.put("EquipmentController.delete", delete("/api/equipments/{id}", toDelete.getId()));
+        scenarios.put("EquipmentController.events", get("/api/equipments/events").param("lastEventId", "0"));
+        scenarios.put("EquipmentController.updateStatus", put("/api/equipments/{id}/status", toUpdate.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"status": "MAINTENANCE"}
+                        """));
+
+        scenarios.put("RentalController.create", post("/api/rentals")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"clientDni": "%s", "equipmentId": %d, "startDate": "%s", "endDate": "%s"}
+                        """.formatted(occasional.getDni(), equipments.get(2).getId(),
+                        BASE.plusDays(200), BASE.plusDays(202))));
+        scenarios.put("RentalController.createBatch", post("/api/rentals/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"clientDni": "%s", "equipmentIds": [%d, %d, %d], "startDate": "%s", "endDate": "%s"}
+                        """.formatted(occasional.getDni(), equipments.get(3).getId(), equipments.get(4).getId(),
+                        equipments.get(5).getId(), BASE.plusDays(300), BASE.plusDays(301))));
+        scenarios.put("RentalController.findOverdue", get("/api/rentals/overdue"));
+        scenarios.put("RentalController.registerReturn", put("/api/rentals/{id}/return", toReturn.getId()));
+        scenarios.put("RentalController.getClientHistory", get("/api/rentals/{dni}/rentals", regular.getDni()));
+
+        scenarios.put("PaymentController.register", post("/api/rentals/{id}/payments", toPay.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"amount": 1.00}
+                        """));
+        scenarios.put("StatementController.reconcile", post("/api/payments/statements")
+                .contentType("text/csv")
+                .content("""
+                        reference,amount
+                        ALQ-%d,1.00
+                        ALQ-%d,1.00
+                        ALQ-0,1.00
+                        """.formatted(toPay.getId(), toReturn.getId())));
+
+        scenarios.put("ReportController.income", get("/api/reports/income")
+                .param("start", BASE.toString())
+                .param("end", BASE.plusDays(30).toString()));
+        scenarios.put("ReportController.topEquipments", get("/api/reports/top-equipments"));
+        scenarios.put("ReportController.topClients", get("/api/reports/top-clients"));
+
+        // Ingresos: el trabajo se calcula en memoria y no añade sentencias en segundo plano
+        scenarios.put("ReportController.submitJob", post("/api/reports/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"type": "INCOME", "start": "%s", "end": "%s"}
+                        """.formatted(BASE, BASE.plusDays(30))));
+        scenarios.put("ReportController.getJob", get("/api/reports/jobs/{id}", reportJobService.submit(
+                new ReportJobRequest(ReportType.INCOME, BASE, BASE.plusDays(30), null)).id()));
+
+        scenarios.put("ExportController.rentals", get("/api/exports/rentals").param("format", "csv"));
+        scenarios.put("ExportController.payments", get("/api/exports/payments"));
+
+        scenarios.put("CacheController.stats", get("/api/cache/stats"));
+    }
+
+    private Equipment equipment(String code) {
+        return equipmentService.createEquipment(Equipment.builder()
+                .name("Equipo " + code)
+                .category("Obra")
+                .internalCode(code)
+                .pricePerDay(BigDecimal.TEN)
+                .build());
+    }
+
+    private Client client(String dni) {
+        return clientService.createClient(Client.builder()
+                .name("Cliente " + dni)
+                .dni(dni)
+                .phone("600000000")
+                .build());
+    }
+
+    @TestFactory
+    Stream<DynamicTest> everyEndpointStaysWithinItsStatementBudget() {
+        TreeSet<String> endpoints = new TreeSet<>();
+        for (HandlerMethod handler : handlerMapping.getHandlerMethods().values()) {
+            if (handler.getBeanType().getPackageName().equals(RentalController.class.getPackageName())) {
+                endpoints.add(handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName());
+            }
+        }
+        assertFalse(endpoints.isEmpty());
+
+        return endpoints.stream().map(endpoint -> DynamicTest.dynamicTest(endpoint, () -> {
+            String budget = budgets.getProperty(endpoint);
+            assertNotNull(budget, "Sin presupuesto en " + BUDGETS + " para " + endpoint);
+            RequestBuilder request = scenarios.get(endpoint);
+            assertNotNull(request, "Sin escenario para " + endpoint);
+
+            long statements = measure(request);
+
+            log.info("{}: {} sentencias SQL (máximo {})", endpoint, statements, budget);
+            assertTrue(statements <= Long.parseLong(budget.trim()),
+                    endpoint + " ejecutó " + statements + " sentencias SQL; presupuesto " + budget);
+        }));
+    }
+
+    private long measure(RequestBuilder request) throws Exception {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statementCounter.reset();
+
+        MvcResult result = mockMvc.perform(request).andReturn();
+        // Un flujo SSE no termina: se mide solo la suscripción
+        boolean eventStream = result.getHandler() instanceof HandlerMethod handler
+                && SseEmitter.class.isAssignableFrom(handler.getMethod().getReturnType());
+        if (result.getRequest().isAsyncStarted() && !eventStream) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        status().is2xxSuccessful().match(result);
+
+        return statementCounter.reset();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecorent.gestionalquileres.controller;
+
+import com.ecorent.gestionalquileres.dto.payment.StatementFormat;
+import com.ecorent.gestionalquileres.dto.payment.StatementLineIssue;
+import com.ecorent.gestionalquileres.dto.payment.StatementReconciliationResponse;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import com.ecorent.gestionalquileres.service.StatementReconciliationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = StatementController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class StatementControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    StatementReconciliationService statementReconciliationService;
+
+    // ---------- POST /api/payments/statements ----------
+
+    @Test
+    void reconcile_returnsReport_asCsvByDefault() throws Exception {
+        given(statementReconciliationService.reconcile(eq(StatementFormat.CSV), any(InputStream.class)))
+                .willReturn(new StatementReconciliationResponse(1, new BigDecimal("25.00"),
+                        List.of(new StatementLineIssue(3, "ALQ-99", new BigDecimal("7.00"), "Ningún alquiler con esa referencia")),
+                        List.of(),
+                        List.of()));
+
+        mockMvc.perform(post("/api/payments/statements")
+                        .contentType("text/csv")
+                        .content("reference,amount\nALQ-1,25.00\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.appliedAmount").value(25.00))
+                .andExpect(jsonPath("$.unmatched[0].row").value(3))
+                .andExpect(jsonPath("$.unmatched[0].reference").value("ALQ-99"))
+                .andExpect(jsonPath("$.overpayments").isEmpty());
+    }
+
+    @Test
+    void reconcile_acceptsFixedWidthFormat() throws Exception {
+        given(statementReconciliationService.reconcile(eq(StatementFormat.FIXED), any(InputStream.class)))
+                .willReturn(new StatementReconciliationResponse(0, BigDecimal.ZERO, List.of(), List.of(), List.of()));
+
+        mockMvc.perform(post("/api/payments/statements")
+                        .param("format", "fixed")
+                        .content("20320310ALQ-1               00000000001250\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(0));
+    }
+
+    @Test
+    void reconcile_returnsBadRequest_whenFileIsInvalid() throws Exception {
+        given(statementReconciliationService.reconcile(eq(StatementFormat.CSV), any(InputStream.class)))
+                .willThrow(new BusinessException(RejectionReason.INVALID_IMPORT_FILE, "El extracto está vacío"));
+
+        mockMvc.perform(post("/api/payments/statements").content(""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("El extracto está vacío"));
+    }
+
+    @Test
+    void reconcile_returnsBadRequest_whenFormatIsUnknown() throws Exception {
+        mockMvc.perform(post("/api/payments/statements")
+                        .param("format", "ofx")
+                        .content("x"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Formato de extracto no soportado: ofx"));
+
+        verifyNoInteractions(statementReconciliationService);
+    }
+}
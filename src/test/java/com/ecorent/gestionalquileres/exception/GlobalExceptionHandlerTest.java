@@ -1,5 +1,7 @@
 package com.ecorent.gestionalquileres.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
@@ -7,7 +9,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.core.MethodParameter;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.util.TypeInformation;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BeanPropertyBindingResult;
@@ -17,6 +23,8 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 
 import java.lang.reflect.Method;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -30,6 +38,9 @@ class GlobalExceptionHandlerTest {
     @Mock
     HttpServletRequest request;
 
+    @Mock
+    ObjectProvider<MeterRegistry> meterRegistry;
+
     static class Dummy {
         @SuppressWarnings("unused")
         public void dummyMethod(String param) {
@@ -57,6 +68,26 @@ class GlobalExceptionHandlerTest {
         assertEquals("/api/test", body.path());
     }
 
+    @Test
+    void handleBusinessException_countsRejectionByReason() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GlobalExceptionHandler countingHandler = new GlobalExceptionHandler(
+                new StaticListableBeanFactory(Map.of("meterRegistry", registry))
+                        .getBeanProvider(MeterRegistry.class));
+        when(request.getRequestURI()).thenReturn("/api/rentals/1/payments");
+
+        countingHandler.handleBusinessException(
+                new BusinessException(RejectionReason.OVERPAYMENT, "El pago supera el importe pendiente"), request);
+        countingHandler.handleBusinessException(
+                new BusinessException(RejectionReason.OVERPAYMENT, "El pago supera el importe pendiente"), request);
+        countingHandler.handleBusinessException(new BusinessException("Otro motivo"), request);
+
+        assertEquals(2.0, registry.get(GlobalExceptionHandler.REJECTIONS_METRIC)
+                .tag("reason", "overpayment").counter().count());
+        assertEquals(1.0, registry.get(GlobalExceptionHandler.REJECTIONS_METRIC)
+                .tag("reason", "other").counter().count());
+    }
+
     @Test
     void handleValidationException_aggregatesFieldErrorMessages() throws NoSuchMethodException {
         when(request.getRequestURI()).thenReturn("/api/validate");
@@ -144,4 +175,23 @@ class GlobalExceptionHandlerTest {
         assertEquals("Ha ocurrido un error inesperado", body.message());
         assertEquals("/api/error", body.path());
     }
+
+    @Test
+    void handlePropertyReference_returnsBadRequestWithPropertyName() {
+        PropertyReferenceException ex = new PropertyReferenceException(
+                "precio", TypeInformation.of(Dummy.class), List.of());
+
+        when(request.getRequestURI()).thenReturn("/api/equipments/search");
+
+        ResponseEntity<ErrorResponse> response =
+                handler.handlePropertyReference(ex, request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+        ErrorResponse body = response.getBody();
+        assertNotNull(body);
+        assertEquals("Invalid Parameter", body.error());
+        assertEquals("Propiedad de ordenación no válida: precio", body.message());
+        assertEquals("/api/equipments/search", body.path());
+    }
 }
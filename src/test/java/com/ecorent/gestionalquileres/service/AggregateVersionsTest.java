@@ -0,0 +1,74 @@
+package com.ecorent.gestionalquileres.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AggregateVersionsTest {
+
+    private final AggregateVersions versions = new AggregateVersions();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private List<TransactionSynchronization> bumpInTransaction(Aggregate... aggregates) {
+        TransactionSynchronizationManager.initSynchronization();
+        versions.bump(aggregates);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        return synchronizations;
+    }
+
+    @Test
+    void etag_isStrongAndChangesOnlyWithItsOwnAggregates() {
+        String equipments = versions.etag(Aggregate.EQUIPMENTS);
+        String clients = versions.etag(Aggregate.CLIENTS);
+
+        assertTrue(equipments.matches("\"[0-9a-z]+-0\""), equipments);
+
+        versions.bump(Aggregate.CLIENTS);
+
+        assertEquals(equipments, versions.etag(Aggregate.EQUIPMENTS));
+        assertNotEquals(clients, versions.etag(Aggregate.CLIENTS));
+        assertEquals(1, versions.version(Aggregate.CLIENTS));
+    }
+
+    @Test
+    void etag_combinesEveryAggregateOfTheResponse() {
+        String before = versions.etag(Aggregate.RENTALS, Aggregate.EQUIPMENTS);
+
+        versions.bump(Aggregate.EQUIPMENTS);
+
+        assertNotEquals(before, versions.etag(Aggregate.RENTALS, Aggregate.EQUIPMENTS));
+    }
+
+    @Test
+    void bump_insideTransaction_appliesOnlyAfterCommit() {
+        List<TransactionSynchronization> committed = bumpInTransaction(Aggregate.RENTALS, Aggregate.EQUIPMENTS);
+
+        assertEquals(0, versions.version(Aggregate.RENTALS));
+
+        committed.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, versions.version(Aggregate.RENTALS));
+        assertEquals(1, versions.version(Aggregate.EQUIPMENTS));
+    }
+
+    @Test
+    void bump_rolledBack_keepsTheVersion() {
+        List<TransactionSynchronization> rolledBack = bumpInTransaction(Aggregate.PAYMENTS);
+
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(0, versions.version(Aggregate.PAYMENTS));
+    }
+}
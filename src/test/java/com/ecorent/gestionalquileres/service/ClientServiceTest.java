@@ -10,6 +10,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +31,12 @@ class ClientServiceTest {
     @Mock
     RentalRepository rentalRepository;
 
+    @Mock
+    RentalCounters rentalCounters;
+
+    @Mock
+    AggregateVersions aggregateVersions;
+
     @InjectMocks
     ClientService clientService;
 
@@ -67,6 +79,8 @@ class ClientServiceTest {
         assertEquals(1L, result.getId());
         assertEquals("12345678A", result.getDni());
         verify(clientRepository).save(client);
+        verify(rentalCounters).registerClient(1L);
+        verify(aggregateVersions).bump(Aggregate.CLIENTS);
     }
 
     @Test
@@ -150,6 +164,8 @@ class ClientServiceTest {
         clientService.deleteClient(1L);
 
         verify(clientRepository).delete(client);
+        verify(rentalCounters).forgetClient(1L);
+        verify(aggregateVersions).bump(Aggregate.CLIENTS);
     }
 
     @Test
@@ -179,17 +195,39 @@ class ClientServiceTest {
     }
 
     @Test
-    void findAll_returnsAllClientsFromRepository() {
-        List<Client> clients = List.of(
+    void findAll_returnsTheFirstPageOfClientsByIdUpToTheLimit() {
+        Page<Client> clients = new PageImpl<>(List.of(
                 Client.builder().id(1L).build(),
                 Client.builder().id(2L).build()
-        );
+        ));
 
-        when(clientRepository.findAll()).thenReturn(clients);
+        when(clientRepository.findAll(PageRequest.of(0, ClientService.UNPAGED_LIMIT, Sort.by("id")))).thenReturn(clients);
 
-        List<Client> result = clientService.findAll();
+        Page<Client> result = clientService.findAll();
 
         assertSame(clients, result);
-        assertEquals(2, result.size());
+        assertEquals(2, result.getContent().size());
+    }
+
+    // ---------- search ----------
+
+    @Test
+    void search_buildsEscapedLowercasePrefixPattern() {
+        Pageable pageable = PageRequest.of(0, 20);
+        Page<Client> page = new PageImpl<>(List.of(Client.builder().id(1L).build()));
+
+        when(clientRepository.search("ma\\_r%", pageable)).thenReturn(page);
+
+        assertSame(page, clientService.search(" Ma_R ", pageable));
+    }
+
+    @Test
+    void search_withoutPrefix_passesNullFilter() {
+        Pageable pageable = PageRequest.of(1, 5);
+        Page<Client> page = Page.empty(pageable);
+
+        when(clientRepository.search(null, pageable)).thenReturn(page);
+
+        assertSame(page, clientService.search("  ", pageable));
     }
 }
@@ -0,0 +1,69 @@
+package com.ecorent.gestionalquileres.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DailyIncomeSumsTest {
+
+    @Test
+    void sum_isZeroWhenEmpty() {
+        DailyIncomeSums sums = new DailyIncomeSums();
+
+        assertEquals(0, sums.sum(0, 1_000));
+    }
+
+    @Test
+    void sum_coversInclusiveRangeAndClampsOutsideData() {
+        DailyIncomeSums sums = new DailyIncomeSums();
+        sums.add(100, 1_000);
+        sums.add(102, 250);
+        sums.add(102, 5);
+
+        assertEquals(1_000, sums.sum(100, 100));
+        assertEquals(1_255, sums.sum(100, 102));
+        assertEquals(255, sums.sum(101, 102));
+        assertEquals(1_255, sums.sum(-5_000, 5_000));
+        assertEquals(0, sums.sum(103, 90_000));
+        assertEquals(0, sums.sum(102, 101));
+    }
+
+    @Test
+    void add_growsInBothDirectionsKeepingTotals() {
+        DailyIncomeSums sums = new DailyIncomeSums();
+        sums.add(10_000, 1);
+        sums.add(5_000, 10);
+        sums.add(20_000, 100);
+
+        assertEquals(111, sums.sum(0, 30_000));
+        assertEquals(11, sums.sum(5_000, 10_000));
+        assertEquals(101, sums.sum(10_000, 20_000));
+        assertEquals(100, sums.sum(10_001, 25_000));
+    }
+
+    @Test
+    void sum_matchesNaiveTotalsForRandomData() {
+        Random random = new Random(7);
+        long[] naive = new long[2_000];
+        DailyIncomeSums sums = new DailyIncomeSums();
+
+        for (int i = 0; i < 5_000; i++) {
+            int day = random.nextInt(naive.length);
+            long cents = random.nextInt(100_000);
+            naive[day] += cents;
+            sums.add(day, cents);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(naive.length);
+            int to = from + random.nextInt(naive.length - from);
+            long expected = 0;
+            for (int day = from; day <= to; day++) {
+                expected += naive[day];
+            }
+            assertEquals(expected, sums.sum(from, to));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EquipmentCatalogTest {
+
+    @Mock
+    EquipmentRepository equipmentRepository;
+
+    @Mock
+    AggregateVersions aggregateVersions;
+
+    private EquipmentCatalog catalog;
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, EquipmentCatalog.LIMIT, Sort.by("id"));
+
+    @BeforeEach
+    void setUp() {
+        catalog = new EquipmentCatalog(equipmentRepository, aggregateVersions, new ObjectMapper());
+    }
+
+    private static Equipment equipment(long id, EquipmentStatus status) {
+        return Equipment.builder()
+                .id(id)
+                .name("Taladro " + id)
+                .category("Herramientas")
+                .internalCode("EQ-00" + id)
+                .pricePerDay(BigDecimal.TEN)
+                .status(status)
+                .build();
+    }
+
+    private static PageImpl<Equipment> page(List<Equipment> equipments, long total) {
+        return new PageImpl<>(equipments, FIRST_PAGE, total);
+    }
+
+    @Test
+    void current_serializesTheCatalogAsJsonAndGzip() throws IOException {
+        when(aggregateVersions.version(Aggregate.EQUIPMENTS)).thenReturn(4L);
+        when(equipmentRepository.findAll(FIRST_PAGE))
+                .thenReturn(page(List.of(equipment(1, EquipmentStatus.AVAILABLE)), 1));
+
+        EquipmentCatalog.Snapshot snapshot = catalog.current();
+
+        assertEquals(4L, snapshot.version());
+        assertEquals(1L, snapshot.total());
+        assertFalse(snapshot.truncated());
+        assertEquals("""
+                [{"id":1,"name":"Taladro 1","category":"Herramientas","internalCode":"EQ-001",\
+                "pricePerDay":10,"status":"AVAILABLE"}]""", new String(snapshot.json(), StandardCharsets.UTF_8));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.gzip()))) {
+            assertArrayEquals(snapshot.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void current_withoutWrites_reusesTheSameBytes() {
+        when(aggregateVersions.version(Aggregate.EQUIPMENTS)).thenReturn(4L);
+        when(equipmentRepository.findAll(FIRST_PAGE))
+                .thenReturn(page(List.of(equipment(1, EquipmentStatus.AVAILABLE)), 1));
+
+        EquipmentCatalog.Snapshot first = catalog.current();
+        EquipmentCatalog.Snapshot second = catalog.current();
+
+        assertSame(first, second);
+        verify(equipmentRepository, times(1)).findAll(FIRST_PAGE);
+    }
+
+    @Test
+    void current_afterACommittedWrite_rebuildsOnce() {
+        when(aggregateVersions.version(Aggregate.EQUIPMENTS)).thenReturn(4L, 5L);
+        when(equipmentRepository.findAll(FIRST_PAGE))
+                .thenReturn(page(List.of(equipment(1, EquipmentStatus.AVAILABLE)), 1))
+                .thenReturn(page(List.of(equipment(1, EquipmentStatus.RENTED)), 1));
+
+        EquipmentCatalog.Snapshot before = catalog.current();
+        EquipmentCatalog.Snapshot after = catalog.current();
+
+        assertEquals(5L, after.version());
+        assertNotSame(before, after);
+        assertTrue(new String(after.json(), StandardCharsets.UTF_8).contains("\"status\":\"RENTED\""));
+        assertSame(after, catalog.current());
+        verify(equipmentRepository, times(2)).findAll(FIRST_PAGE);
+    }
+
+    @Test
+    void current_withMoreEquipmentsThanTheLimit_marksTheSnapshotAsTruncated() {
+        when(aggregateVersions.version(Aggregate.EQUIPMENTS)).thenReturn(4L);
+        when(equipmentRepository.findAll(FIRST_PAGE))
+                .thenReturn(page(List.of(equipment(1, EquipmentStatus.AVAILABLE)), EquipmentCatalog.LIMIT + 5L));
+
+        EquipmentCatalog.Snapshot snapshot = catalog.current();
+
+        assertEquals(EquipmentCatalog.LIMIT + 5L, snapshot.total());
+        assertTrue(snapshot.truncated());
+    }
+}
@@ -0,0 +1,269 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentImportError;
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentImportResponse;
+import com.ecorent.gestionalquileres.dto.equipment.ImportFormat;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Importación masiva contra H2 en memoria, con lotes pequeños para que cada
+ * fichero ocupe varios.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:equipment-import;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "ecorent.equipments.import.chunk-size=3",
+        "ecorent.equipments.import.max-errors=5"
+})
+class EquipmentImportServiceTest {
+
+    @Autowired
+    EquipmentImportService equipmentImportService;
+
+    @Autowired
+    EquipmentService equipmentService;
+
+    @Autowired
+    EquipmentRepository equipmentRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    AggregateVersions aggregateVersions;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    // Códigos únicos por prueba: la base de datos se comparte entre todas
+    private String prefix;
+
+    @BeforeEach
+    void setUp() {
+        prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+
+    private static InputStream text(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // La búsqueda por id natural necesita una sesión abierta
+    private Optional<Equipment> find(String internalCode) {
+        return transactionTemplate.execute(status -> equipmentRepository.findByInternalCode(prefix + internalCode));
+    }
+
+    private Equipment stored(String internalCode) {
+        return find(internalCode).orElseThrow();
+    }
+
+    // ---------- CSV ----------
+
+    @Test
+    void importCsv_insertsValidRowsAvailableWithTheirCounters() throws IOException {
+        long version = aggregateVersions.version(Aggregate.EQUIPMENTS);
+
+        EquipmentImportResponse response = equipmentImportService.importEquipments(ImportFormat.CSV, text(
+                "internalCode,pricePerDay,name,category\r\n"
+                        + prefix + "A1,25.50,\"Taladro, percutor\",Herramientas\r\n"
+                        + prefix + "A2,40,\"Andamio \"\"grande\"\"\",Obra\r\n"
+                        + "\r\n"
+                        + prefix + "A3,12,Lijadora,Herramientas\n"
+                        + prefix + "A4,8,Escalera,Obra"));
+
+        assertEquals(new EquipmentImportResponse(4, 0, List.of()), response);
+
+        Equipment first = stored("A1");
+        assertEquals("Taladro, percutor", first.getName());
+        assertEquals("Herramientas", first.getCategory());
+        assertEquals(0, new BigDecimal("25.50").compareTo(first.getPricePerDay()));
+        assertEquals(EquipmentStatus.AVAILABLE, first.getStatus());
+        assertEquals("Andamio \"grande\"", stored("A2").getName());
+
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT rental_count FROM equipment_rental_count WHERE equipment_id = ?", Long.class, first.getId()));
+        assertTrue(aggregateVersions.version(Aggregate.EQUIPMENTS) > version);
+    }
+
+    @Test
+    void importCsv_reportsEachRejectedRowAndImportsTheRest() throws IOException {
+        equipmentService.createEquipment(Equipment.builder()
+                .name("Hormigonera").category("Obra").internalCode(prefix + "EXISTING")
+                .pricePerDay(BigDecimal.TEN).build());
+
+        EquipmentImportResponse response = equipmentImportService.importEquipments(ImportFormat.CSV, text(
+                "name,category,internalCode,pricePerDay\n"
+                        + "Taladro,Herramientas," + prefix + "B1,10\n"
+                        + "Hormigonera,Obra," + prefix + "EXISTING,10\n"
+                        + "Taladro,Herramientas," + prefix + "B1,10\n"
+                        + "Sierra,Herramientas," + prefix + "B2,diez\n"
+                        + ",Herramientas," + prefix + "B3,-1\n"
+                        + "Sierra,Herramientas\n"
+                        + "Lijadora,Herramientas," + prefix + "B4,12\n"));
+
+        assertEquals(2, response.imported());
+        assertEquals(5, response.rejected());
+        assertEquals(List.of(
+                new EquipmentImportError(2, prefix + "EXISTING", EquipmentImportService.DUPLICATE_CODE),
+                new EquipmentImportError(3, prefix + "B1", EquipmentImportService.DUPLICATE_CODE),
+                new EquipmentImportError(4, prefix + "B2", "pricePerDay: no es un número")
+        ), response.errors().subList(0, 3));
+        assertEquals(5, response.errors().get(3).row());
+        assertTrue(response.errors().get(3).message().contains("name: "));
+        assertTrue(response.errors().get(3).message().contains("pricePerDay: "));
+        assertEquals(new EquipmentImportError(6, null, "Se esperaban 4 columnas y hay 2"), response.errors().get(4));
+
+        assertTrue(find("B4").isPresent());
+        assertTrue(find("B3").isEmpty());
+    }
+
+    @Test
+    void importCsv_whenACodeIsCreatedMeanwhile_retriesTheChunkRowByRow() throws IOException {
+        String content = "name,category,internalCode,pricePerDay\n"
+                + "Taladro,Herramientas," + prefix + "C1,10\n"
+                + "Hormigonera,Obra," + prefix + "C2,10\n"
+                + "Sierra,Herramientas," + prefix + "C3,10\n"
+                + "Lijadora,Herramientas," + prefix + "C4,10\n";
+        // Otra petición da de alta C2 cuando la importación ya cargó los códigos existentes
+        InputStream in = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)) {
+            private boolean created;
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                if (!created) {
+                    created = true;
+                    equipmentService.createEquipment(Equipment.builder()
+                            .name("Hormigonera").category("Obra").internalCode(prefix + "C2")
+                            .pricePerDay(BigDecimal.TEN).build());
+                }
+                return super.read(b, off, len);
+            }
+        };
+
+        EquipmentImportResponse response = equipmentImportService.importEquipments(ImportFormat.CSV, in);
+
+        assertEquals(3, response.imported());
+        assertEquals(1, response.rejected());
+        assertEquals(List.of(new EquipmentImportError(2, prefix + "C2", EquipmentImportService.DUPLICATE_CODE)),
+                response.errors());
+        assertTrue(find("C1").isPresent());
+        assertTrue(find("C3").isPresent());
+        assertTrue(find("C4").isPresent());
+        assertEquals("Obra", stored("C2").getCategory());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM equipment WHERE internal_code = ?", Integer.class, prefix + "C2"));
+    }
+
+    @Test
+    void importCsv_withMoreErrorsThanTheLimit_countsAllButListsOnlyTheFirst() throws IOException {
+        StringBuilder csv = new StringBuilder("name,category,internalCode,pricePerDay\n");
+        for (int i = 0; i < 8; i++) {
+            csv.append("Taladro,Herramientas,").append(prefix).append("C").append(i).append(",gratis\n");
+        }
+
+        EquipmentImportResponse response = equipmentImportService.importEquipments(ImportFormat.CSV, text(csv.toString()));
+
+        assertEquals(0, response.imported());
+        assertEquals(8, response.rejected());
+        assertEquals(5, response.errors().size());
+    }
+
+    @Test
+    void importCsv_withUnclosedQuote_rejectsTheLastRow() throws IOException {
+        EquipmentImportResponse response = equipmentImportService.importEquipments(ImportFormat.CSV, text(
+                "name,category,internalCode,pricePerDay\n"
+                        + "Taladro,Herramientas," + prefix + "D1,10\n"
+                        + "\"Sierra,Herramientas," + prefix + "D2,10\n"));
+
+        assertEquals(1, response.imported());
+        assertEquals(List.of(new EquipmentImportError(2, null, "Comillas sin cerrar")),
+                response.errors());
+    }
+
+    @Test
+    void importCsv_withoutARequiredColumn_rejectsTheFile() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> equipmentImportService.importEquipments(ImportFormat.CSV, text(
+                        "name,category,pricePerDay\nTaladro,Herramientas,10\n")));
+
+        assertEquals(RejectionReason.INVALID_IMPORT_FILE, ex.getReason());
+        assertTrue(ex.getMessage().contains("internalCode"));
+    }
+
+    @Test
+    void importCsv_empty_rejectsTheFile() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> equipmentImportService.importEquipments(ImportFormat.CSV, text("")));
+
+        assertEquals(RejectionReason.INVALID_IMPORT_FILE, ex.getReason());
+    }
+
+    // ---------- NDJSON ----------
+
+    @Test
+    void importNdjson_insertsEachLineAndReportsInvalidOnes() throws IOException {
+        EquipmentImportResponse response = equipmentImportService.importEquipments(ImportFormat.NDJSON, text(
+                "{\"name\":\"Taladro\",\"category\":\"Herramientas\",\"internalCode\":\"" + prefix + "E1\",\"pricePerDay\":10}\n"
+                        + "{\"name\":\"Sierra\",\n"
+                        + "\n"
+                        + "{\"name\":\"Lijadora\",\"category\":\"Herramientas\",\"internalCode\":\"" + prefix + "E2\",\"pricePerDay\":12.5}\n"));
+
+        assertEquals(2, response.imported());
+        assertEquals(List.of(new EquipmentImportError(2, null, "JSON no válido")), response.errors());
+        assertEquals(0, new BigDecimal("12.5").compareTo(stored("E2").getPricePerDay()));
+    }
+
+    @Test
+    void importNdjson_nullOrNonObjectLines_areRowErrors() throws IOException {
+        EquipmentImportResponse response = equipmentImportService.importEquipments(ImportFormat.NDJSON, text(
+                "null\n"
+                        + "42\n"
+                        + "\"Taladro\"\n"
+                        + "[]\n"
+                        + "{\"name\":\"Lijadora\",\"category\":\"Herramientas\",\"internalCode\":\"" + prefix + "E1\",\"pricePerDay\":12}\n"));
+
+        assertEquals(1, response.imported());
+        assertEquals(4, response.rejected());
+        assertEquals(List.of(
+                new EquipmentImportError(1, null, "JSON no válido"),
+                new EquipmentImportError(2, null, "JSON no válido"),
+                new EquipmentImportError(3, null, "JSON no válido"),
+                new EquipmentImportError(4, null, "JSON no válido")), response.errors());
+    }
+
+    @Test
+    void importCsv_spanningManyChunks_insertsEveryRow() throws IOException {
+        int rows = 1_000;
+        StringBuilder csv = new StringBuilder("name,category,internalCode,pricePerDay\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Equipo ").append(i).append(",Obra,").append(prefix).append("F").append(i).append(",10.00\n");
+        }
+
+        EquipmentImportResponse response = equipmentImportService.importEquipments(ImportFormat.CSV, text(csv.toString()));
+
+        assertEquals(new EquipmentImportResponse(rows, 0, List.of()), response);
+        assertEquals(rows, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM equipment_rental_count c JOIN equipment e ON e.id = c.equipment_id "
+                        + "WHERE e.internal_code LIKE ?", Integer.class, prefix + "F%"));
+    }
+}
@@ -5,15 +5,23 @@ import com.ecorent.gestionalquileres.entity.EquipmentStatus;
 import com.ecorent.gestionalquileres.exception.BusinessException;
 import com.ecorent.gestionalquileres.repository.EquipmentRepository;
 import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.ecorent.gestionalquileres.service.availability.AvailabilityIndex;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +35,18 @@ class EquipmentServiceTest {
     @Mock
     RentalRepository rentalRepository;
 
+    @Mock
+    AvailabilityIndex availabilityIndex;
+
+    @Mock
+    RentalCounters rentalCounters;
+
+    @Mock
+    EquipmentStatusFeed equipmentStatusFeed;
+
+    @Mock
+    AggregateVersions aggregateVersions;
+
     @InjectMocks
     EquipmentService equipmentService;
 
@@ -63,13 +83,18 @@ class EquipmentServiceTest {
         when(equipmentRepository.findByInternalCode("EQ-001"))
                 .thenReturn(Optional.empty());
         when(equipmentRepository.save(equipment))
-                .thenReturn(equipment);
+                .thenAnswer(invocation -> {
+                    equipment.setId(9L);
+                    return equipment;
+                });
 
         Equipment result = equipmentService.createEquipment(equipment);
 
         assertNotNull(result);
         assertEquals(EquipmentStatus.AVAILABLE, result.getStatus());
         verify(equipmentRepository).save(equipment);
+        verify(rentalCounters).registerEquipment(9L);
+        verify(equipmentStatusFeed).record(9L, null, EquipmentStatus.AVAILABLE);
     }
 
     // ---------- updateEquipment ----------
@@ -201,6 +226,8 @@ class EquipmentServiceTest {
         equipmentService.deleteEquipment(1L);
 
         verify(equipmentRepository).delete(equipment);
+        verify(rentalCounters).forgetEquipment(1L);
+        verify(equipmentStatusFeed).record(1L, EquipmentStatus.AVAILABLE, null);
     }
 
     // ---------- changeStatus ----------
@@ -231,22 +258,80 @@ class EquipmentServiceTest {
         assertSame(equipment, result);
         assertEquals(EquipmentStatus.MAINTENANCE, equipment.getStatus());
         verify(equipmentRepository, never()).save(any());
+        verify(equipmentStatusFeed).record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.MAINTENANCE);
+        verify(aggregateVersions).bump(Aggregate.EQUIPMENTS);
     }
 
     // ---------- findAll ----------
 
+    // ---------- findAvailable ----------
+
     @Test
-    void findAll_returnsAllEquipmentsFromRepository() {
-        List<Equipment> equipments = List.of(
-                Equipment.builder().id(1L).build(),
-                Equipment.builder().id(2L).build()
+    void findAvailable_whenEndBeforeStart_throwsBusinessException() {
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> equipmentService.findAvailable("Obra", LocalDate.of(2024, 5, 7), LocalDate.of(2024, 5, 1))
         );
 
-        when(equipmentRepository.findAll()).thenReturn(equipments);
+        assertEquals("Fecha fin no puede ser anterior a fecha inicio", ex.getMessage());
+        verifyNoInteractions(equipmentRepository, rentalRepository);
+    }
+
+    @Test
+    void findAvailable_whenIndexReady_filtersWithCalendarWithoutRentalQueries() {
+        LocalDate start = LocalDate.of(2024, 5, 1);
+        LocalDate end = LocalDate.of(2024, 5, 7);
+
+        Equipment free = Equipment.builder().id(1L).category("Obra").build();
+        Equipment busy = Equipment.builder().id(2L).category("Obra").build();
+
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.freeBetween(start, end)).thenReturn(id -> id == 1L);
+        when(equipmentRepository.findRentableByCategory("Obra")).thenReturn(List.of(free, busy));
+
+        List<Equipment> result = equipmentService.findAvailable("Obra", start, end);
+
+        assertEquals(List.of(free), result);
+        verifyNoInteractions(rentalRepository);
+    }
+
+    @Test
+    void findAvailable_whenIndexNotReady_usesSingleBookedIdsQuery() {
+        LocalDate start = LocalDate.of(2024, 5, 1);
+        LocalDate end = LocalDate.of(2024, 5, 7);
+
+        Equipment free = Equipment.builder().id(1L).build();
+        Equipment busy = Equipment.builder().id(2L).build();
+
+        when(rentalRepository.findBookedEquipmentIdsBetween(start, end)).thenReturn(Set.of(2L));
+        when(equipmentRepository.findRentableByCategory(null)).thenReturn(List.of(free, busy));
+
+        List<Equipment> result = equipmentService.findAvailable(" ", start, end);
+
+        assertEquals(List.of(free), result);
+        verify(rentalRepository).findBookedEquipmentIdsBetween(start, end);
+    }
+
+    // ---------- search ----------
+
+    @Test
+    void search_withOnlyStatus_usesFindByStatus() {
+        Pageable pageable = PageRequest.of(0, 20);
+        Page<Equipment> page = new PageImpl<>(List.of(Equipment.builder().id(1L).build()));
+
+        when(equipmentRepository.findByStatus(EquipmentStatus.AVAILABLE, pageable)).thenReturn(page);
+
+        assertSame(page, equipmentService.search(EquipmentStatus.AVAILABLE, null, "", pageable));
+        verify(equipmentRepository, never()).search(any(), any(), any(), any());
+    }
+
+    @Test
+    void search_withTextFilters_usesFilteredQuery() {
+        Pageable pageable = PageRequest.of(0, 20);
+        Page<Equipment> page = Page.empty(pageable);
 
-        List<Equipment> result = equipmentService.findAll();
+        when(equipmentRepository.search(EquipmentStatus.RENTED, "Obra", "gen%", pageable)).thenReturn(page);
 
-        assertSame(equipments, result);
-        assertEquals(2, result.size());
+        assertSame(page, equipmentService.search(EquipmentStatus.RENTED, "Obra", "Gen", pageable));
     }
 }
@@ -0,0 +1,276 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.equipment.EquipmentStatusCount;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EquipmentStatusFeedTest {
+
+    private static final String EMPTY_SUMMARY =
+            "EquipmentStatusSummary[total=0, available=0, rented=0, maintenance=0]";
+
+    private final EquipmentRepository equipmentRepository = mock(EquipmentRepository.class);
+
+    private EquipmentStatusFeed feed;
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private EquipmentStatusFeed feed(int bufferSize) {
+        return feed(bufferSize, 256, Duration.ofHours(1));
+    }
+
+    private EquipmentStatusFeed feed(int bufferSize, int queueCapacity, Duration writeTimeout) {
+        feed = new EquipmentStatusFeed(equipmentRepository, bufferSize, queueCapacity,
+                Duration.ofMinutes(5), writeTimeout, Duration.ofHours(1));
+        return feed;
+    }
+
+    // Guarda cada evento como el texto que llegaría al navegador
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private volatile boolean broken;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            events.add(builder.build().stream()
+                    .map(part -> String.valueOf(part.getData()))
+                    .collect(Collectors.joining()));
+        }
+
+        RecordingEmitter awaitEvents(int count) throws InterruptedException {
+            await(() -> events.size() >= count, count + " eventos, recibidos " + events);
+            return this;
+        }
+    }
+
+    // Cliente que no lee: cada envío se queda esperando hasta que termina la prueba
+    private static final class BlockedEmitter extends SseEmitter {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("No se cumplió a tiempo: " + description);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private RecordingEmitter subscribe(Long lastEventId) throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter();
+        int before = feed.subscriberCount();
+        feed.subscribe(emitter, lastEventId);
+        await(() -> feed.subscriberCount() > before, "suscripción registrada");
+        return emitter;
+    }
+
+    // ---------- subscribe ----------
+
+    @Test
+    void subscribe_withoutLastEventId_syncsAndThenReceivesChanges() throws InterruptedException {
+        feed(10);
+        RecordingEmitter emitter = subscribe(null);
+
+        feed.record(7L, EquipmentStatus.AVAILABLE, EquipmentStatus.MAINTENANCE);
+
+        emitter.awaitEvents(2);
+        assertEquals("id:0\nevent:sync\ndata:" + EMPTY_SUMMARY + "\n\n", emitter.events.get(0));
+        assertEquals("id:1\nevent:status\ndata:EquipmentStatusEvent[equipmentId=7, previous=AVAILABLE, status=MAINTENANCE]\n\n",
+                emitter.events.get(1));
+    }
+
+    @Test
+    void subscribe_sync_carriesTheTotalsAsOfItsId() throws InterruptedException {
+        when(equipmentRepository.countByStatus()).thenReturn(List.of(
+                new EquipmentStatusCount(EquipmentStatus.AVAILABLE, 5),
+                new EquipmentStatusCount(EquipmentStatus.RENTED, 2)));
+        feed(10);
+        feed.loadTotals();
+        feed.record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        feed.record(2L, null, EquipmentStatus.AVAILABLE);
+        feed.record(3L, EquipmentStatus.AVAILABLE, EquipmentStatus.MAINTENANCE);
+        feed.record(4L, EquipmentStatus.RENTED, null);
+
+        RecordingEmitter emitter = subscribe(null).awaitEvents(1);
+
+        assertEquals("id:4\nevent:sync\ndata:EquipmentStatusSummary[total=7, available=4, rented=2, maintenance=1]\n\n",
+                emitter.events.get(0));
+    }
+
+    @Test
+    void subscribe_withLastEventId_replaysOnlyMissedEvents() throws InterruptedException {
+        feed(10);
+        feed.record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        feed.record(2L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        feed.record(3L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+
+        RecordingEmitter emitter = subscribe(1L);
+        feed.record(4L, EquipmentStatus.RENTED, EquipmentStatus.AVAILABLE);
+
+        emitter.awaitEvents(3);
+        assertTrue(emitter.events.get(0).startsWith("id:2\nevent:status\n"));
+        assertTrue(emitter.events.get(1).startsWith("id:3\nevent:status\n"));
+        assertTrue(emitter.events.get(2).startsWith("id:4\nevent:status\n"));
+        assertEquals(3, emitter.events.size());
+    }
+
+    @Test
+    void subscribe_withLastEventIdOutOfTheBuffer_syncsAgain() throws InterruptedException {
+        feed(2);
+        for (long id = 1; id <= 4; id++) {
+            feed.record(id, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        }
+
+        RecordingEmitter emitter = subscribe(1L).awaitEvents(1);
+
+        assertTrue(emitter.events.get(0).startsWith("id:4\nevent:sync\n"));
+        assertEquals(1, emitter.events.size());
+    }
+
+    @Test
+    void subscribe_withLastEventIdFromAnotherStartup_syncsAgain() throws InterruptedException {
+        feed(10);
+        feed.record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+
+        RecordingEmitter emitter = subscribe(500L).awaitEvents(1);
+
+        assertTrue(emitter.events.get(0).startsWith("id:1\nevent:sync\n"));
+        assertEquals(1, emitter.events.size());
+    }
+
+    @Test
+    void disconnectedSubscriber_isDroppedWithoutAffectingOthers() throws InterruptedException {
+        feed(10);
+        RecordingEmitter gone = subscribe(null).awaitEvents(1);
+        RecordingEmitter alive = subscribe(null);
+        gone.broken = true;
+
+        feed.record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+
+        alive.awaitEvents(2);
+        await(() -> feed.subscriberCount() == 1, "suscriptor desconectado eliminado");
+        assertEquals(1, gone.events.size());
+    }
+
+    @Test
+    void slowSubscriber_doesNotDelayOthersAndIsDroppedWhenItsQueueFills() throws InterruptedException {
+        feed(10, 2, Duration.ofHours(1));
+        BlockedEmitter slow = new BlockedEmitter();
+        feed.subscribe(slow, null);
+        try {
+            assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+            RecordingEmitter fast = subscribe(null);
+
+            // Al ritmo del cliente rápido: el lento sigue atascado en el sync
+            for (long id = 1; id <= 5; id++) {
+                feed.record(id, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+                fast.awaitEvents((int) id + 1);
+            }
+
+            assertTrue(fast.events.get(5).startsWith("id:5\nevent:status\n"));
+            await(() -> slow.completed, "suscriptor lento cerrado");
+            assertEquals(1, feed.subscriberCount());
+        } finally {
+            slow.release.countDown();
+        }
+    }
+
+    @Test
+    void blockedWrite_isDroppedAfterTheWriteTimeout() throws InterruptedException {
+        feed(10, 256, Duration.ofMillis(50));
+        BlockedEmitter blocked = new BlockedEmitter();
+        feed.subscribe(blocked, null);
+        try {
+            assertTrue(blocked.sending.await(5, TimeUnit.SECONDS));
+
+            await(() -> blocked.completed, "escritura bloqueada cerrada");
+            assertEquals(0, feed.subscriberCount());
+        } finally {
+            blocked.release.countDown();
+        }
+    }
+
+    // ---------- record ----------
+
+    @Test
+    void record_withoutStatusChange_publishesNothing() throws InterruptedException {
+        feed(10);
+        RecordingEmitter emitter = subscribe(null);
+
+        feed.record(1L, EquipmentStatus.RENTED, EquipmentStatus.RENTED);
+        feed.record(2L, null, EquipmentStatus.AVAILABLE);
+
+        emitter.awaitEvents(2);
+        assertTrue(emitter.events.get(1).startsWith("id:1\nevent:status\ndata:EquipmentStatusEvent[equipmentId=2,"));
+    }
+
+    @Test
+    void record_insideTransaction_publishesOnlyAfterCommit() throws InterruptedException {
+        feed(10);
+        RecordingEmitter emitter = subscribe(null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        feed.record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.MAINTENANCE);
+        List<TransactionSynchronization> rolledBack = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        TransactionSynchronizationManager.initSynchronization();
+        feed.record(2L, EquipmentStatus.AVAILABLE, EquipmentStatus.MAINTENANCE);
+        List<TransactionSynchronization> committed = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        committed.forEach(TransactionSynchronization::afterCommit);
+
+        emitter.awaitEvents(2);
+        assertEquals(2, emitter.events.size());
+        assertTrue(emitter.events.get(1).startsWith("id:1\nevent:status\ndata:EquipmentStatusEvent[equipmentId=2,"));
+    }
+}
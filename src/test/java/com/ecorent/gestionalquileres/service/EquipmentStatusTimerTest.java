@@ -0,0 +1,267 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.rental.RentalStart;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.ecorent.gestionalquileres.service.availability.BookingLocks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EquipmentStatusTimerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 10);
+    private static final int SLOTS = 8;
+
+    @Mock
+    EquipmentRepository equipmentRepository;
+
+    @Mock
+    RentalRepository rentalRepository;
+
+    @Mock
+    EquipmentStatusFeed equipmentStatusFeed;
+
+    @Mock
+    AggregateVersions aggregateVersions;
+
+    @Mock
+    BookingLocks bookingLocks;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    private EquipmentStatusTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        timer = new EquipmentStatusTimer(equipmentRepository, rentalRepository, equipmentStatusFeed,
+                aggregateVersions, bookingLocks, transactionManager, SLOTS, clock);
+    }
+
+    private static Rental rental(long id, long equipmentId, LocalDate start) {
+        return Rental.builder()
+                .id(id)
+                .equipment(Equipment.builder().id(equipmentId).build())
+                .startDate(start)
+                .endDate(start.plusDays(2))
+                .build();
+    }
+
+    private void availableAreRented() {
+        when(equipmentRepository.findAvailableWithStartedRental(anyCollection(), any()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Set<Long>>getArgument(0)));
+        when(equipmentRepository.updateStatus(any(), eq(EquipmentStatus.AVAILABLE), eq(EquipmentStatus.RENTED)))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+    }
+
+    @Test
+    void startsLater_onlyForDatesAfterToday() {
+        assertTrue(timer.startsLater(TODAY.plusDays(1)));
+        assertFalse(timer.startsLater(TODAY));
+        assertFalse(timer.startsLater(TODAY.minusDays(1)));
+    }
+
+    // ---------- rebuild ----------
+
+    @Test
+    void rebuild_fixesStatusesAgainstTheCalendarAndLoadsUpcomingStarts() {
+        when(equipmentRepository.findAvailableWithStartedRental(TODAY)).thenReturn(List.of(1L));
+        when(equipmentRepository.findRentedWithoutStartedRental(TODAY)).thenReturn(List.of(2L, 3L));
+        when(equipmentRepository.updateStatus(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+        when(rentalRepository.findUpcomingStarts(TODAY)).thenReturn(List.of(
+                new RentalStart(10L, 2L, TODAY.plusDays(3)),
+                new RentalStart(11L, 3L, TODAY.plusDays(40))
+        ));
+
+        timer.rebuild();
+
+        verify(equipmentRepository).updateStatus(List.of(1L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(equipmentRepository).updateStatus(List.of(2L, 3L), EquipmentStatus.RENTED, EquipmentStatus.AVAILABLE);
+        verify(equipmentStatusFeed).record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(equipmentStatusFeed).record(3L, EquipmentStatus.RENTED, EquipmentStatus.AVAILABLE);
+        verify(aggregateVersions, times(2)).bump(Aggregate.EQUIPMENTS);
+        assertEquals(2, timer.pendingCount());
+    }
+
+    // ---------- advance ----------
+
+    @Test
+    void advance_rentsEquipmentsStartingThatDayWithOneUpdate() {
+        availableAreRented();
+        timer.schedule(rental(1L, 10L, TODAY.plusDays(1)));
+        timer.schedule(rental(2L, 20L, TODAY.plusDays(1)));
+        timer.schedule(rental(3L, 30L, TODAY.plusDays(2)));
+        // Misma casilla que mañana, una vuelta después
+        timer.schedule(rental(4L, 40L, TODAY.plusDays(1 + SLOTS)));
+
+        assertEquals(0, timer.advance(TODAY));
+        assertEquals(2, timer.advance(TODAY.plusDays(1)));
+
+        verify(equipmentRepository).updateStatus(List.of(10L, 20L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(equipmentStatusFeed).record(10L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(equipmentStatusFeed).record(20L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(aggregateVersions).bump(Aggregate.EQUIPMENTS);
+        assertEquals(2, timer.pendingCount());
+
+        assertEquals(0, timer.advance(TODAY.plusDays(1)));
+        verify(equipmentRepository).findAvailableWithStartedRental(Set.of(10L, 20L), TODAY.plusDays(1));
+        verifyNoMoreInteractions(equipmentRepository);
+    }
+
+    @Test
+    void advance_afterMoreDaysThanSlots_catchesUpInOneStep() {
+        availableAreRented();
+        timer.schedule(rental(1L, 10L, TODAY.plusDays(2)));
+        timer.schedule(rental(2L, 20L, TODAY.plusDays(5)));
+        timer.schedule(rental(3L, 30L, TODAY.plusDays(30)));
+
+        assertEquals(2, timer.advance(TODAY.plusDays(20)));
+
+        verify(equipmentRepository).updateStatus(List.of(10L, 20L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        assertEquals(1, timer.pendingCount());
+    }
+
+    @Test
+    void advance_onlyTouchesEquipmentsStillAvailable() {
+        timer.schedule(rental(1L, 10L, TODAY.plusDays(1)));
+        timer.schedule(rental(2L, 20L, TODAY.plusDays(1)));
+        when(equipmentRepository.findAvailableWithStartedRental(Set.of(10L, 20L), TODAY.plusDays(1))).thenReturn(List.of(20L));
+        when(equipmentRepository.updateStatus(List.of(20L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED)).thenReturn(1);
+
+        assertEquals(1, timer.advance(TODAY.plusDays(1)));
+
+        verify(equipmentStatusFeed, never()).record(eq(10L), any(), any());
+    }
+
+    @Test
+    void advance_locksTheStripesBeforeCheckingForAStartedRental() {
+        timer.schedule(rental(1L, 10L, TODAY.plusDays(1)));
+        timer.schedule(rental(2L, 20L, TODAY.plusDays(1)));
+        // La devolución del alquiler de 10 confirmó antes de que el paso tomara la franja
+        when(equipmentRepository.findAvailableWithStartedRental(Set.of(10L, 20L), TODAY.plusDays(1))).thenReturn(List.of(20L));
+        when(equipmentRepository.updateStatus(List.of(20L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED)).thenReturn(1);
+
+        assertEquals(1, timer.advance(TODAY.plusDays(1)));
+
+        InOrder inOrder = inOrder(bookingLocks, equipmentRepository);
+        inOrder.verify(bookingLocks).lockForTransaction(Set.of(10L, 20L));
+        inOrder.verify(equipmentRepository).findAvailableWithStartedRental(Set.of(10L, 20L), TODAY.plusDays(1));
+        inOrder.verify(equipmentRepository).updateStatus(List.of(20L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(equipmentStatusFeed, never()).record(eq(10L), any(), any());
+    }
+
+    @Test
+    void advance_whenAStripeIsBusy_retriesLater() {
+        timer.schedule(rental(1L, 10L, TODAY.plusDays(1)));
+        doThrow(new BusinessException(RejectionReason.CONCURRENT_OPERATION, "ocupado"))
+                .when(bookingLocks).lockForTransaction(anyCollection());
+
+        assertEquals(0, timer.advance(TODAY.plusDays(1)));
+
+        assertEquals(1, timer.pendingCount());
+        verifyNoInteractions(equipmentRepository);
+    }
+
+    @Test
+    void advance_whenUpdateFails_retriesOnTheNextStep() {
+        timer.schedule(rental(1L, 10L, TODAY.plusDays(1)));
+        when(equipmentRepository.findAvailableWithStartedRental(anyCollection(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of(10L));
+        when(equipmentRepository.updateStatus(List.of(10L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED)).thenReturn(1);
+
+        assertEquals(0, timer.advance(TODAY.plusDays(1)));
+        assertEquals(1, timer.pendingCount());
+
+        assertEquals(1, timer.advance(TODAY.plusDays(2)));
+        assertEquals(0, timer.pendingCount());
+    }
+
+    // ---------- catchUp ----------
+
+    @Test
+    void catchUp_withNothingLate_doesNotQuery() {
+        timer.schedule(rental(1L, 10L, TODAY.plusDays(1)));
+
+        timer.catchUp();
+
+        verifyNoInteractions(equipmentRepository);
+        assertEquals(1, timer.pendingCount());
+    }
+
+    @Test
+    void catchUp_appliesAStartCommittedAfterTodaysStepWithoutWaitingForMidnight() {
+        availableAreRented();
+        timer.schedule(rental(1L, 10L, TODAY));
+
+        timer.catchUp();
+
+        verify(equipmentRepository).updateStatus(List.of(10L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        assertEquals(0, timer.pendingCount());
+    }
+
+    @Test
+    void catchUp_retriesAFailedStepTheSameDay() {
+        timer.schedule(rental(1L, 10L, TODAY));
+        when(equipmentRepository.findAvailableWithStartedRental(anyCollection(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of(10L));
+        when(equipmentRepository.updateStatus(List.of(10L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED)).thenReturn(1);
+
+        timer.catchUp();
+        assertEquals(1, timer.pendingCount());
+
+        timer.catchUp();
+        assertEquals(0, timer.pendingCount());
+        verify(equipmentRepository).updateStatus(List.of(10L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+    }
+
+    // ---------- schedule / cancel ----------
+
+    @Test
+    void cancel_removesTheRentalFromTheWheel() {
+        Rental rental = rental(1L, 10L, TODAY.plusDays(3));
+        timer.schedule(rental);
+        timer.cancel(rental);
+
+        assertEquals(0, timer.pendingCount());
+        assertEquals(0, timer.advance(TODAY.plusDays(3)));
+        verifyNoInteractions(equipmentRepository);
+    }
+
+    @Test
+    void schedule_committedAfterItsDayWasProcessed_goesOutOnTheNextStep() {
+        availableAreRented();
+        timer.advance(TODAY.plusDays(1));
+
+        timer.schedule(rental(1L, 10L, TODAY.plusDays(1)));
+
+        assertEquals(1, timer.advance(TODAY.plusDays(1)));
+        verify(equipmentRepository).updateStatus(List.of(10L), EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+    }
+}
@@ -0,0 +1,151 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.export.ExportFormat;
+import com.ecorent.gestionalquileres.dto.export.PaymentExportRow;
+import com.ecorent.gestionalquileres.dto.export.RentalExportRow;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.repository.PaymentRepository;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    @Mock
+    RentalRepository rentalRepository;
+
+    @Mock
+    PaymentRepository paymentRepository;
+
+    ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        JsonMapper objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        exportService = new ExportService(rentalRepository, paymentRepository, objectMapper);
+    }
+
+    private static RentalExportRow rental(long id, String clientName) {
+        return new RentalExportRow(id, "111A", clientName, 7L, "EQ-007", "Generador",
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3), new BigDecimal("30.00"), false);
+    }
+
+    // ---------- exportRentals ----------
+
+    @Test
+    void exportRentals_ndjson_writesOneObjectPerLine() throws Exception {
+        when(rentalRepository.streamForExport())
+                .thenReturn(Stream.of(rental(1L, "Ana"), rental(2L, "Luis")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportRentals(ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"clientDni\":\"111A\",\"clientName\":\"Ana\""));
+        assertTrue(lines[0].contains("\"startDate\":\"2024-01-01\""));
+        assertTrue(lines[1].contains("\"clientName\":\"Luis\""));
+    }
+
+    @Test
+    void exportRentals_csv_writesHeaderAndEscapesFields() throws Exception {
+        when(rentalRepository.streamForExport())
+                .thenReturn(Stream.of(rental(1L, "Pérez, \"Ana\""), rental(2L, null)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportRentals(ExportFormat.CSV, out);
+
+        assertEquals(
+                "id,clientDni,clientName,equipmentId,equipmentCode,equipmentName,startDate,endDate,totalAmount,returned\r\n"
+                        + "1,111A,\"Pérez, \"\"Ana\"\"\",7,EQ-007,Generador,2024-01-01,2024-01-03,30.00,false\r\n"
+                        + "2,111A,,7,EQ-007,Generador,2024-01-01,2024-01-03,30.00,false\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportRentals_consumesRowsLazilyAndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        long rows = 200_000;
+        Stream<RentalExportRow> source = LongStream.rangeClosed(1, rows)
+                .mapToObj(id -> rental(id, "Cliente " + id))
+                .onClose(() -> closed.set(true));
+
+        when(rentalRepository.streamForExport()).thenReturn(source);
+
+        CountingOutputStream out = new CountingOutputStream();
+        exportService.exportRentals(ExportFormat.CSV, out);
+
+        assertEquals(rows + 1, out.lines);
+        assertTrue(closed.get());
+    }
+
+    // ---------- exportPayments ----------
+
+    @Test
+    void exportPayments_csv_writesPlainAmounts() throws Exception {
+        when(paymentRepository.streamForExport()).thenReturn(Stream.of(
+                new PaymentExportRow(5L, 1L, "111A", new BigDecimal("1E+2"), LocalDate.of(2024, 2, 1))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportPayments(ExportFormat.CSV, out);
+
+        assertEquals("id,rentalId,clientDni,amount,paymentDate\r\n5,1,111A,100,2024-02-01\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportPayments_ndjson_emptyExportWritesNothing() throws Exception {
+        when(paymentRepository.streamForExport()).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportPayments(ExportFormat.NDJSON, out);
+
+        assertEquals(0, out.size());
+    }
+
+    // ---------- ExportFormat ----------
+
+    @Test
+    void exportFormat_parsesCaseInsensitively_andRejectsUnknown() {
+        assertEquals(ExportFormat.CSV, ExportFormat.from(" csv "));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.from("NDJSON"));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> ExportFormat.from("xml"));
+        assertEquals("Formato de exportación no soportado: xml", ex.getMessage());
+    }
+
+    // Cuenta líneas sin retener lo escrito
+    private static final class CountingOutputStream extends OutputStream {
+
+        long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.entity.DailyIncome;
+import com.ecorent.gestionalquileres.repository.DailyIncomeRepository;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncomeRollupTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2024, 1, 1);
+
+    @Mock
+    DailyIncomeRepository dailyIncomeRepository;
+
+    @Mock
+    RentalRepository rentalRepository;
+
+    IncomeRollup incomeRollup;
+
+    @BeforeEach
+    void setUp() {
+        incomeRollup = new IncomeRollup(dailyIncomeRepository, rentalRepository, 100, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Confirma la "transacción" de la prueba: sumas en memoria y liberación de cerrojos
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    // ---------- load ----------
+
+    @Test
+    void load_readsExistingRollupsWithoutRebuilding() {
+        when(dailyIncomeRepository.count()).thenReturn(2L);
+        when(dailyIncomeRepository.findAll()).thenReturn(List.of(
+                new DailyIncome(JAN_1, new BigDecimal("10.10")),
+                new DailyIncome(JAN_1.plusDays(3), new BigDecimal("0.05"))));
+
+        incomeRollup.load();
+
+        assertTrue(incomeRollup.isReady());
+        assertEquals(new BigDecimal("10.15"), incomeRollup.incomeBetween(JAN_1, JAN_1.plusDays(3)));
+        assertEquals(new BigDecimal("0.05"), incomeRollup.incomeBetween(JAN_1.plusDays(1), JAN_1.plusDays(30)));
+        verify(dailyIncomeRepository, never()).rebuildFromRentals();
+    }
+
+    @Test
+    void load_whenRollupEmptyButRentalsExist_rebuildsFromRentals() {
+        when(dailyIncomeRepository.count()).thenReturn(0L);
+        when(rentalRepository.count()).thenReturn(3L);
+        when(dailyIncomeRepository.findAll()).thenReturn(List.of(new DailyIncome(JAN_1, new BigDecimal("7"))));
+
+        incomeRollup.load();
+
+        verify(dailyIncomeRepository).deleteAllInBatch();
+        verify(dailyIncomeRepository).rebuildFromRentals();
+        assertEquals(new BigDecimal("7.00"), incomeRollup.incomeBetween(JAN_1, JAN_1));
+    }
+
+    // ---------- record ----------
+
+    @Test
+    void record_whenDayExists_onlyUpdatesAndAddsToSums() {
+        when(dailyIncomeRepository.add(JAN_1, new BigDecimal("30.00"))).thenReturn(1);
+
+        incomeRollup.record(JAN_1, new BigDecimal("30.00"));
+
+        verify(dailyIncomeRepository, never()).save(any());
+        assertEquals(new BigDecimal("30.00"), incomeRollup.incomeBetween(JAN_1, JAN_1));
+    }
+
+    @Test
+    void record_whenDayMissing_insertsRow() {
+        when(dailyIncomeRepository.add(JAN_1, new BigDecimal("12.5"))).thenReturn(0);
+
+        // El alta de la fila toma el cerrojo del día hasta el final de la transacción
+        TransactionSynchronizationManager.initSynchronization();
+        incomeRollup.record(JAN_1, new BigDecimal("12.5"));
+        commit();
+
+        verify(dailyIncomeRepository, times(2)).add(JAN_1, new BigDecimal("12.5"));
+        verify(dailyIncomeRepository).save(argThat(d ->
+                d.getIncomeDate().equals(JAN_1) && d.getAmount().equals(new BigDecimal("12.5"))));
+        assertEquals(new BigDecimal("12.50"), incomeRollup.incomeBetween(JAN_1.minusDays(5), JAN_1.plusDays(5)));
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.rental.OverdueRentalResponse;
+import com.ecorent.gestionalquileres.dto.rental.RentalDue;
+import com.ecorent.gestionalquileres.entity.Client;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueRentalsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 10);
+
+    @Mock
+    RentalRepository rentalRepository;
+
+    @Mock
+    Clock clock;
+
+    private final AtomicReference<LocalDate> today = new AtomicReference<>(TODAY);
+    private OverdueRentals overdueRentals;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        lenient().when(clock.instant()).thenAnswer(invocation ->
+                today.get().atTime(12, 0).toInstant(ZoneOffset.UTC));
+        overdueRentals = new OverdueRentals(rentalRepository, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static RentalDue due(long rentalId, LocalDate endDate) {
+        return new RentalDue(rentalId, 10L, "Taladro", "12345678A", "Juan", endDate);
+    }
+
+    private static Rental rental(long id, LocalDate endDate) {
+        return Rental.builder()
+                .id(id)
+                .equipment(Equipment.builder().id(10L).name("Taladro").build())
+                .client(Client.builder().dni("12345678A").name("Juan").build())
+                .startDate(endDate.minusDays(2))
+                .endDate(endDate)
+                .build();
+    }
+
+    private List<Long> overdueIds() {
+        return overdueRentals.overdue().stream().map(OverdueRentalResponse::rentalId).toList();
+    }
+
+    // ---------- rebuild ----------
+
+    @Test
+    void rebuild_listsOnlyRentalsWhoseEndDateHasPassed_oldestFirst() {
+        when(rentalRepository.findOpenRentalDues()).thenReturn(List.of(
+                due(1L, TODAY.minusDays(1)),
+                due(2L, TODAY),
+                due(3L, TODAY.minusDays(30)),
+                due(4L, TODAY.plusDays(5))
+        ));
+
+        overdueRentals.rebuild();
+
+        List<OverdueRentalResponse> overdue = overdueRentals.overdue();
+        assertEquals(List.of(3L, 1L), overdue.stream().map(OverdueRentalResponse::rentalId).toList());
+        assertEquals(30, overdue.get(0).daysOverdue());
+        assertEquals(1, overdue.get(1).daysOverdue());
+        assertEquals("Juan", overdue.get(1).clientName());
+        assertEquals(4, overdueRentals.openCount());
+    }
+
+    // ---------- sweep ----------
+
+    @Test
+    void sweep_movesRentalsAsTheirEndDatePasses() {
+        when(rentalRepository.findOpenRentalDues()).thenReturn(List.of(
+                due(1L, TODAY),
+                due(2L, TODAY.plusDays(1))
+        ));
+        overdueRentals.rebuild();
+        assertEquals(List.of(), overdueIds());
+
+        today.set(TODAY.plusDays(1));
+        overdueRentals.sweep();
+        assertEquals(List.of(1L), overdueIds());
+
+        today.set(TODAY.plusDays(2));
+        assertEquals(List.of(1L, 2L), overdueIds());
+        assertEquals(2, overdueRentals.overdue().get(0).daysOverdue());
+    }
+
+    // ---------- track / release ----------
+
+    @Test
+    void track_addsTheRentalOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        overdueRentals.track(rental(7L, TODAY.minusDays(1)));
+        List<TransactionSynchronization> rolledBack = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(List.of(), overdueIds());
+
+        TransactionSynchronizationManager.initSynchronization();
+        overdueRentals.track(rental(8L, TODAY.minusDays(1)));
+        List<TransactionSynchronization> committed = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        committed.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(List.of(8L), overdueIds());
+        assertEquals(1, overdueRentals.openCount());
+    }
+
+    @Test
+    void release_removesOverdueAndPendingRentals() {
+        overdueRentals.track(rental(1L, TODAY.minusDays(3)));
+        overdueRentals.track(rental(2L, TODAY.plusDays(3)));
+        assertEquals(List.of(1L), overdueIds());
+
+        overdueRentals.release(rental(1L, TODAY.minusDays(3)));
+        overdueRentals.release(rental(2L, TODAY.plusDays(3)));
+
+        today.set(TODAY.plusDays(10));
+        assertEquals(List.of(), overdueIds());
+        assertEquals(0, overdueRentals.openCount());
+    }
+}
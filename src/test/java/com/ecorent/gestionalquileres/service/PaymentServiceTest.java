@@ -1,5 +1,6 @@
 package com.ecorent.gestionalquileres.service;
 
+import com.ecorent.gestionalquileres.dto.payment.PaymentResponse;
 import com.ecorent.gestionalquileres.entity.Payment;
 import com.ecorent.gestionalquileres.entity.Rental;
 import com.ecorent.gestionalquileres.exception.BusinessException;
@@ -27,6 +28,9 @@ class PaymentServiceTest {
     @Mock
     RentalRepository rentalRepository;
 
+    @Mock
+    AggregateVersions aggregateVersions;
+
     @InjectMocks
     PaymentService paymentService;
 
@@ -34,7 +38,7 @@ class PaymentServiceTest {
 
     @Test
     void registerPayment_whenRentalNotFound_throwsBusinessException() {
-        when(rentalRepository.findById(1L)).thenReturn(java.util.Optional.empty());
+        when(rentalRepository.findByIdForUpdate(1L)).thenReturn(java.util.Optional.empty());
 
         BusinessException ex = assertThrows(
                 BusinessException.class,
@@ -43,6 +47,7 @@ class PaymentServiceTest {
 
         assertEquals("Alquiler no encontrado", ex.getMessage());
         verify(paymentRepository, never()).save(any());
+        verifyNoInteractions(aggregateVersions);
     }
 
     @Test
@@ -50,10 +55,10 @@ class PaymentServiceTest {
         Rental rental = Rental.builder()
                 .id(1L)
                 .totalAmount(new BigDecimal("100"))
+                .paidAmount(new BigDecimal("90"))
                 .build();
 
-        when(rentalRepository.findById(1L)).thenReturn(java.util.Optional.of(rental));
-        when(paymentRepository.sumPaymentsByRentalId(1L)).thenReturn(new BigDecimal("90"));
+        when(rentalRepository.findByIdForUpdate(1L)).thenReturn(java.util.Optional.of(rental));
 
         BusinessException ex = assertThrows(
                 BusinessException.class,
@@ -61,7 +66,9 @@ class PaymentServiceTest {
         );
 
         assertEquals("El pago supera el importe pendiente", ex.getMessage());
+        assertEquals(new BigDecimal("90"), rental.getPaidAmount());
         verify(paymentRepository, never()).save(any());
+        verifyNoInteractions(aggregateVersions);
     }
 
     @Test
@@ -69,23 +76,27 @@ class PaymentServiceTest {
         Rental rental = Rental.builder()
                 .id(1L)
                 .totalAmount(new BigDecimal("100"))
+                .paidAmount(new BigDecimal("30"))
                 .build();
 
-        when(rentalRepository.findById(1L)).thenReturn(java.util.Optional.of(rental));
-        when(paymentRepository.sumPaymentsByRentalId(1L)).thenReturn(new BigDecimal("30"));
+        when(rentalRepository.findByIdForUpdate(1L)).thenReturn(java.util.Optional.of(rental));
         when(paymentRepository.save(any(Payment.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0, Payment.class));
 
         BigDecimal amount = new BigDecimal("40");
         LocalDate today = LocalDate.now();
 
-        Payment result = paymentService.registerPayment(1L, amount);
+        PaymentResponse result = paymentService.registerPayment(1L, amount);
 
         assertNotNull(result);
-        assertEquals(rental, result.getRental());
-        assertEquals(amount, result.getAmount());
-        assertEquals(today, result.getPaymentDate());
-        verify(paymentRepository).save(any(Payment.class));
+        assertEquals(amount, result.amount());
+        assertEquals(today, result.paymentDate());
+        assertEquals(new BigDecimal("70"), rental.getPaidAmount());
+        assertEquals(new BigDecimal("70"), result.paidAmount());
+        assertEquals("Pagado parcial", result.paymentStatus());
+        assertEquals(new BigDecimal("30"), result.pendingAmount());
+        verify(paymentRepository).save(argThat(p -> p.getRental() == rental && p.getAmount().equals(amount)));
+        verify(aggregateVersions).bump(Aggregate.PAYMENTS, Aggregate.RENTALS);
     }
 
     @Test
@@ -93,20 +104,22 @@ class PaymentServiceTest {
         Rental rental = Rental.builder()
                 .id(1L)
                 .totalAmount(new BigDecimal("100"))
+                .paidAmount(new BigDecimal("60"))
                 .build();
 
-        when(rentalRepository.findById(1L)).thenReturn(java.util.Optional.of(rental));
-        when(paymentRepository.sumPaymentsByRentalId(1L)).thenReturn(new BigDecimal("60"));
+        when(rentalRepository.findByIdForUpdate(1L)).thenReturn(java.util.Optional.of(rental));
         when(paymentRepository.save(any(Payment.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0, Payment.class));
 
         BigDecimal amount = new BigDecimal("40");
 
-        Payment result = paymentService.registerPayment(1L, amount);
+        PaymentResponse result = paymentService.registerPayment(1L, amount);
 
-        assertEquals(new BigDecimal("40"), result.getAmount());
-        assertEquals(rental, result.getRental());
-        verify(paymentRepository).save(any(Payment.class));
+        assertEquals(new BigDecimal("40"), result.amount());
+        assertEquals(new BigDecimal("100"), rental.getPaidAmount());
+        assertEquals("Pagado completo", result.paymentStatus());
+        assertEquals(0, BigDecimal.ZERO.compareTo(result.pendingAmount()));
+        verify(paymentRepository).save(argThat(p -> p.getRental() == rental));
     }
 
     // ---------- getPaymentStatus ----------
@@ -128,10 +141,10 @@ class PaymentServiceTest {
         Rental rental = Rental.builder()
                 .id(1L)
                 .totalAmount(new BigDecimal("100"))
+                .paidAmount(BigDecimal.ZERO)
                 .build();
 
         when(rentalRepository.findById(1L)).thenReturn(java.util.Optional.of(rental));
-        when(paymentRepository.sumPaymentsByRentalId(1L)).thenReturn(BigDecimal.ZERO);
 
         String status = paymentService.getPaymentStatus(1L);
 
@@ -143,10 +156,10 @@ class PaymentServiceTest {
         Rental rental = Rental.builder()
                 .id(1L)
                 .totalAmount(new BigDecimal("100"))
+                .paidAmount(new BigDecimal("40"))
                 .build();
 
         when(rentalRepository.findById(1L)).thenReturn(java.util.Optional.of(rental));
-        when(paymentRepository.sumPaymentsByRentalId(1L)).thenReturn(new BigDecimal("40"));
 
         String status = paymentService.getPaymentStatus(1L);
 
@@ -158,10 +171,10 @@ class PaymentServiceTest {
         Rental rental = Rental.builder()
                 .id(1L)
                 .totalAmount(new BigDecimal("100"))
+                .paidAmount(new BigDecimal("100"))
                 .build();
 
         when(rentalRepository.findById(1L)).thenReturn(java.util.Optional.of(rental));
-        when(paymentRepository.sumPaymentsByRentalId(1L)).thenReturn(new BigDecimal("100"));
 
         String status = paymentService.getPaymentStatus(1L);
 
@@ -174,10 +187,10 @@ class PaymentServiceTest {
         Rental rental = Rental.builder()
                 .id(1L)
                 .totalAmount(new BigDecimal("100"))
+                .paidAmount(new BigDecimal("150"))
                 .build();
 
         when(rentalRepository.findById(1L)).thenReturn(java.util.Optional.of(rental));
-        when(paymentRepository.sumPaymentsByRentalId(1L)).thenReturn(new BigDecimal("150"));
 
         String status = paymentService.getPaymentStatus(1L);
 
@@ -0,0 +1,93 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.entity.ClientRentalCount;
+import com.ecorent.gestionalquileres.entity.EquipmentRentalCount;
+import com.ecorent.gestionalquileres.repository.ClientRentalCountRepository;
+import com.ecorent.gestionalquileres.repository.EquipmentRentalCountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RentalCountersTest {
+
+    @Mock
+    EquipmentRentalCountRepository equipmentCounts;
+
+    @Mock
+    ClientRentalCountRepository clientCounts;
+
+    RentalCounters rentalCounters;
+
+    @BeforeEach
+    void setUp() {
+        rentalCounters = new RentalCounters(equipmentCounts, clientCounts, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // ---------- recordRentals ----------
+
+    @Test
+    void recordRentals_whenCountersExist_onlyIncrements() {
+        when(equipmentCounts.increment(Set.of(1L, 2L))).thenReturn(2);
+        when(clientCounts.increment(5L, 2)).thenReturn(1);
+
+        rentalCounters.recordRentals(Set.of(1L, 2L), 5L);
+
+        verify(equipmentCounts, never()).findAllById(any());
+        verify(equipmentCounts, never()).save(any());
+        verify(clientCounts, never()).save(any());
+    }
+
+    @Test
+    void recordRentals_whenCountersMissing_createsThemWithTheNewRentals() {
+        when(equipmentCounts.increment(Set.of(1L, 2L))).thenReturn(1);
+        when(equipmentCounts.findAllById(Set.of(1L, 2L)))
+                .thenReturn(List.of(new EquipmentRentalCount(1L, 4)));
+        when(clientCounts.increment(5L, 2)).thenReturn(0);
+
+        // El alta del contador de cliente toma su cerrojo hasta el final de la transacción
+        TransactionSynchronizationManager.initSynchronization();
+        rentalCounters.recordRentals(Set.of(1L, 2L), 5L);
+
+        ArgumentCaptor<EquipmentRentalCount> equipment = ArgumentCaptor.forClass(EquipmentRentalCount.class);
+        verify(equipmentCounts).save(equipment.capture());
+        assertEquals(2L, equipment.getValue().getEquipmentId());
+        assertEquals(1, equipment.getValue().getRentalCount());
+
+        ArgumentCaptor<ClientRentalCount> client = ArgumentCaptor.forClass(ClientRentalCount.class);
+        verify(clientCounts, times(2)).increment(5L, 2);
+        verify(clientCounts).save(client.capture());
+        assertEquals(5L, client.getValue().getClientId());
+        assertEquals(2, client.getValue().getRentalCount());
+    }
+
+    // ---------- registerEquipment / registerClient ----------
+
+    @Test
+    void register_createsCountersAtZero() {
+        rentalCounters.registerEquipment(3L);
+        rentalCounters.registerClient(4L);
+
+        verify(equipmentCounts).save(argThat(c -> c.getEquipmentId() == 3L && c.getRentalCount() == 0));
+        verify(clientCounts).save(argThat(c -> c.getClientId() == 4L && c.getRentalCount() == 0));
+    }
+}
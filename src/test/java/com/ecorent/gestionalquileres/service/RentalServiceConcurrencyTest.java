@@ -0,0 +1,316 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.entity.Client;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import com.ecorent.gestionalquileres.repository.ClientRentalCountRepository;
+import com.ecorent.gestionalquileres.repository.ClientRepository;
+import com.ecorent.gestionalquileres.repository.DailyIncomeRepository;
+import com.ecorent.gestionalquileres.repository.EquipmentRentalCountRepository;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import com.ecorent.gestionalquileres.repository.PaymentRepository;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de estrés de RN-01 con hilos reales contra H2 en memoria:
+ * reservas simultáneas del mismo equipo no pueden duplicarse y las de
+ * equipos distintos deben escalar con el número de hilos. La medida de
+ * rendimiento lleva la etiqueta {@code throughput} y no corre con
+ * {@code ./mvnw test} (ver el perfil {@code benchmarks}).
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rental-concurrency;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=16"
+})
+class RentalServiceConcurrencyTest {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+    private static final int BOOKINGS_PER_THREAD = 25;
+
+    @Autowired
+    RentalService rentalService;
+
+    @Autowired
+    EquipmentRepository equipmentRepository;
+
+    @Autowired
+    ClientRepository clientRepository;
+
+    @Autowired
+    RentalRepository rentalRepository;
+
+    @Autowired
+    EquipmentRentalCountRepository equipmentRentalCountRepository;
+
+    @Autowired
+    ClientRentalCountRepository clientRentalCountRepository;
+
+    @Autowired
+    DailyIncomeRepository dailyIncomeRepository;
+
+    @Autowired
+    IncomeRollup incomeRollup;
+
+    @Autowired
+    PaymentService paymentService;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    private Client client;
+
+    @BeforeEach
+    void seedClient() {
+        client = clientRepository.save(Client.builder()
+                .name("Cliente Estrés")
+                .dni(UUID.randomUUID().toString().substring(0, 12))
+                .build());
+    }
+
+    private Equipment newEquipment() {
+        return equipmentRepository.save(Equipment.builder()
+                .name("Generador")
+                .category("Energía")
+                .internalCode(UUID.randomUUID().toString())
+                .pricePerDay(BigDecimal.TEN)
+                .status(EquipmentStatus.AVAILABLE)
+                .build());
+    }
+
+    @Test
+    void concurrentBookingsOfSameEquipmentAndDates_onlyOneSucceeds() throws Exception {
+        Equipment equipment = newEquipment();
+        int threads = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    rentalService.createRental(client.getDni(), equipment.getId(), BASE, BASE.plusDays(3));
+                    booked.incrementAndGet();
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(1, booked.get());
+        assertEquals(threads - 1, rejected.get());
+        assertEquals(1, rentalRepository
+                .findByEquipmentIdAndReturnedFalseAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                        equipment.getId(), BASE.plusDays(3), BASE)
+                .size());
+        // Los rechazos hacen rollback: los contadores solo ven la reserva confirmada
+        assertEquals(1, equipmentRentalCountRepository.findById(equipment.getId()).orElseThrow().getRentalCount());
+        assertEquals(1, clientRentalCountRepository.findById(client.getId()).orElseThrow().getRentalCount());
+    }
+
+    @Test
+    void concurrentFirstBookingsOfANewDay_allLandInOneRollupRow() throws Exception {
+        LocalDate day = BASE.minusYears(1);
+        int threads = 32;
+        List<Equipment> own = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            own.add(newEquipment());
+        }
+        BigDecimal before = incomeRollup.incomeBetween(day, day);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Long equipmentId = own.get(t).getId();
+            futures.add(pool.submit(() -> {
+                start.await();
+                rentalService.createRental(client.getDni(), equipmentId, day, day.plusDays(1));
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        // 32 reservas de 2 días a 10 €/día
+        BigDecimal expected = before.add(new BigDecimal("640.00"));
+        assertEquals(0, expected.compareTo(dailyIncomeRepository.findById(day).orElseThrow().getAmount()));
+        assertEquals(expected, incomeRollup.incomeBetween(day, day));
+    }
+
+    @Test
+    void concurrentPaymentsOfSameRental_neverExceedTotalAndSurviveAReturn() throws Exception {
+        // 2 días a 10 €/día: caben 20 pagos de 1 €
+        Rental rental = rentalService.createRental(
+                client.getDni(), newEquipment().getId(), BASE.plusYears(1), BASE.plusYears(1).plusDays(1));
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger paid = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    paymentService.registerPayment(rental.getId(), BigDecimal.ONE);
+                    paid.incrementAndGet();
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        // La devolución escribe la misma fila: no debe pisar el importe pagado
+        futures.add(pool.submit(() -> {
+            start.await();
+            rentalService.registerReturn(rental.getId());
+            return null;
+        }));
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(20, paid.get());
+        assertEquals(threads - 20, rejected.get());
+        assertEquals(20, paymentRepository.findByRentalId(rental.getId()).size());
+        Rental stored = rentalRepository.findById(rental.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("20").compareTo(stored.getPaidAmount()));
+        assertTrue(stored.isReturned());
+    }
+
+    @Test
+    void concurrentReturnsOfSameRental_onlyOneSucceeds() throws Exception {
+        Equipment equipment = newEquipment();
+        Rental rental = rentalService.createRental(
+                client.getDni(), equipment.getId(), BASE.plusYears(2), BASE.plusYears(2).plusDays(1));
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger returned = new AtomicInteger();
+        List<RejectionReason> rejections = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    rentalService.registerReturn(rental.getId());
+                    returned.incrementAndGet();
+                } catch (BusinessException e) {
+                    rejections.add(e.getReason());
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(1, returned.get());
+        assertEquals(Collections.nCopies(threads - 1, RejectionReason.ALREADY_RETURNED), rejections);
+        assertTrue(rentalRepository.findById(rental.getId()).orElseThrow().isReturned());
+    }
+
+    @Test
+    @Tag("throughput")
+    void throughput_distinctEquipmentsScaleAndSameEquipmentSerializes() throws Exception {
+        // Calentamiento del JIT y del pool de conexiones antes de medir
+        Equipment warmup = newEquipment();
+        run(4, t -> warmup.getId(), true);
+
+        log.info("RN-01 reservas por segundo ({} reservas por hilo)", BOOKINGS_PER_THREAD);
+        for (int threads : new int[]{1, 8, 64}) {
+            List<Equipment> own = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                own.add(newEquipment());
+            }
+            double distinct = run(threads, t -> own.get(t).getId(), false);
+
+            Equipment shared = newEquipment();
+            double same = run(threads, t -> shared.getId(), true);
+
+            log.info("  hilos={} equipos distintos: {} reservas/s, mismo equipo: {} reservas/s",
+                    threads, Math.round(distinct), Math.round(same));
+        }
+    }
+
+    private interface EquipmentForThread {
+        Long of(int thread);
+    }
+
+    // Cada hilo reserva periodos disjuntos; todas las reservas deben confirmarse
+    private double run(int threads, EquipmentForThread equipmentFor, boolean shared) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                    int slot = shared ? thread * BOOKINGS_PER_THREAD + i : i;
+                    LocalDate from = BASE.plusDays(slot * 3L);
+                    rentalService.createRental(client.getDni(), equipmentFor.of(thread), from, from.plusDays(1));
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - began;
+        pool.shutdown();
+
+        return threads * BOOKINGS_PER_THREAD / (elapsed / 1e9);
+    }
+}
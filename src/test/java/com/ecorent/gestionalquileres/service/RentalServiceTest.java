@@ -1,23 +1,31 @@
 package com.ecorent.gestionalquileres.service;
 
+import com.ecorent.gestionalquileres.dto.rental.RentalHistoryPage;
+import com.ecorent.gestionalquileres.dto.rental.RentalResponse;
 import com.ecorent.gestionalquileres.entity.Client;
 import com.ecorent.gestionalquileres.entity.Equipment;
 import com.ecorent.gestionalquileres.entity.EquipmentStatus;
 import com.ecorent.gestionalquileres.entity.Rental;
 import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.NotFoundException;
 import com.ecorent.gestionalquileres.repository.ClientRepository;
 import com.ecorent.gestionalquileres.repository.EquipmentRepository;
 import com.ecorent.gestionalquileres.repository.RentalRepository;
+import com.ecorent.gestionalquileres.service.availability.AvailabilityIndex;
+import com.ecorent.gestionalquileres.service.availability.BookingLocks;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,6 +42,30 @@ class RentalServiceTest {
     @Mock
     ClientRepository clientRepository;
 
+    @Mock
+    AvailabilityIndex availabilityIndex;
+
+    @Mock
+    BookingLocks bookingLocks;
+
+    @Mock
+    RentalCounters rentalCounters;
+
+    @Mock
+    IncomeRollup incomeRollup;
+
+    @Mock
+    EquipmentStatusFeed equipmentStatusFeed;
+
+    @Mock
+    AggregateVersions aggregateVersions;
+
+    @Mock
+    OverdueRentals overdueRentals;
+
+    @Mock
+    EquipmentStatusTimer equipmentStatusTimer;
+
     @InjectMocks
     RentalService rentalService;
 
@@ -51,6 +83,7 @@ class RentalServiceTest {
 
         assertEquals("Fecha fin no puede ser anterior a fecha inicio", ex.getMessage());
         verifyNoInteractions(equipmentRepository, rentalRepository, clientRepository);
+        verifyNoInteractions(bookingLocks);
     }
 
     @Test
@@ -183,18 +216,252 @@ class RentalServiceTest {
         assertEquals(equipment, result.getEquipment());
         assertEquals(start, result.getStartDate());
         assertEquals(end, result.getEndDate());
+        verify(rentalCounters).recordRentals(List.of(1L), 5L);
+        verify(incomeRollup).record(start, new BigDecimal("30"));
         // 3 días * 10 = 30
         assertEquals(new BigDecimal("30"), result.getTotalAmount());
         assertFalse(result.isReturned());
         assertEquals(EquipmentStatus.RENTED, equipment.getStatus());
         verify(rentalRepository).save(any(Rental.class));
+        verify(availabilityIndex).book(result);
+        verify(overdueRentals).track(result);
+        verify(bookingLocks).lockForTransaction(1L);
+        verify(equipmentStatusFeed).record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(aggregateVersions).bump(Aggregate.RENTALS, Aggregate.EQUIPMENTS);
+    }
+
+    @Test
+    void createRental_whenStartsLater_keepsEquipmentAvailableAndSchedulesTheChange() {
+        LocalDate start = LocalDate.of(2024, 2, 10);
+        LocalDate end = LocalDate.of(2024, 2, 12);
+
+        Equipment equipment = Equipment.builder()
+                .id(1L)
+                .status(EquipmentStatus.AVAILABLE)
+                .pricePerDay(BigDecimal.TEN)
+                .build();
+
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(equipment));
+        when(clientRepository.findByDni("12345678A"))
+                .thenReturn(Optional.of(Client.builder().id(5L).dni("12345678A").build()));
+        when(equipmentStatusTimer.startsLater(start)).thenReturn(true);
+        when(rentalRepository.save(any(Rental.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, Rental.class));
+
+        Rental result = rentalService.createRental("12345678A", 1L, start, end);
+
+        assertEquals(EquipmentStatus.AVAILABLE, equipment.getStatus());
+        verify(equipmentStatusTimer).schedule(result);
+        verify(availabilityIndex).book(result);
+        verifyNoInteractions(equipmentStatusFeed);
+        verify(aggregateVersions).bump(Aggregate.RENTALS, Aggregate.EQUIPMENTS);
+    }
+
+    @Test
+    void createRental_whenIndexReadyAndOverlapping_throwsWithoutQuery() {
+        LocalDate start = LocalDate.of(2024, 1, 10);
+        LocalDate end = LocalDate.of(2024, 1, 12);
+
+        Equipment equipment = Equipment.builder()
+                .id(1L)
+                .status(EquipmentStatus.AVAILABLE)
+                .pricePerDay(BigDecimal.TEN)
+                .build();
+
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(equipment));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.overlaps(1L, start, end)).thenReturn(true);
+
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> rentalService.createRental("12345678A", 1L, start, end)
+        );
+
+        assertEquals("Existe solapamiento de fechas", ex.getMessage());
+        verifyNoInteractions(rentalRepository, clientRepository);
+    }
+
+    @Test
+    void createRental_whenIndexReadyAndFree_savesWithoutOverlapQuery() {
+        LocalDate start = LocalDate.of(2024, 1, 10);
+        LocalDate end = LocalDate.of(2024, 1, 12);
+
+        Equipment equipment = Equipment.builder()
+                .id(1L)
+                .status(EquipmentStatus.AVAILABLE)
+                .pricePerDay(BigDecimal.TEN)
+                .build();
+
+        Client client = Client.builder()
+                .id(5L)
+                .dni("12345678A")
+                .build();
+
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(equipment));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.overlaps(1L, start, end)).thenReturn(false);
+        when(clientRepository.findByDni("12345678A")).thenReturn(Optional.of(client));
+        when(rentalRepository.save(any(Rental.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, Rental.class));
+
+        Rental result = rentalService.createRental("12345678A", 1L, start, end);
+
+        assertEquals(EquipmentStatus.RENTED, equipment.getStatus());
+        verify(rentalRepository, never())
+                .findByEquipmentIdAndReturnedFalseAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                        any(), any(), any());
+        verify(availabilityIndex).book(result);
+    }
+
+    @Test
+    void createRental_whenVerificationDisagreesWithIndex_trustsQuery() {
+        LocalDate start = LocalDate.of(2024, 1, 10);
+        LocalDate end = LocalDate.of(2024, 1, 12);
+
+        Equipment equipment = Equipment.builder()
+                .id(1L)
+                .status(EquipmentStatus.AVAILABLE)
+                .pricePerDay(BigDecimal.TEN)
+                .build();
+
+        when(equipmentRepository.findById(1L)).thenReturn(Optional.of(equipment));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.isVerifyWithQuery()).thenReturn(true);
+        when(availabilityIndex.overlaps(1L, start, end)).thenReturn(false);
+        when(rentalRepository
+                .findByEquipmentIdAndReturnedFalseAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+                        1L, end, start))
+                .thenReturn(List.of(Rental.builder().id(99L).build()));
+
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> rentalService.createRental("12345678A", 1L, start, end)
+        );
+
+        assertEquals("Existe solapamiento de fechas", ex.getMessage());
+        verifyNoInteractions(clientRepository);
+    }
+
+    // ---------- createRentals ----------
+
+    @Test
+    void createRentals_whenDuplicatedEquipment_throwsBusinessException() {
+        LocalDate start = LocalDate.of(2024, 1, 10);
+        LocalDate end = LocalDate.of(2024, 1, 12);
+
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> rentalService.createRentals("12345678A", List.of(1L, 2L, 1L), start, end)
+        );
+
+        assertEquals("La reserva contiene equipos repetidos", ex.getMessage());
+        verifyNoInteractions(equipmentRepository, rentalRepository, clientRepository, bookingLocks);
+    }
+
+    @Test
+    void createRentals_whenEquipmentMissing_throwsNotFoundException() {
+        LocalDate start = LocalDate.of(2024, 1, 10);
+        LocalDate end = LocalDate.of(2024, 1, 12);
+
+        when(equipmentRepository.findAllById(Set.of(1L, 2L)))
+                .thenReturn(List.of(Equipment.builder().id(1L).status(EquipmentStatus.AVAILABLE).build()));
+
+        NotFoundException ex = assertThrows(
+                NotFoundException.class,
+                () -> rentalService.createRentals("12345678A", List.of(1L, 2L), start, end)
+        );
+
+        assertEquals("Equipo no encontrado: 2", ex.getMessage());
+        verifyNoInteractions(rentalRepository, clientRepository);
+    }
+
+    @Test
+    void createRentals_whenAnyEquipmentOverlaps_rejectsWholeBatch() {
+        LocalDate start = LocalDate.of(2024, 1, 10);
+        LocalDate end = LocalDate.of(2024, 1, 12);
+
+        when(equipmentRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(
+                Equipment.builder().id(1L).status(EquipmentStatus.AVAILABLE).pricePerDay(BigDecimal.TEN).build(),
+                Equipment.builder().id(2L).status(EquipmentStatus.AVAILABLE).pricePerDay(BigDecimal.ONE).build()
+        ));
+        when(rentalRepository.findBookedEquipmentIdsBetween(Set.of(1L, 2L), start, end))
+                .thenReturn(Set.of(2L));
+
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> rentalService.createRentals("12345678A", List.of(1L, 2L), start, end)
+        );
+
+        assertEquals("Existe solapamiento de fechas para los equipos [2]", ex.getMessage());
+        verify(rentalRepository, never()).saveAll(any());
+        verifyNoInteractions(clientRepository);
+    }
+
+    @Test
+    void createRentals_whenAllValid_looksUpClientOnceAndSavesAllTogether() {
+        LocalDate start = LocalDate.of(2024, 1, 10);
+        LocalDate end = LocalDate.of(2024, 1, 12);
+
+        Equipment first = Equipment.builder().id(1L).status(EquipmentStatus.AVAILABLE).pricePerDay(BigDecimal.TEN).build();
+        Equipment second = Equipment.builder().id(2L).status(EquipmentStatus.AVAILABLE).pricePerDay(BigDecimal.ONE).build();
+        Client client = Client.builder().id(5L).dni("12345678A").build();
+
+        when(equipmentRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(second, first));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(clientRepository.findByDni("12345678A")).thenReturn(Optional.of(client));
+        when(rentalRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Rental> result = rentalService.createRentals("12345678A", List.of(1L, 2L), start, end);
+
+        assertEquals(2, result.size());
+        assertEquals(first, result.get(0).getEquipment());
+        assertEquals(new BigDecimal("30"), result.get(0).getTotalAmount());
+        assertEquals(new BigDecimal("3"), result.get(1).getTotalAmount());
+        assertEquals(EquipmentStatus.RENTED, first.getStatus());
+        assertEquals(EquipmentStatus.RENTED, second.getStatus());
+        verify(clientRepository, times(1)).findByDni("12345678A");
+        verify(bookingLocks).lockForTransaction(Set.of(1L, 2L));
+        verify(availabilityIndex, times(2)).book(any(Rental.class));
+        verify(overdueRentals, times(2)).track(any(Rental.class));
+        verify(rentalCounters).recordRentals(Set.of(1L, 2L), 5L);
+        verify(incomeRollup).record(start, new BigDecimal("33"));
+        verify(rentalRepository, never()).findBookedEquipmentIdsBetween(any(), any(), any());
+        verify(equipmentStatusFeed).record(1L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(equipmentStatusFeed).record(2L, EquipmentStatus.AVAILABLE, EquipmentStatus.RENTED);
+        verify(equipmentStatusTimer, never()).schedule(any());
+    }
+
+    @Test
+    void createRentals_whenStartsLater_schedulesEveryRentalWithoutTouchingStatus() {
+        LocalDate start = LocalDate.of(2024, 2, 10);
+        LocalDate end = LocalDate.of(2024, 2, 12);
+
+        Equipment first = Equipment.builder().id(1L).status(EquipmentStatus.AVAILABLE).pricePerDay(BigDecimal.TEN).build();
+        Equipment second = Equipment.builder().id(2L).status(EquipmentStatus.RENTED).pricePerDay(BigDecimal.ONE).build();
+
+        when(equipmentRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(clientRepository.findByDni("12345678A"))
+                .thenReturn(Optional.of(Client.builder().id(5L).dni("12345678A").build()));
+        when(equipmentStatusTimer.startsLater(start)).thenReturn(true);
+        when(rentalRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Rental> result = rentalService.createRentals("12345678A", List.of(1L, 2L), start, end);
+
+        assertEquals(EquipmentStatus.AVAILABLE, first.getStatus());
+        assertEquals(EquipmentStatus.RENTED, second.getStatus());
+        verify(equipmentStatusTimer).schedule(result.get(0));
+        verify(equipmentStatusTimer).schedule(result.get(1));
+        verifyNoInteractions(equipmentStatusFeed);
     }
 
     // ---------- registerReturn ----------
 
     @Test
     void registerReturn_whenRentalNotFound_throwsBusinessException() {
-        when(rentalRepository.findById(1L)).thenReturn(Optional.empty());
+        when(rentalRepository.findEquipmentIdById(1L)).thenReturn(Optional.empty());
 
         BusinessException ex = assertThrows(
                 BusinessException.class,
@@ -217,6 +484,7 @@ class RentalServiceTest {
                 .equipment(equipment)
                 .build();
 
+        when(rentalRepository.findEquipmentIdById(1L)).thenReturn(Optional.of(1L));
         when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
 
         BusinessException ex = assertThrows(
@@ -227,6 +495,7 @@ class RentalServiceTest {
         assertEquals("El alquiler ya fue devuelto", ex.getMessage());
         assertTrue(rental.isReturned());
         assertEquals(EquipmentStatus.AVAILABLE, equipment.getStatus());
+        verifyNoInteractions(equipmentStatusFeed);
     }
 
     @Test
@@ -242,6 +511,7 @@ class RentalServiceTest {
                 .equipment(equipment)
                 .build();
 
+        when(rentalRepository.findEquipmentIdById(1L)).thenReturn(Optional.of(1L));
         when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
 
         Rental result = rentalService.registerReturn(1L);
@@ -250,23 +520,117 @@ class RentalServiceTest {
         assertTrue(rental.isReturned());
         assertEquals(EquipmentStatus.AVAILABLE, equipment.getStatus());
         verify(rentalRepository, never()).save(any());
+        verify(availabilityIndex).release(rental);
+        verify(overdueRentals).release(rental);
+        verify(bookingLocks).lockForTransaction(1L);
+        verify(equipmentStatusFeed).record(1L, EquipmentStatus.RENTED, EquipmentStatus.AVAILABLE);
+        verify(aggregateVersions).bump(Aggregate.RENTALS, Aggregate.EQUIPMENTS);
+        verify(equipmentStatusTimer, never()).cancel(any());
+    }
+
+    @Test
+    void registerReturn_lateWhileTheNextRentalHasStarted_keepsTheEquipmentRented() {
+        LocalDate today = LocalDate.of(2024, 2, 10);
+        Equipment equipment = Equipment.builder()
+                .id(1L)
+                .status(EquipmentStatus.RENTED)
+                .build();
+
+        Rental rental = Rental.builder()
+                .id(1L)
+                .returned(false)
+                .equipment(equipment)
+                .startDate(today.minusDays(5))
+                .endDate(today.minusDays(1))
+                .build();
+
+        when(rentalRepository.findEquipmentIdById(1L)).thenReturn(Optional.of(1L));
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        when(equipmentStatusTimer.today()).thenReturn(today);
+        when(availabilityIndex.isReady()).thenReturn(true);
+        // El siguiente alquiler del equipo empieza hoy
+        when(availabilityIndex.overlaps(1L, LocalDate.EPOCH, today)).thenReturn(true);
+
+        rentalService.registerReturn(1L);
+
+        assertTrue(rental.isReturned());
+        assertEquals(EquipmentStatus.RENTED, equipment.getStatus());
+        InOrder inOrder = inOrder(availabilityIndex);
+        inOrder.verify(availabilityIndex).release(rental);
+        inOrder.verify(availabilityIndex).overlaps(1L, LocalDate.EPOCH, today);
+        verify(equipmentStatusFeed, never()).record(any(), any(), eq(EquipmentStatus.AVAILABLE));
+    }
+
+    @Test
+    void registerReturn_beforeTheRentalStarts_cancelsTheScheduledChangeOnly() {
+        LocalDate start = LocalDate.of(2024, 2, 10);
+        Equipment equipment = Equipment.builder()
+                .id(1L)
+                .status(EquipmentStatus.RENTED)
+                .build();
+
+        Rental rental = Rental.builder()
+                .id(1L)
+                .returned(false)
+                .equipment(equipment)
+                .startDate(start)
+                .build();
+
+        when(rentalRepository.findEquipmentIdById(1L)).thenReturn(Optional.of(1L));
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        when(equipmentStatusTimer.startsLater(start)).thenReturn(true);
+
+        rentalService.registerReturn(1L);
+
+        assertTrue(rental.isReturned());
+        // Sigue alquilado por otro alquiler en curso
+        assertEquals(EquipmentStatus.RENTED, equipment.getStatus());
+        verify(equipmentStatusTimer).cancel(rental);
+        verify(availabilityIndex).release(rental);
+        verify(overdueRentals).release(rental);
+        verifyNoInteractions(equipmentStatusFeed);
     }
 
     // ---------- getClientHistory ----------
 
+    private static RentalResponse row(long id) {
+        return new RentalResponse(id, "Juan", "12345678A", 10L, "Taladro",
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3), BigDecimal.TEN, false);
+    }
+
     @Test
-    void getClientHistory_returnsRentalsFromRepository() {
-        List<Rental> rentals = List.of(
-                Rental.builder().id(1L).build(),
-                Rental.builder().id(2L).build()
-        );
+    void getClientHistory_whenMoreRowsThanLimit_returnsPageAndCursor() {
+        when(rentalRepository.findHistoryPage("12345678A", 0L, Limit.of(3)))
+                .thenReturn(List.of(row(4), row(7), row(9)));
 
-        when(rentalRepository.findByClientDni("12345678A"))
-                .thenReturn(rentals);
+        RentalHistoryPage page = rentalService.getClientHistory("12345678A", null, 2);
 
-        List<Rental> result = rentalService.getClientHistory("12345678A");
+        assertEquals(List.of(row(4), row(7)), page.rentals());
+        assertEquals(7L, page.nextCursor());
+    }
 
-        assertSame(rentals, result);
-        assertEquals(2, result.size());
+    @Test
+    void getClientHistory_whenLastPage_returnsNoCursor() {
+        when(rentalRepository.findHistoryPage("12345678A", 7L, Limit.of(3)))
+                .thenReturn(List.of(row(9)));
+
+        RentalHistoryPage page = rentalService.getClientHistory("12345678A", 7L, 2);
+
+        assertEquals(List.of(row(9)), page.rentals());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getClientHistory_clampsLimitToBounds() {
+        when(rentalRepository.findHistoryPage(eq("12345678A"), eq(0L), any(Limit.class)))
+                .thenReturn(List.of());
+
+        rentalService.getClientHistory("12345678A", null, null);
+        rentalService.getClientHistory("12345678A", null, 100_000);
+        rentalService.getClientHistory("12345678A", null, 0);
+
+        verify(rentalRepository).findHistoryPage("12345678A", 0L, Limit.of(RentalService.DEFAULT_HISTORY_PAGE + 1));
+        verify(rentalRepository).findHistoryPage("12345678A", 0L, Limit.of(RentalService.MAX_HISTORY_PAGE + 1));
+        verify(rentalRepository).findHistoryPage("12345678A", 0L, Limit.of(2));
     }
 }
@@ -0,0 +1,206 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.report.IncomeReportResponse;
+import com.ecorent.gestionalquileres.dto.report.ReportJobRequest;
+import com.ecorent.gestionalquileres.dto.report.ReportJobResponse;
+import com.ecorent.gestionalquileres.dto.report.ReportJobStatus;
+import com.ecorent.gestionalquileres.dto.report.ReportType;
+import com.ecorent.gestionalquileres.dto.report.TopClientResponse;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.NotFoundException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 12, 31);
+    private static final Duration TTL = Duration.ofMinutes(15);
+
+    @Mock
+    ReportService reportService;
+
+    @Mock
+    Clock clock;
+
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2024-06-01T10:00:00Z"));
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ReportJobService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.instant()).thenAnswer(invocation -> now.get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    private ReportJobService service(int threads, int queueCapacity, int maxPerType) {
+        service = new ReportJobService(reportService, threads, queueCapacity, maxPerType, TTL, clock);
+        return service;
+    }
+
+    private ReportJobResponse awaitFinished(UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            ReportJobResponse job = service.getJob(id);
+            if (job.status() == ReportJobStatus.DONE || job.status() == ReportJobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        fail("El informe " + id + " no terminó a tiempo");
+        return null;
+    }
+
+    private void blockTopClients() {
+        when(reportService.getTopClients(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(new TopClientResponse(1L, "Ana", "12345678A", 4L));
+        });
+    }
+
+    // ---------- submit ----------
+
+    @Test
+    void submit_returnsQueuedJob_andKeepsTheResultWhenDone() throws InterruptedException {
+        service(2, 10, 2);
+        when(reportService.getIncomeBetween(START, END)).thenReturn(new BigDecimal("1500.00"));
+
+        ReportJobResponse submitted = service.submit(new ReportJobRequest(ReportType.INCOME, START, END, null));
+
+        assertNotNull(submitted.id());
+        assertEquals(ReportType.INCOME, submitted.type());
+        assertEquals(now.get(), submitted.submittedAt());
+
+        ReportJobResponse done = awaitFinished(submitted.id());
+        assertEquals(ReportJobStatus.DONE, done.status());
+        assertEquals(new IncomeReportResponse(START, END, new BigDecimal("1500.00")), done.result());
+        assertNotNull(done.finishedAt());
+        assertNull(done.error());
+    }
+
+    @Test
+    void submit_incomeWithoutDates_isRejectedBeforeQueueing() {
+        service(2, 10, 2);
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> service.submit(new ReportJobRequest(ReportType.INCOME, START, null, null)));
+
+        assertEquals(RejectionReason.INVALID_DATES, ex.getReason());
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void submit_incomeWithEndBeforeStart_isRejectedBeforeQueueing() {
+        service(2, 10, 2);
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> service.submit(new ReportJobRequest(ReportType.INCOME, END, START, null)));
+
+        assertEquals(RejectionReason.INVALID_DATES, ex.getReason());
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void submit_capsConcurrentJobsPerType() throws InterruptedException {
+        service(4, 10, 1);
+        blockTopClients();
+        when(reportService.getTopRentedEquipments(5)).thenReturn(List.of());
+
+        ReportJobResponse first = service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, 5));
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, 5)));
+        assertEquals(RejectionReason.TOO_MANY_REPORT_JOBS, ex.getReason());
+
+        // Otro tipo no comparte el límite
+        ReportJobResponse other = service.submit(new ReportJobRequest(ReportType.TOP_EQUIPMENTS, null, null, 5));
+        assertEquals(ReportJobStatus.DONE, awaitFinished(other.id()).status());
+
+        release.countDown();
+        assertEquals(ReportJobStatus.DONE, awaitFinished(first.id()).status());
+
+        ReportJobResponse again = service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, 5));
+        assertEquals(ReportJobStatus.DONE, awaitFinished(again.id()).status());
+    }
+
+    @Test
+    void submit_whenQueueIsFull_isRejectedAndFreesTheSlot() throws InterruptedException {
+        service(1, 1, 10);
+        blockTopClients();
+
+        ReportJobResponse running = service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, null));
+        ReportJobResponse queued = service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, null));
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, null)));
+        assertEquals(RejectionReason.TOO_MANY_REPORT_JOBS, ex.getReason());
+
+        release.countDown();
+        awaitFinished(running.id());
+        awaitFinished(queued.id());
+        ReportJobResponse later = service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, null));
+        assertEquals(ReportJobStatus.DONE, awaitFinished(later.id()).status());
+    }
+
+    @Test
+    void failingReport_endsAsFailedWithoutInternalDetails() throws InterruptedException {
+        service(1, 10, 2);
+        when(reportService.getTopClients(null)).thenThrow(new IllegalStateException("conexión perdida"));
+
+        ReportJobResponse submitted = service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, null));
+
+        ReportJobResponse failed = awaitFinished(submitted.id());
+        assertEquals(ReportJobStatus.FAILED, failed.status());
+        assertEquals("Ha ocurrido un error inesperado", failed.error());
+        assertNull(failed.result());
+    }
+
+    // ---------- getJob ----------
+
+    @Test
+    void getJob_unknownId_throwsNotFoundException() {
+        service(1, 10, 2);
+
+        assertThrows(NotFoundException.class, () -> service.getJob(UUID.randomUUID()));
+    }
+
+    @Test
+    void getJob_afterTtl_finishedResultIsDiscarded() throws InterruptedException {
+        service(1, 10, 2);
+        when(reportService.getTopClients(null)).thenReturn(List.of());
+
+        ReportJobResponse submitted = service.submit(new ReportJobRequest(ReportType.TOP_CLIENTS, null, null, null));
+        awaitFinished(submitted.id());
+
+        now.set(now.get().plus(TTL).minusSeconds(1));
+        assertEquals(ReportJobStatus.DONE, service.getJob(submitted.id()).status());
+
+        now.set(now.get().plusSeconds(2));
+        assertThrows(NotFoundException.class, () -> service.getJob(submitted.id()));
+    }
+}
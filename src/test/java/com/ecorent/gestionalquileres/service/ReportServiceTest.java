@@ -1,83 +1,121 @@
 package com.ecorent.gestionalquileres.service;
 
-import com.ecorent.gestionalquileres.entity.Client;
-import com.ecorent.gestionalquileres.entity.Equipment;
-import com.ecorent.gestionalquileres.repository.ClientRepository;
-import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import com.ecorent.gestionalquileres.dto.report.TopClientResponse;
+import com.ecorent.gestionalquileres.dto.report.TopEquipmentResponse;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.repository.ClientRentalCountRepository;
+import com.ecorent.gestionalquileres.repository.EquipmentRentalCountRepository;
 import com.ecorent.gestionalquileres.repository.RentalRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ReportServiceTest {
 
     @Mock
-    EquipmentRepository equipmentRepository;
+    EquipmentRentalCountRepository equipmentRentalCountRepository;
 
     @Mock
-    ClientRepository clientRepository;
+    ClientRentalCountRepository clientRentalCountRepository;
 
     @Mock
     RentalRepository rentalRepository;
 
+    @Mock
+    IncomeRollup incomeRollup;
+
     @InjectMocks
     ReportService reportService;
 
     // ---------- getTopRentedEquipments ----------
 
     @Test
-    void getTopRentedEquipments_returnsListFromRepository() {
-        List<Equipment> equipments = List.of(
-                Equipment.builder().id(1L).build(),
-                Equipment.builder().id(2L).build()
+    void getTopRentedEquipments_readsTopNFromCounters() {
+        List<TopEquipmentResponse> top = List.of(
+                new TopEquipmentResponse(2L, "Generador", 7L),
+                new TopEquipmentResponse(1L, "Taladro", 3L)
         );
 
-        when(equipmentRepository.findTopRentedEquipments()).thenReturn(equipments);
+        when(equipmentRentalCountRepository.findTop(Limit.of(5))).thenReturn(top);
 
-        List<Equipment> result = reportService.getTopRentedEquipments();
+        List<TopEquipmentResponse> result = reportService.getTopRentedEquipments(5);
 
-        assertSame(equipments, result);
-        assertEquals(2, result.size());
+        assertSame(top, result);
+    }
+
+    @Test
+    void getTopRentedEquipments_withoutLimit_usesDefaultAndCapsMaximum() {
+        when(equipmentRentalCountRepository.findTop(Limit.of(ReportService.DEFAULT_TOP))).thenReturn(List.of());
+        when(equipmentRentalCountRepository.findTop(Limit.of(ReportService.MAX_TOP))).thenReturn(List.of());
+
+        assertEquals(0, reportService.getTopRentedEquipments(null).size());
+        assertEquals(0, reportService.getTopRentedEquipments(100_000).size());
     }
 
     // ---------- getIncomeBetween ----------
 
     @Test
-    void getIncomeBetween_returnsValueFromRepository() {
+    void getIncomeBetween_whenRollupReady_readsPrefixSums() {
         LocalDate start = LocalDate.of(2024, 1, 1);
         LocalDate end = LocalDate.of(2024, 1, 31);
 
-        when(rentalRepository.calculateIncomeBetween(start, end)).thenReturn(1234.56);
+        when(incomeRollup.isReady()).thenReturn(true);
+        when(incomeRollup.incomeBetween(start, end)).thenReturn(new BigDecimal("1234.56"));
+
+        BigDecimal result = reportService.getIncomeBetween(start, end);
+
+        assertEquals(new BigDecimal("1234.56"), result);
+        verifyNoInteractions(rentalRepository);
+    }
 
-        Double result = reportService.getIncomeBetween(start, end);
+    @Test
+    void getIncomeBetween_whenRollupNotLoaded_fallsBackToQuery() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 1, 31);
+
+        when(rentalRepository.sumIncomeStartingBetween(start, end)).thenReturn(new BigDecimal("10.05"));
+
+        assertEquals(new BigDecimal("10.05"), reportService.getIncomeBetween(start, end));
+    }
+
+    @Test
+    void getIncomeBetween_whenEndBeforeStart_throwsBusinessException() {
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> reportService.getIncomeBetween(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1))
+        );
 
-        assertEquals(1234.56, result);
+        assertEquals("Fecha fin no puede ser anterior a fecha inicio", ex.getMessage());
     }
 
     // ---------- getTopClients ----------
 
     @Test
-    void getTopClients_returnsListFromRepository() {
-        List<Client> clients = List.of(
-                Client.builder().id(1L).build(),
-                Client.builder().id(2L).build()
+    void getTopClients_readsTopNFromCounters() {
+        List<TopClientResponse> top = List.of(
+                new TopClientResponse(1L, "Cliente 1", "111A", 4L),
+                new TopClientResponse(2L, "Cliente 2", "222B", 1L)
         );
 
-        when(clientRepository.findTopClients()).thenReturn(clients);
+        when(clientRentalCountRepository.findTop(Limit.of(ReportService.DEFAULT_TOP))).thenReturn(top);
 
-        List<Client> result = reportService.getTopClients();
+        List<TopClientResponse> result = reportService.getTopClients(null);
 
-        assertSame(clients, result);
+        assertSame(top, result);
         assertEquals(2, result.size());
     }
 }
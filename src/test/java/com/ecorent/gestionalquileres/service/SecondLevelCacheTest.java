@@ -0,0 +1,187 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.cache.CacheRegionStats;
+import com.ecorent.gestionalquileres.entity.Client;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.EquipmentStatus;
+import com.ecorent.gestionalquileres.repository.ClientRepository;
+import com.ecorent.gestionalquileres.repository.EquipmentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sentencias SQL del camino de reserva con la caché de segundo nivel fría y
+ * caliente, contadas con las estadísticas de Hibernate contra H2 en memoria.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class SecondLevelCacheTest {
+
+    private static final LocalDate BASE = LocalDate.of(2031, 1, 1);
+    private static final int BOOKINGS = 20;
+
+    @Autowired
+    RentalService rentalService;
+
+    @Autowired
+    ClientService clientService;
+
+    @Autowired
+    EquipmentService equipmentService;
+
+    @Autowired
+    EquipmentRepository equipmentRepository;
+
+    @Autowired
+    ClientRepository clientRepository;
+
+    @Autowired
+    CacheStatsService cacheStatsService;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+    }
+
+    private Equipment newEquipment() {
+        return equipmentService.createEquipment(Equipment.builder()
+                .name("Hormigonera")
+                .category("Obra")
+                .internalCode(UUID.randomUUID().toString())
+                .pricePerDay(BigDecimal.TEN)
+                .build());
+    }
+
+    private Client newClient() {
+        return clientService.createClient(Client.builder()
+                .name("Cliente Caché")
+                .dni(UUID.randomUUID().toString().substring(0, 12))
+                .build());
+    }
+
+    // Sentencias preparadas por reserva, vaciando o no la caché antes de cada una
+    private double statementsPerBooking(Equipment equipment, Client client, int offsetDays, boolean evict) {
+        long statements = 0;
+        for (int i = 0; i < BOOKINGS; i++) {
+            if (evict) {
+                sessionFactory.getCache().evictAllRegions();
+            }
+            LocalDate start = BASE.plusDays(offsetDays + 2L * i);
+            long before = statistics.getPrepareStatementCount();
+            rentalService.createRental(client.getDni(), equipment.getId(), start, start);
+            statements += statistics.getPrepareStatementCount() - before;
+        }
+        return (double) statements / BOOKINGS;
+    }
+
+    @Test
+    void bookingPath_warmCacheSkipsEquipmentAndClientReads() {
+        Equipment equipment = newEquipment();
+        Client client = newClient();
+
+        double cold = statementsPerBooking(equipment, client, 0, true);
+        double warm = statementsPerBooking(equipment, client, 1000, false);
+
+        log.info("Reserva: {} sentencias SQL con la caché fría, {} con la caché caliente", cold, warm);
+        // Equipo por id y cliente por DNI (resolución + carga) dejan de ir a la base de datos
+        assertTrue(cold - warm >= 2, "fría=" + cold + " caliente=" + warm);
+    }
+
+    @Test
+    void naturalIdLookups_hitTheCacheAfterTheFirstLoad() {
+        Equipment equipment = newEquipment();
+        Client client = newClient();
+        sessionFactory.getCache().evictAllRegions();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(clientRepository.existsByDni(client.getDni()));
+            assertTrue(equipmentRepository.findByInternalCode(equipment.getInternalCode()).isPresent());
+        });
+
+        long before = statistics.getPrepareStatementCount();
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(client.getId(), clientRepository.findByDni(client.getDni()).orElseThrow().getId());
+            assertEquals(equipment.getId(),
+                    equipmentRepository.findByInternalCode(equipment.getInternalCode()).orElseThrow().getId());
+        });
+        assertEquals(0, statistics.getPrepareStatementCount() - before);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertFalse(clientRepository.existsByDni("NO-EXISTE"));
+            assertTrue(equipmentRepository.findByInternalCode("NO-EXISTE").isEmpty());
+        });
+    }
+
+    @Test
+    void findAllById_onlyQueriesIdsMissingFromTheCache() {
+        Equipment cached = newEquipment();
+        Equipment evicted = newEquipment();
+        sessionFactory.getCache().evictEntityData(Equipment.class, evicted.getId());
+
+        long before = statistics.getPrepareStatementCount();
+        List<Equipment> found = transactionTemplate.execute(status ->
+                equipmentRepository.findAllById(List.of(cached.getId(), evicted.getId(), -1L)));
+
+        assertEquals(List.of(cached.getId(), evicted.getId()), found.stream().map(Equipment::getId).toList());
+        assertEquals(1, statistics.getPrepareStatementCount() - before);
+    }
+
+    @Test
+    void updatesReachTheCachedEquipment() {
+        Equipment equipment = newEquipment();
+        transactionTemplate.executeWithoutResult(status -> equipmentRepository.findById(equipment.getId()));
+
+        equipmentService.changeStatus(equipment.getId(), EquipmentStatus.MAINTENANCE);
+
+        long before = statistics.getPrepareStatementCount();
+        Equipment reloaded = transactionTemplate.execute(status ->
+                equipmentRepository.findById(equipment.getId()).orElseThrow());
+        assertEquals(EquipmentStatus.MAINTENANCE, reloaded.getStatus());
+        assertEquals(0, statistics.getPrepareStatementCount() - before);
+    }
+
+    @Test
+    void stats_reportHitsAndMissesPerRegion() {
+        Client client = newClient();
+        sessionFactory.getCache().evictAllRegions();
+        transactionTemplate.executeWithoutResult(status -> clientRepository.findById(client.getId()));
+        transactionTemplate.executeWithoutResult(status -> clientRepository.findById(client.getId()));
+
+        var stats = cacheStatsService.getStats();
+
+        assertTrue(stats.statisticsEnabled());
+        CacheRegionStats clients = stats.regions().stream()
+                .filter(region -> region.region().equals("client"))
+                .findFirst().orElseThrow();
+        assertTrue(clients.hits() >= 1);
+        assertTrue(clients.misses() >= 1);
+        assertTrue(clients.puts() >= 1);
+    }
+}
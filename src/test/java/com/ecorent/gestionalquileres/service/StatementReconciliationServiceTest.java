@@ -0,0 +1,238 @@
+package com.ecorent.gestionalquileres.service;
+
+import com.ecorent.gestionalquileres.dto.payment.StatementFormat;
+import com.ecorent.gestionalquileres.dto.payment.StatementLineIssue;
+import com.ecorent.gestionalquileres.dto.payment.StatementReconciliationResponse;
+import com.ecorent.gestionalquileres.entity.Client;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import com.ecorent.gestionalquileres.exception.RejectionReason;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conciliación de extractos contra H2 en memoria: cada prueba crea su cliente,
+ * su equipo y sus alquileres.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-reconciliation;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class StatementReconciliationServiceTest {
+
+    private static final LocalDate BASE = LocalDate.of(2032, 3, 1);
+
+    @Autowired
+    StatementReconciliationService statementReconciliationService;
+
+    @Autowired
+    ClientService clientService;
+
+    @Autowired
+    EquipmentService equipmentService;
+
+    @Autowired
+    RentalService rentalService;
+
+    @Autowired
+    RentalRepository rentalRepository;
+
+    @Autowired
+    PaymentService paymentService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    AggregateVersions aggregateVersions;
+
+    private Client client;
+    private Equipment equipment;
+    private int nextDay;
+
+    @BeforeEach
+    void setUp() {
+        int number = ThreadLocalRandom.current().nextInt(10_000_000, 99_999_999);
+        client = clientService.createClient(Client.builder()
+                .name("Cliente conciliación")
+                .dni(number + String.valueOf("TRWAGMYFPDXBNJZSQVHLCKE".charAt(number % 23)))
+                .phone("600000000")
+                .build());
+        equipment = equipmentService.createEquipment(Equipment.builder()
+                .name("Generador")
+                .category("Energía")
+                .internalCode(UUID.randomUUID().toString())
+                .pricePerDay(BigDecimal.TEN)
+                .build());
+    }
+
+    private Rental rental() {
+        LocalDate start = BASE.plusDays(nextDay);
+        nextDay += 5;
+        return rentalService.createRental(client.getDni(), equipment.getId(), start, start.plusDays(1));
+    }
+
+    private BigDecimal paidAmount(Rental rental) {
+        return rentalRepository.findById(rental.getId()).orElseThrow().getPaidAmount();
+    }
+
+    private long paymentCount(Rental rental) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment WHERE rental_id = ?", Long.class, rental.getId());
+    }
+
+    private static InputStream text(String content, Charset charset) {
+        return new ByteArrayInputStream(content.getBytes(charset));
+    }
+
+    // ---------- CSV ----------
+
+    @Test
+    void reconcileCsv_appliesMatchedLinesAndReportsTheRest() throws IOException {
+        Rental first = rental();
+        Rental second = rental();
+        BigDecimal total = first.getTotalAmount();
+        long version = aggregateVersions.version(Aggregate.PAYMENTS);
+
+        StatementReconciliationResponse response = statementReconciliationService.reconcile(StatementFormat.CSV, text(
+                "date,reference,amount,concept\r\n"
+                        + "2032-03-05,ALQ-" + first.getId() + ",5.00,Transferencia\r\n"
+                        + ",ALQ-" + second.getId() + ",\"" + total.toPlainString().replace('.', ',') + "\",Pago total\r\n"
+                        + "2032-03-06,ALQ-" + first.getId() + ",1000,Excede\r\n"
+                        + "2032-03-06,SIN REFERENCIA,7.00,Desconocido\r\n"
+                        + "2032-03-06,ALQ-999999999,7.00,No existe\r\n"
+                        + "2032-03-07,ALQ-" + first.getId() + ",cinco,Mal\r\n"
+                        + "2032-03-07,ALQ-" + first.getId() + ",-3.00,Cargo\r\n",
+                StandardCharsets.UTF_8));
+
+        assertEquals(2, response.applied());
+        assertEquals(0, new BigDecimal("5.00").add(total).compareTo(response.appliedAmount()));
+        assertEquals(List.of(
+                new StatementLineIssue(5, "SIN REFERENCIA", new BigDecimal("7.00"), "Ningún alquiler con esa referencia"),
+                new StatementLineIssue(6, "ALQ-999999999", new BigDecimal("7.00"), "Ningún alquiler con esa referencia")
+        ), response.unmatched());
+        assertEquals(1, response.overpayments().size());
+        assertEquals(4, response.overpayments().get(0).row());
+        assertEquals(List.of(7L, 8L), response.invalid().stream().map(StatementLineIssue::row).toList());
+
+        assertEquals(0, new BigDecimal("5.00").compareTo(paidAmount(first)));
+        assertEquals(0, total.compareTo(paidAmount(second)));
+        assertEquals(1, paymentCount(first));
+        assertEquals(LocalDate.of(2032, 3, 5), jdbcTemplate.queryForObject(
+                "SELECT payment_date FROM payment WHERE rental_id = ?", LocalDate.class, first.getId()));
+        assertTrue(aggregateVersions.version(Aggregate.PAYMENTS) > version);
+    }
+
+    @Test
+    void reconcileCsv_severalLinesForOneRental_areValidatedInOrderAgainstTheRunningBalance() throws IOException {
+        Rental rental = rental();
+        BigDecimal half = rental.getTotalAmount().divide(BigDecimal.valueOf(2));
+
+        StatementReconciliationResponse response = statementReconciliationService.reconcile(StatementFormat.CSV, text(
+                "reference,amount\n"
+                        + rental.getId() + "," + half + "\n"
+                        + rental.getId() + "," + half + "\n"
+                        + rental.getId() + ",0.01\n",
+                StandardCharsets.UTF_8));
+
+        assertEquals(2, response.applied());
+        assertEquals(List.of(new StatementLineIssue(4, String.valueOf(rental.getId()), new BigDecimal("0.01"),
+                "El pago supera el importe pendiente (0.00)")), response.overpayments());
+        assertEquals(0, rental.getTotalAmount().compareTo(paidAmount(rental)));
+        assertEquals("Pagado completo", paymentService.getPaymentStatus(rental.getId()));
+    }
+
+    @Test
+    void reconcileCsv_withoutAmountColumn_rejectsTheFile() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> statementReconciliationService.reconcile(StatementFormat.CSV,
+                        text("reference,importe\nALQ-1,5\n", StandardCharsets.UTF_8)));
+
+        assertEquals(RejectionReason.INVALID_IMPORT_FILE, ex.getReason());
+    }
+
+    @Test
+    void reconcile_emptyFile_isRejected() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> statementReconciliationService.reconcile(StatementFormat.FIXED, text("", StandardCharsets.UTF_8)));
+
+        assertEquals(RejectionReason.INVALID_IMPORT_FILE, ex.getReason());
+    }
+
+    // ---------- ancho fijo ----------
+
+    private static String fixed(String date, String reference, long cents) {
+        return date + String.format("%-20s", reference) + String.format("%014d", cents) + "Concepto con acentos: señal";
+    }
+
+    @Test
+    void reconcileFixed_readsDateReferenceAndCents() throws IOException {
+        Rental rental = rental();
+
+        StatementReconciliationResponse response = statementReconciliationService.reconcile(StatementFormat.FIXED, text(
+                fixed("20320310", "ALQ-" + rental.getId(), 1250) + "\r\n"
+                        + fixed("20321310", "ALQ-" + rental.getId(), 100) + "\r\n"
+                        + "20320310ALQ-1\r\n"
+                        + fixed("20320311", "ALQ-" + rental.getId(), 99_999_999) + "\r\n",
+                StandardCharsets.ISO_8859_1));
+
+        assertEquals(1, response.applied());
+        assertEquals(0, new BigDecimal("12.50").compareTo(paidAmount(rental)));
+        assertEquals(LocalDate.of(2032, 3, 10), jdbcTemplate.queryForObject(
+                "SELECT payment_date FROM payment WHERE rental_id = ?", LocalDate.class, rental.getId()));
+        assertEquals(List.of(2L, 3L), response.invalid().stream().map(StatementLineIssue::row).toList());
+        assertEquals("Fecha valor no válida", response.invalid().get(0).message());
+        assertEquals(1, response.overpayments().size());
+    }
+
+    // ---------- referencias ----------
+
+    @Test
+    void rentalId_acceptsOnlyThePrefixedIdOrBareDigits() {
+        assertEquals(123L, StatementFileReader.rentalId("ALQ-000123"));
+        assertEquals(123L, StatementFileReader.rentalId("alq-123"));
+        assertEquals(7L, StatementFileReader.rentalId("7"));
+        assertNull(StatementFileReader.rentalId("ALQ-"));
+        assertNull(StatementFileReader.rentalId("1234567890123456789"));
+    }
+
+    @Test
+    void rentalId_ignoresReferencesThatOnlyEndInDigits() {
+        assertNull(StatementFileReader.rentalId("Factura 2026"));
+        assertNull(StatementFileReader.rentalId("TRANSF 20241105"));
+        assertNull(StatementFileReader.rentalId("Nómina 3"));
+        assertNull(StatementFileReader.rentalId("XALQ-5"));
+        assertNull(StatementFileReader.rentalId("ALQ-12 3"));
+    }
+
+    @Test
+    void reconcileCsv_referenceWithAnUnrelatedTrailingNumber_isUnmatchedAndPaysNothing() throws IOException {
+        Rental rental = rental();
+        String reference = "Factura " + rental.getId();
+
+        StatementReconciliationResponse response = statementReconciliationService.reconcile(StatementFormat.CSV, text(
+                "reference,amount\n" + reference + ",5.00\n", StandardCharsets.UTF_8));
+
+        assertEquals(0, response.applied());
+        assertEquals(List.of(new StatementLineIssue(2, reference, new BigDecimal("5.00"), "Ningún alquiler con esa referencia")),
+                response.unmatched());
+        assertEquals(0, BigDecimal.ZERO.compareTo(paidAmount(rental)));
+    }
+}
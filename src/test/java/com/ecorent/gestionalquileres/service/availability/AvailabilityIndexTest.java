@@ -0,0 +1,127 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+import com.ecorent.gestionalquileres.dto.rental.RentalPeriod;
+import com.ecorent.gestionalquileres.entity.Equipment;
+import com.ecorent.gestionalquileres.entity.Rental;
+import com.ecorent.gestionalquileres.repository.RentalRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+
+    @Mock
+    RentalRepository rentalRepository;
+
+    @InjectMocks
+    AvailabilityIndex availabilityIndex;
+
+    private static Rental rental(Long id, Long equipmentId, LocalDate start, LocalDate end) {
+        return Rental.builder()
+                .id(id)
+                .equipment(Equipment.builder().id(equipmentId).build())
+                .startDate(start)
+                .endDate(end)
+                .build();
+    }
+
+    @Test
+    void isReady_falseUntilRebuilt() {
+        when(rentalRepository.findOpenRentalPeriods()).thenReturn(List.of());
+
+        assertFalse(availabilityIndex.isReady());
+        availabilityIndex.rebuild();
+        assertTrue(availabilityIndex.isReady());
+    }
+
+    @Test
+    void rebuild_loadsOpenRentalsPerEquipment() {
+        when(rentalRepository.findOpenRentalPeriods()).thenReturn(List.of(
+                new RentalPeriod(1L, 10L, LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 12)),
+                new RentalPeriod(2L, 20L, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 5))
+        ));
+
+        availabilityIndex.rebuild();
+
+        assertTrue(availabilityIndex.overlaps(10L, LocalDate.of(2024, 1, 12), LocalDate.of(2024, 1, 20)));
+        assertFalse(availabilityIndex.overlaps(10L, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 5)));
+        assertTrue(availabilityIndex.overlaps(20L, LocalDate.of(2024, 2, 5), LocalDate.of(2024, 2, 5)));
+        assertFalse(availabilityIndex.overlaps(30L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void bookAndRelease_keepIndexCurrent() {
+        Rental rental = rental(1L, 10L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 3));
+
+        availabilityIndex.book(rental);
+        assertTrue(availabilityIndex.overlaps(10L, LocalDate.of(2024, 3, 3), LocalDate.of(2024, 3, 4)));
+
+        availabilityIndex.release(rental);
+        assertFalse(availabilityIndex.overlaps(10L, LocalDate.of(2024, 3, 3), LocalDate.of(2024, 3, 4)));
+    }
+
+    @Test
+    void book_isUndoneWhenTransactionRollsBack() {
+        Rental rental = rental(1L, 10L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 3));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            availabilityIndex.book(rental);
+            assertTrue(availabilityIndex.overlaps(10L, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 2)));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(availabilityIndex.overlaps(10L, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 2)));
+    }
+
+    @Test
+    void release_isUndoneWhenTransactionRollsBack() {
+        Rental rental = rental(1L, 10L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 3));
+        availabilityIndex.book(rental);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            availabilityIndex.release(rental);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(availabilityIndex.overlaps(10L, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 2)));
+    }
+
+    @Test
+    void freeBetween_usesBookedDaysAndKeepsDaysSharedWithOtherOpenRentals() {
+        when(rentalRepository.findOpenRentalPeriods()).thenReturn(List.of(
+                new RentalPeriod(1L, 10L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 10)),
+                new RentalPeriod(2L, 10L, LocalDate.of(2024, 1, 8), LocalDate.of(2024, 1, 15))
+        ));
+        availabilityIndex.rebuild();
+
+        var free = availabilityIndex.freeBetween(LocalDate.of(2024, 1, 9), LocalDate.of(2024, 1, 9));
+        assertFalse(free.test(10L));
+        assertTrue(free.test(20L));
+
+        availabilityIndex.release(rental(2L, 10L, LocalDate.of(2024, 1, 8), LocalDate.of(2024, 1, 15)));
+
+        assertFalse(availabilityIndex.freeBetween(LocalDate.of(2024, 1, 9), LocalDate.of(2024, 1, 9)).test(10L));
+        assertTrue(availabilityIndex.freeBetween(LocalDate.of(2024, 1, 11), LocalDate.of(2024, 1, 20)).test(10L));
+    }
+}
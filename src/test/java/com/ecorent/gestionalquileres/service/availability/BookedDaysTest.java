@@ -0,0 +1,77 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookedDaysTest {
+
+    private static boolean isFree(BookedDays days, long from, long to) {
+        return days.isFree(BookedDays.Mask.of(from, to));
+    }
+
+    @Test
+    void isFree_respectsInclusiveBoundariesAcrossWords() {
+        BookedDays days = new BookedDays();
+        days.set(60, 70);
+
+        assertFalse(isFree(days, 70, 80));
+        assertFalse(isFree(days, 0, 60));
+        assertFalse(isFree(days, 63, 64));
+        assertTrue(isFree(days, 71, 200));
+        assertTrue(isFree(days, 0, 59));
+    }
+
+    @Test
+    void set_growsInBothDirectionsIncludingNegativeDays() {
+        BookedDays days = new BookedDays();
+        days.set(1_000, 1_001);
+        days.set(-5, -1);
+        days.set(5_000, 5_000);
+
+        assertFalse(isFree(days, -3, -3));
+        assertFalse(isFree(days, 1_001, 1_001));
+        assertFalse(isFree(days, 5_000, 5_010));
+        assertTrue(isFree(days, 0, 999));
+    }
+
+    @Test
+    void clear_freesOnlyTheGivenRange() {
+        BookedDays days = new BookedDays();
+        days.set(10, 200);
+        days.clear(50, 100);
+
+        assertTrue(isFree(days, 50, 100));
+        assertFalse(isFree(days, 49, 50));
+        assertFalse(isFree(days, 100, 101));
+    }
+
+    @Test
+    void isFree_matchesBitSetReference() {
+        Random random = new Random(7);
+        BookedDays days = new BookedDays();
+        BitSet reference = new BitSet();
+
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(3_000);
+            int to = from + random.nextInt(40);
+            if (random.nextInt(4) == 0) {
+                days.clear(from, to);
+                reference.clear(from, to + 1);
+            } else {
+                days.set(from, to);
+                reference.set(from, to + 1);
+            }
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            int from = random.nextInt(3_100);
+            int to = from + random.nextInt(100);
+            boolean expected = reference.get(from, to + 1).isEmpty();
+            assertEquals(expected, isFree(days, from, to), "[" + from + ", " + to + "]");
+        }
+    }
+}
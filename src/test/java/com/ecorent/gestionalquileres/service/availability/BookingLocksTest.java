@@ -0,0 +1,147 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+import com.ecorent.gestionalquileres.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingLocksTest {
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations =
+                TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+
+    // Toma el cerrojo en otro hilo dentro de una "transacción" y la cierra enseguida
+    private static CompletableFuture<Void> lockInOtherThread(BookingLocks locks, Long equipmentId) {
+        return CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            locks.lockForTransaction(equipmentId);
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        });
+    }
+
+    @Test
+    void constructor_roundsStripesUpToPowerOfTwo() {
+        assertEquals(64, new BookingLocks(64, 100).stripeCount());
+        assertEquals(128, new BookingLocks(100, 100).stripeCount());
+        assertEquals(1, new BookingLocks(1, 100).stripeCount());
+    }
+
+    @Test
+    void lockForTransaction_withoutTransaction_throwsIllegalState() {
+        BookingLocks locks = new BookingLocks(16, 100);
+
+        assertThrows(IllegalStateException.class, () -> locks.lockForTransaction(1L));
+    }
+
+    @Test
+    void lockForTransaction_holdsSameEquipmentUntilCompletion() throws Exception {
+        BookingLocks locks = new BookingLocks(16, 5_000);
+
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lockForTransaction(7L);
+
+        CompletableFuture<Void> competitor = lockInOtherThread(locks, 7L);
+        assertThrows(Exception.class, () -> competitor.get(200, TimeUnit.MILLISECONDS));
+
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        competitor.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void lockForTransaction_doesNotBlockOtherStripes() throws Exception {
+        BookingLocks locks = new BookingLocks(16, 5_000);
+        Long other = 8L;
+        assertNotEquals(locks.stripeOf(7L), locks.stripeOf(other));
+
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lockForTransaction(7L);
+
+        lockInOtherThread(locks, other).get(2, TimeUnit.SECONDS);
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Test
+    void lockForTransaction_timesOutWithBusinessException() throws Exception {
+        BookingLocks locks = new BookingLocks(16, 50);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            locks.lockForTransaction(7L);
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        });
+
+        held.await();
+        TransactionSynchronizationManager.initSynchronization();
+        BusinessException ex = assertThrows(BusinessException.class, () -> locks.lockForTransaction(7L));
+        assertEquals("El equipo tiene otra reserva en curso, inténtelo de nuevo", ex.getMessage());
+
+        release.countDown();
+        holder.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void separateStripeSets_doNotShareLocksAndUseTheirOwnMessage() throws Exception {
+        BookingLocks bookings = new BookingLocks(16, 5_000);
+        BookingLocks newRows = new BookingLocks(16, 50, "Operación concurrente en curso, inténtelo de nuevo");
+
+        TransactionSynchronizationManager.initSynchronization();
+        bookings.lockForTransaction(7L);
+
+        // Misma clave en el otro juego de franjas: no espera a la reserva
+        lockInOtherThread(newRows, 7L).get(2, TimeUnit.SECONDS);
+
+        newRows.lockForTransaction(7L);
+        CompletableFuture<BusinessException> blocked = CompletableFuture.supplyAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                return assertThrows(BusinessException.class, () -> newRows.lockForTransaction(7L));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        assertEquals("Operación concurrente en curso, inténtelo de nuevo", blocked.get(2, TimeUnit.SECONDS).getMessage());
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Test
+    void lockForTransaction_multipleEquipmentsAreReleasedTogether() throws Exception {
+        BookingLocks locks = new BookingLocks(16, 5_000);
+
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lockForTransaction(List.of(3L, 1L, 2L, 17L));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        for (Long id : List.of(1L, 2L, 3L, 17L)) {
+            lockInOtherThread(locks, id).get(2, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecorent.gestionalquileres.service.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void overlaps_detectsSharedDaysIncludingBoundaries() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(10, 12, 1L);
+        tree.insert(20, 25, 2L);
+
+        assertTrue(tree.overlaps(12, 15));
+        assertTrue(tree.overlaps(5, 10));
+        assertTrue(tree.overlaps(21, 22));
+        assertTrue(tree.overlaps(0, 100));
+        assertFalse(tree.overlaps(13, 19));
+        assertFalse(tree.overlaps(26, 30));
+        assertFalse(tree.overlaps(0, 9));
+    }
+
+    @Test
+    void remove_dropsOnlyTheGivenRental() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(10, 12, 1L);
+        tree.insert(10, 15, 2L);
+
+        assertTrue(tree.remove(10, 1L));
+        assertFalse(tree.remove(10, 1L));
+
+        assertEquals(1, tree.size());
+        assertTrue(tree.overlaps(14, 14));
+    }
+
+    @Test
+    void insert_whenEndBeforeStart_throwsIllegalArgument() {
+        IntervalTree tree = new IntervalTree();
+
+        assertThrows(IllegalArgumentException.class, () -> tree.insert(5, 4, 1L));
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void overlaps_matchesBruteForceAfterRandomInsertsAndRemovals() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> stored = new ArrayList<>();
+
+        for (long id = 0; id < 2_000; id++) {
+            long start = random.nextInt(5_000);
+            long end = start + random.nextInt(30);
+            tree.insert(start, end, id);
+            stored.add(new long[]{start, end, id});
+
+            if (random.nextInt(3) == 0) {
+                long[] victim = stored.remove(random.nextInt(stored.size()));
+                assertTrue(tree.remove(victim[0], victim[2]));
+            }
+        }
+
+        assertEquals(stored.size(), tree.size());
+
+        for (int i = 0; i < 2_000; i++) {
+            long start = random.nextInt(5_100);
+            long end = start + random.nextInt(10);
+            boolean expected = stored.stream().anyMatch(s -> s[0] <= end && s[1] >= start);
+            assertEquals(expected, tree.overlaps(start, end), "[" + start + ", " + end + "]");
+        }
+    }
+}